@@ -1,5 +1,7 @@
 package sh.cody.string.hex;
 
+import java.io.IOException;
+
 @SuppressWarnings("DuplicatedCode")
 public class FastererHexStringConverter implements HexStringConverter {
   private static char[] HEXADECIMAL_LOWERCASE = {
@@ -26,6 +28,15 @@ public class FastererHexStringConverter implements HexStringConverter {
     return new String(buffer);
   }
 
+  public static void appendOctet(final int octet,
+                                 final boolean uppercase,
+                                 final Appendable destination)
+    throws IOException {
+    final char[] mapping = uppercase ? HEXADECIMAL_UPPERCASE :
+                                       HEXADECIMAL_LOWERCASE;
+    destination.append(mapping[octet >> 4 & 15]).append(mapping[octet & 15]);
+  }
+
   @Override
   public byte[] fromString(final String str) {
     final int len = str.length();
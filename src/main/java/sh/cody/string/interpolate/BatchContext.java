@@ -0,0 +1,167 @@
+package sh.cody.string.interpolate;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link Context} which memoizes the values of another context for the
+ * duration of a batch of interpolations.
+ * <p>
+ * Each key is looked up in the underlying context at most once per batch
+ * unless concurrent lookups of the same key race, in which case every racing
+ * lookup is made but only one result is retained. Keys with no associated
+ * value are memoized as well. A key given as a range of characters is
+ * looked up in the underlying context as a range, and is only materialized
+ * when its value is memoized. Unmatched expressions are reported to the
+ * underlying context if it is an {@link ExpressionObserver}.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+final class BatchContext implements Context, ExpressionObserver {
+  /**
+   * The placeholder memoized for keys with no associated value.
+   */
+  private static final Object MISSING = new Object();
+
+  /**
+   * The context whose values are memoized.
+   */
+  private final Context context;
+
+  /**
+   * The underlying context as an observer of unmatched expressions, or
+   * {@code null} if it is not one.
+   */
+  private final ExpressionObserver observer;
+
+  /**
+   * The memoized values, or {@link #MISSING}, keyed by their keys.
+   */
+  private final ConcurrentHashMap<String, Object> values =
+    new ConcurrentHashMap<>();
+
+  BatchContext(final Context context) {
+    this.context = context;
+    this.observer = ExpressionObserver.of(context);
+  }
+
+  @Override
+  public String get(final String key) {
+    Object value = this.values.get(key);
+
+    if (value == null) {
+      value = memoize(key, this.context.get(key));
+    }
+
+    return value == MISSING ? null : (String) value;
+  }
+
+  @Override
+  public String get(final CharSequence source,
+                    final int start,
+                    final int end) {
+    Object value = this.values.get(new KeyRange(source, start, end));
+
+    if (value == null) {
+      value = memoize(
+        source.subSequence(start, end).toString(),
+        this.context.get(source, start, end)
+      );
+    }
+
+    return value == MISSING ? null : (String) value;
+  }
+
+  @Override
+  public void unresolved() {
+    if (this.observer != null) {
+      this.observer.unresolved();
+    }
+  }
+
+  @Override
+  public void defaulted() {
+    if (this.observer != null) {
+      this.observer.defaulted();
+    }
+  }
+
+  /**
+   * Memoizes the value of the specified key, unless a concurrent lookup has
+   * already done so.
+   *
+   * @param key   the key
+   * @param value the value associated with the key, or {@code null} if it has
+   *              none
+   *
+   * @return the memoized value, or {@link #MISSING}
+   */
+  private Object memoize(final String key, final String value) {
+    final Object memoized = value == null ? MISSING : value;
+    final Object previous = this.values.putIfAbsent(key, memoized);
+    return previous == null ? memoized : previous;
+  }
+
+  /**
+   * A range of characters used to look up a memoized value without
+   * materializing its key. A range is equal to any string with the same
+   * characters, and its hash code is that of such a string, so it may be
+   * passed to {@link ConcurrentHashMap#get(Object)}, which compares the keys
+   * of the map for equality with it.
+   */
+  private static final class KeyRange {
+    /**
+     * The sequence containing the characters.
+     */
+    private final CharSequence source;
+
+    /**
+     * The index of the first character of the range.
+     */
+    private final int start;
+
+    /**
+     * The index after the last character of the range.
+     */
+    private final int end;
+
+    private KeyRange(final CharSequence source,
+                     final int start,
+                     final int end) {
+      this.source = source;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = 0;
+
+      for (int i = this.start; i < this.end; ++i) {
+        hash = 31 * hash + this.source.charAt(i);
+      }
+
+      return hash;
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+      if (!(object instanceof String)) {
+        return false;
+      }
+
+      final String key = (String) object;
+
+      if (key.length() != this.end - this.start) {
+        return false;
+      }
+
+      for (int i = 0; i < key.length(); ++i) {
+        if (key.charAt(i) != this.source.charAt(this.start + i)) {
+          return false;
+        }
+      }
+
+      return true;
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package sh.cody.string.interpolate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A fork/join task which interpolates a range of a batch of strings.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+final class BatchInterpolation extends RangeTask {
+  /**
+   * The serialization version of this class.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The interpolator used to interpolate each string.
+   */
+  private final StringInterpolator interpolator;
+
+  /**
+   * The context shared by every string in the batch.
+   */
+  private final Context context;
+
+  /**
+   * The strings of the batch.
+   */
+  private final String[] strings;
+
+  /**
+   * The interpolated strings of the batch, indexed as the strings are.
+   */
+  private final String[] results;
+
+  private BatchInterpolation(final StringInterpolator interpolator,
+                             final Context context,
+                             final String[] strings,
+                             final String[] results,
+                             final int start,
+                             final int end,
+                             final RangeTask next) {
+    super(start, end, next);
+    this.interpolator = interpolator;
+    this.context = context;
+    this.strings = strings;
+    this.results = results;
+  }
+
+  /**
+   * Interpolates every string in the specified list with values from the
+   * specified context using the specified pool.
+   *
+   * @param interpolator the interpolator used to interpolate each string
+   * @param strings      the strings to be interpolated
+   * @param context      the context from which interpolated values will be
+   *                     retrieved
+   * @param pool         the pool in which the strings are interpolated
+   *
+   * @return an unmodifiable list of the interpolated strings, in the order of
+   * the strings from which they were interpolated
+   */
+  static List<String> interpolateAll(final StringInterpolator interpolator,
+                                     final List<String> strings,
+                                     final Context context,
+                                     final ForkJoinPool pool) {
+    final String[] batch = strings.toArray(new String[0]);
+    final String[] results = new String[batch.length];
+
+    pool.invoke(new BatchInterpolation(
+      interpolator, new BatchContext(context), batch, results, 0,
+      batch.length, null
+    ));
+
+    return Collections.unmodifiableList(Arrays.asList(results));
+  }
+
+  @Override
+  RangeTask split(final int start, final int end, final RangeTask next) {
+    return new BatchInterpolation(
+      this.interpolator, this.context, this.strings, this.results, start, end,
+      next
+    );
+  }
+
+  @Override
+  void process(final int index) {
+    this.results[index] =
+      this.interpolator.interpolate(this.strings[index], this.context);
+  }
+}
@@ -0,0 +1,345 @@
+package sh.cody.string.interpolate;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link Context} which caches the values of another context whose lookups
+ * are costly, such as one which decrypts secrets or reads a file-backed
+ * store.
+ * <p>
+ * Each value is cached for a fixed time to live from the moment it was
+ * looked up, after which it is looked up again. Keys which the context does
+ * not contain are cached as well, for a separate time to live, so that an
+ * expression which cannot be matched does not cause a lookup on every
+ * interpolation. The least recently used entries are evicted once the cache
+ * is full.
+ * <p>
+ * Lookups of the same key which miss the cache concurrently cause a single
+ * lookup in the underlying context, whose result is shared by every waiting
+ * thread. A lookup which throws an exception is not cached; the exception is
+ * rethrown to every thread waiting for it. Caching contexts are safe for use
+ * by many threads concurrently, provided the underlying context is.
+ *
+ * @implNote The cache is divided into independently locked stripes, as is
+ * that of {@link CachingStringInterpolator}, so threads looking up keys in
+ * different stripes never contend with each other. Each entry holds a future
+ * completed by the one thread which looks its key up, outside of any lock.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+public final class CachingContext implements Context {
+  /**
+   * The context whose values are cached.
+   */
+  private final Context context;
+
+  /**
+   * The cache of entries, keyed by the keys they were looked up for.
+   */
+  private final ConcurrentLruCache<String, Entry> cache;
+
+  /**
+   * The time to live of a cached value in nanoseconds.
+   */
+  private final long ttlNanos;
+
+  /**
+   * The time to live of a cached absent value in nanoseconds, or zero if
+   * absent values are not cached.
+   */
+  private final long negativeTtlNanos;
+
+  /**
+   * The number of lookups which found an unexpired cached entry.
+   */
+  private final LongAdder hits = new LongAdder();
+
+  /**
+   * The number of lookups performed in the underlying context.
+   */
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Constructs a new {@link CachingContext} which caches absent values for as
+   * long as other values.
+   *
+   * @param context     the context whose values are cached
+   * @param maximumSize the maximum number of entries to be cached
+   * @param ttl         the time for which a value is cached
+   *
+   * @throws IllegalArgumentException when maximumSize or ttl is not positive
+   */
+  public CachingContext(final Context context,
+                        final int maximumSize,
+                        final Duration ttl) {
+    this(context, maximumSize, ttl, ttl);
+  }
+
+  /**
+   * Constructs a new {@link CachingContext}.
+   *
+   * @param context     the context whose values are cached
+   * @param maximumSize the maximum number of entries to be cached
+   * @param ttl         the time for which a value is cached
+   * @param negativeTtl the time for which the absence of a value is cached,
+   *                    or {@link Duration#ZERO} if absent values are not to
+   *                    be cached
+   *
+   * @throws IllegalArgumentException when maximumSize or ttl is not positive,
+   * or negativeTtl is negative
+   */
+  public CachingContext(final Context context,
+                        final int maximumSize,
+                        final Duration ttl,
+                        final Duration negativeTtl) {
+    if (ttl.isNegative() || ttl.isZero()) {
+      throw new IllegalArgumentException("ttl must be positive");
+    } else if (negativeTtl.isNegative()) {
+      throw new IllegalArgumentException("negativeTtl must not be negative");
+    }
+
+    this.context = Objects.requireNonNull(context);
+    this.cache = new ConcurrentLruCache<>(maximumSize);
+    this.ttlNanos = toNanos(ttl);
+    this.negativeTtlNanos = toNanos(negativeTtl);
+  }
+
+  @Override
+  public String get(final String key) {
+    while (true) {
+      final Entry entry = this.cache.get(key, ignored -> new Entry());
+
+      if (entry.claim()) {
+        return load(key, entry);
+      }
+
+      // a value awaited from a concurrent lookup is fresh, whatever its time
+      // to live
+      final boolean cached = entry.isDone();
+      final String value = entry.await();
+
+      if (!cached || !entry.isExpired(System.nanoTime())) {
+        this.hits.increment();
+        return value;
+      }
+
+      // the first thread to find the entry expired replaces it; the others
+      // find its replacement
+      this.cache.remove(key, entry);
+    }
+  }
+
+  /**
+   * Looks up the value of the specified key in the underlying context,
+   * completing the specified entry with it.
+   *
+   * @param key   the key
+   * @param entry the entry claimed by the current thread for the key
+   *
+   * @return the value to which the key is associated, or {@code null} if the
+   * context does not contain a value associated with the key
+   */
+  private String load(final String key, final Entry entry) {
+    this.misses.increment();
+    final String value;
+
+    try {
+      value = this.context.get(key);
+    } catch (final RuntimeException | Error exception) {
+      this.cache.remove(key, entry);
+      entry.fail(exception);
+      throw exception;
+    }
+
+    final long ttl = value == null ? this.negativeTtlNanos : this.ttlNanos;
+
+    if (ttl == 0) {
+      this.cache.remove(key, entry);
+    }
+
+    entry.complete(value, System.nanoTime(), ttl);
+    return value;
+  }
+
+  /**
+   * Removes the cached entry for the specified key, if any, so that its value
+   * is looked up again.
+   *
+   * @param key the key whose entry is to be removed
+   */
+  public void invalidate(final String key) {
+    this.cache.remove(key);
+  }
+
+  /**
+   * Removes every cached entry.
+   */
+  public void invalidateAll() {
+    this.cache.clear();
+  }
+
+  /**
+   * Returns the number of entries in the cache, including expired entries
+   * which have not yet been replaced or evicted.
+   *
+   * @return the number of entries in the cache
+   */
+  public int size() {
+    return this.cache.size();
+  }
+
+  /**
+   * Returns the number of lookups which found an unexpired cached entry,
+   * including those which waited for another thread's lookup of the same key.
+   *
+   * @return the number of lookups which found a cached entry
+   */
+  public long hitCount() {
+    return this.hits.sum();
+  }
+
+  /**
+   * Returns the number of lookups performed in the underlying context.
+   *
+   * @return the number of lookups performed in the underlying context
+   */
+  public long missCount() {
+    return this.misses.sum();
+  }
+
+  /**
+   * Returns the number of entries evicted from the cache.
+   *
+   * @return the number of entries evicted from the cache
+   */
+  public long evictionCount() {
+    return this.cache.evictionCount();
+  }
+
+  /**
+   * Converts the specified duration into nanoseconds, saturating durations
+   * too long to be represented.
+   *
+   * @param duration the duration
+   *
+   * @return the duration in nanoseconds
+   */
+  private static long toNanos(final Duration duration) {
+    try {
+      return duration.toNanos();
+    } catch (final ArithmeticException exception) {
+      return Long.MAX_VALUE;
+    }
+  }
+
+  /**
+   * A cached lookup of a single key, which is claimed and completed by the
+   * one thread performing the lookup and awaited by any others.
+   */
+  private static final class Entry {
+    /**
+     * The value of the key, completed once it has been looked up.
+     */
+    private final CompletableFuture<String> value = new CompletableFuture<>();
+
+    /**
+     * Whether a thread has claimed the lookup of the key.
+     */
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    /**
+     * The value of {@link System#nanoTime()} when the key was looked up,
+     * written before the value is completed.
+     */
+    private long loadedNanos;
+
+    /**
+     * The time for which the value is cached in nanoseconds, written before
+     * the value is completed.
+     */
+    private long ttlNanos;
+
+    /**
+     * Claims the lookup of the key for the current thread, if no thread has
+     * claimed it yet.
+     *
+     * @return whether the current thread claimed the lookup
+     */
+    boolean claim() {
+      // the entry of a cached value is only read, never written
+      return !this.claimed.get() && this.claimed.compareAndSet(false, true);
+    }
+
+    /**
+     * Returns whether this entry has been completed.
+     *
+     * @return whether this entry has been completed
+     */
+    boolean isDone() {
+      return this.value.isDone();
+    }
+
+    /**
+     * Completes this entry with the value of the key.
+     *
+     * @param value       the value of the key, or {@code null} if it has none
+     * @param loadedNanos the value of {@link System#nanoTime()} when the key
+     *                    was looked up
+     * @param ttlNanos    the time for which the value is cached
+     */
+    void complete(final String value,
+                  final long loadedNanos,
+                  final long ttlNanos) {
+      this.loadedNanos = loadedNanos;
+      this.ttlNanos = ttlNanos;
+      this.value.complete(value);
+    }
+
+    /**
+     * Completes this entry with the failure of the lookup of the key.
+     *
+     * @param exception the exception thrown by the lookup
+     */
+    void fail(final Throwable exception) {
+      this.value.completeExceptionally(exception);
+    }
+
+    /**
+     * Waits for this entry to be completed and returns the value of the key.
+     *
+     * @throws RuntimeException when the lookup of the key threw it
+     * @throws Error when the lookup of the key threw it
+     *
+     * @return the value of the key, or {@code null} if it has none
+     */
+    String await() {
+      try {
+        return this.value.join();
+      } catch (final CompletionException exception) {
+        final Throwable cause = exception.getCause();
+
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+
+        throw (RuntimeException) cause;
+      }
+    }
+
+    /**
+     * Returns whether the value of this completed entry has expired.
+     *
+     * @param nowNanos the current value of {@link System#nanoTime()}
+     *
+     * @return whether the value has expired
+     */
+    boolean isExpired(final long nowNanos) {
+      return nowNanos - this.loadedNanos >= this.ttlNanos;
+    }
+  }
+}
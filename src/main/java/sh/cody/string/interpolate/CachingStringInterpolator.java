@@ -0,0 +1,180 @@
+package sh.cody.string.interpolate;
+
+import java.util.function.Function;
+
+/**
+ * A {@link StringInterpolator} which caches the templates parsed by a
+ * {@link ShellStyleStringInterpolator}.
+ * <p>
+ * Strings passed to this object are used as keys into a size-bounded cache of
+ * {@link Template}s. A string which has been interpolated recently is rendered
+ * from its cached template without being parsed again; the least recently
+ * used templates are evicted once the cache is full. The cache is safe for use
+ * by many threads concurrently.
+ *
+ * @implNote The cache is divided into independently locked stripes, and
+ * templates are parsed outside of any lock. A cache miss costs a single
+ * parse, which is comparable to interpolating the string directly, followed
+ * by a render of the parsed template.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+public class CachingStringInterpolator implements StringInterpolator {
+  /**
+   * The cache of parsed templates, keyed by the strings they were parsed from.
+   */
+  private final ConcurrentLruCache<String, Template> cache;
+
+  /**
+   * The function used to parse uncached strings.
+   */
+  private final Function<String, Template> compiler;
+
+  /**
+   * Constructs a new {@link CachingStringInterpolator}.
+   *
+   * @param interpolator the interpolator used to parse uncached strings
+   * @param maximumSize  the maximum number of templates to be cached
+   *
+   * @throws IllegalArgumentException when maximumSize is not positive
+   */
+  public CachingStringInterpolator(
+    final ShellStyleStringInterpolator interpolator,
+    final int maximumSize
+  ) {
+    this.cache = new ConcurrentLruCache<>(maximumSize);
+    this.compiler = interpolator::compile;
+  }
+
+  /**
+   * Constructs a new {@link CachingStringInterpolator} whose templates are
+   * compiled into generated code once they have been rendered often enough.
+   *
+   * @param interpolator     the interpolator used to parse uncached strings
+   * @param maximumSize      the maximum number of templates to be cached
+   * @param templateCompiler the compiler used to optimize cached templates
+   *
+   * @throws IllegalArgumentException when maximumSize is not positive
+   *
+   * @see TemplateCompiler#optimize(Template)
+   */
+  public CachingStringInterpolator(
+    final ShellStyleStringInterpolator interpolator,
+    final int maximumSize,
+    final TemplateCompiler templateCompiler
+  ) {
+    this.cache = new ConcurrentLruCache<>(maximumSize);
+    this.compiler =
+      string -> templateCompiler.optimize(interpolator.compile(string));
+  }
+
+  /**
+   * Interpolates values from the specified context into the specified string,
+   * parsing the string only if its template is not cached.
+   *
+   * @param string  the string to be interpolated
+   * @param context the context from which interpolated values will be retrieved
+   *
+   * @return the interpolated string
+   */
+  @Override
+  public String interpolate(final String string, final Context context) {
+    return compile(string).render(context);
+  }
+
+  /**
+   * Interpolates values from the specified context into the specified string,
+   * fetching the values of every variable referred to by the string up front
+   * and parsing the string only if its template is not cached.
+   *
+   * @param string  the string to be interpolated
+   * @param context the context from which interpolated values will be retrieved
+   *
+   * @return the interpolated string
+   *
+   * @see Template#renderPrefetched(Context)
+   */
+  public String interpolatePrefetched(final String string,
+                                      final Context context) {
+    return compile(string).renderPrefetched(context);
+  }
+
+  /**
+   * Interpolates values from the specified context into the specified
+   * template, appending the result to the specified destination and parsing
+   * the template only if it is not cached.
+   *
+   * @param template    the template to be interpolated
+   * @param context     the context from which interpolated values will be
+   *                    retrieved
+   * @param destination the destination to which the interpolated template is
+   *                    appended
+   * @param <A>         the type of the destination
+   *
+   * @throws java.io.UncheckedIOException when the destination throws an
+   * {@link java.io.IOException}
+   *
+   * @return the destination
+   */
+  @Override
+  public <A extends Appendable> A interpolateTo(final CharSequence template,
+                                                final Context context,
+                                                final A destination) {
+    return compile(template.toString()).renderTo(context, destination);
+  }
+
+  /**
+   * Returns the cached template for the specified string, parsing and caching
+   * it if it is not cached.
+   *
+   * @param string the string to be parsed
+   *
+   * @return the template for the string
+   */
+  public Template compile(final String string) {
+    return this.cache.get(string, this.compiler);
+  }
+
+  /**
+   * Removes every template from the cache.
+   */
+  public void clear() {
+    this.cache.clear();
+  }
+
+  /**
+   * Returns the number of templates in the cache.
+   *
+   * @return the number of templates in the cache
+   */
+  public int size() {
+    return this.cache.size();
+  }
+
+  /**
+   * Returns the number of interpolations which found a cached template.
+   *
+   * @return the number of interpolations which found a cached template
+   */
+  public long hitCount() {
+    return this.cache.hitCount();
+  }
+
+  /**
+   * Returns the number of interpolations which did not find a cached template.
+   *
+   * @return the number of interpolations which did not find a cached template
+   */
+  public long missCount() {
+    return this.cache.missCount();
+  }
+
+  /**
+   * Returns the number of templates evicted from the cache.
+   *
+   * @return the number of templates evicted from the cache
+   */
+  public long evictionCount() {
+    return this.cache.evictionCount();
+  }
+}
@@ -0,0 +1,239 @@
+package sh.cody.string.interpolate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A thread-safe, size-bounded cache which evicts its least recently used
+ * entries.
+ * <p>
+ * The cache is divided into independently locked stripes, each of which is an
+ * access-ordered {@link LinkedHashMap} holding a share of the cache's maximum
+ * size. Threads accessing keys in different stripes never contend with each
+ * other, and values are loaded outside of any lock.
+ *
+ * @param <K> the type of the keys of this cache
+ * @param <V> the type of the values of this cache
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+final class ConcurrentLruCache<K, V> {
+  /**
+   * The stripes of this cache; the length is always a power of two.
+   */
+  private final Stripe<K, V>[] stripes;
+
+  /**
+   * The number of lookups which found a cached value.
+   */
+  private final LongAdder hits = new LongAdder();
+
+  /**
+   * The number of lookups which did not find a cached value.
+   */
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * The number of entries evicted to keep the cache within its bounds.
+   */
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Constructs a new {@link ConcurrentLruCache}.
+   *
+   * @param maximumSize the maximum number of entries held by the cache
+   *
+   * @throws IllegalArgumentException when maximumSize is not positive
+   */
+  @SuppressWarnings("unchecked")
+  ConcurrentLruCache(final int maximumSize) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("maximumSize must be positive");
+    }
+
+    final int concurrency = 4 * Runtime.getRuntime().availableProcessors();
+    int stripeCount = 1;
+
+    while (stripeCount < concurrency && stripeCount * 2 <= maximumSize) {
+      stripeCount *= 2;
+    }
+
+    this.stripes = (Stripe<K, V>[]) new Stripe<?, ?>[stripeCount];
+
+    for (int i = 0; i < stripeCount; ++i) {
+      final int capacity = maximumSize / stripeCount +
+                           (i < maximumSize % stripeCount ? 1 : 0);
+      this.stripes[i] = new Stripe<>(capacity, this.evictions);
+    }
+  }
+
+  /**
+   * Returns the value associated with the specified key, loading and caching
+   * it with the specified loader if it is not cached.
+   * <p>
+   * Concurrent misses on the same key may each invoke the loader; only one of
+   * the loaded values is retained.
+   *
+   * @param key    the key whose associated value is to be returned
+   * @param loader the function used to load an uncached value
+   *
+   * @return the value associated with the key
+   */
+  V get(final K key, final Function<? super K, ? extends V> loader) {
+    final Stripe<K, V> stripe = stripeFor(key);
+    V value;
+
+    synchronized (stripe) {
+      value = stripe.get(key);
+    }
+
+    if (value != null) {
+      this.hits.increment();
+      return value;
+    }
+
+    this.misses.increment();
+    final V loaded = loader.apply(key);
+
+    synchronized (stripe) {
+      value = stripe.putIfAbsent(key, loaded);
+    }
+
+    return value == null ? loaded : value;
+  }
+
+  /**
+   * Removes the entry for the specified key, if it is cached.
+   *
+   * @param key the key whose entry is to be removed
+   */
+  void remove(final K key) {
+    final Stripe<K, V> stripe = stripeFor(key);
+
+    synchronized (stripe) {
+      stripe.remove(key);
+    }
+  }
+
+  /**
+   * Removes the entry for the specified key only if the key is cached with
+   * the specified value.
+   *
+   * @param key   the key whose entry is to be removed
+   * @param value the value the key is expected to be associated with
+   *
+   * @return whether the entry was removed
+   */
+  boolean remove(final K key, final V value) {
+    final Stripe<K, V> stripe = stripeFor(key);
+
+    synchronized (stripe) {
+      return stripe.remove(key, value);
+    }
+  }
+
+  /**
+   * Removes every entry from this cache.
+   */
+  void clear() {
+    for (final Stripe<K, V> stripe : this.stripes) {
+      synchronized (stripe) {
+        stripe.clear();
+      }
+    }
+  }
+
+  /**
+   * Returns the number of entries in this cache.
+   *
+   * @return the number of entries in this cache
+   */
+  int size() {
+    int size = 0;
+
+    for (final Stripe<K, V> stripe : this.stripes) {
+      synchronized (stripe) {
+        size += stripe.size();
+      }
+    }
+
+    return size;
+  }
+
+  /**
+   * Returns the number of lookups which found a cached value.
+   *
+   * @return the number of lookups which found a cached value
+   */
+  long hitCount() {
+    return this.hits.sum();
+  }
+
+  /**
+   * Returns the number of lookups which did not find a cached value.
+   *
+   * @return the number of lookups which did not find a cached value
+   */
+  long missCount() {
+    return this.misses.sum();
+  }
+
+  /**
+   * Returns the number of entries evicted from this cache.
+   *
+   * @return the number of entries evicted from this cache
+   */
+  long evictionCount() {
+    return this.evictions.sum();
+  }
+
+  /**
+   * Returns the stripe responsible for the specified key.
+   *
+   * @param key the key
+   *
+   * @return the stripe responsible for the key
+   */
+  private Stripe<K, V> stripeFor(final K key) {
+    final int hash = key.hashCode();
+    return this.stripes[(hash ^ hash >>> 16) & this.stripes.length - 1];
+  }
+
+  /**
+   * A bounded, access-ordered map holding one stripe of the cache.
+   */
+  private static final class Stripe<K, V> extends LinkedHashMap<K, V> {
+    /**
+     * The serialization version of this class.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The maximum number of entries held by this stripe.
+     */
+    private final int capacity;
+
+    /**
+     * The counter incremented whenever this stripe evicts an entry.
+     */
+    private final LongAdder evictions;
+
+    Stripe(final int capacity, final LongAdder evictions) {
+      super(16, 0.75f, true);
+      this.capacity = capacity;
+      this.evictions = evictions;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+      if (size() > this.capacity) {
+        this.evictions.increment();
+        return true;
+      }
+
+      return false;
+    }
+  }
+}
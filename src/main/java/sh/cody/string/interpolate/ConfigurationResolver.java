@@ -0,0 +1,391 @@
+package sh.cody.string.interpolate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Resolves a configuration whose values refer to one another, such as the
+ * entries of a {@link Properties} file, in a single pass.
+ * <p>
+ * Every value is parsed once by a {@link ShellStyleStringInterpolator} into a
+ * {@link Template}. A value referring to another key of the configuration
+ * depends on that key, and is rendered only once the value of that key has
+ * been resolved; a value referring to a key outside the configuration is
+ * rendered with the value of that key in a fallback context, if any. Each
+ * value is therefore parsed and rendered exactly once, rather than
+ * interpolated repeatedly until no value changes. Resolved values are not
+ * interpolated again, so text introduced by a substituted value is retained
+ * as it is.
+ * <p>
+ * A configuration in which values refer to one another cyclically cannot be
+ * resolved; the keys forming one such cycle are reported in order.
+ * Resolvers are immutable and may be used by many threads concurrently.
+ *
+ * @implNote The keys are sorted topologically into levels, each holding the
+ * keys whose dependencies have all been resolved by the preceding levels, so
+ * the cost of resolution is linear in the number of keys and references. The
+ * values of each level are rendered in parallel by a {@link RangeTask}, whose
+ * granularity adapts to the load of the pool.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+public final class ConfigurationResolver {
+  /**
+   * An empty array of indexes.
+   */
+  private static final int[] NO_INDEXES = new int[0];
+
+  /**
+   * The interpolator used to parse values.
+   */
+  private final ShellStyleStringInterpolator interpolator;
+
+  /**
+   * The pool in which values are rendered.
+   */
+  private final ForkJoinPool pool;
+
+  /**
+   * Constructs a new {@link ConfigurationResolver} rendering values in the
+   * common fork/join pool.
+   *
+   * @param interpolator the interpolator used to parse values
+   *
+   * @throws IllegalArgumentException when the interpolator recursively
+   * expands values
+   */
+  public ConfigurationResolver(
+    final ShellStyleStringInterpolator interpolator
+  ) {
+    this(interpolator, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Constructs a new {@link ConfigurationResolver}.
+   *
+   * @param interpolator the interpolator used to parse values
+   * @param pool         the pool in which values are rendered
+   *
+   * @throws IllegalArgumentException when the interpolator recursively
+   * expands values; the resolver itself takes the place of recursive
+   * expansion
+   */
+  public ConfigurationResolver(
+    final ShellStyleStringInterpolator interpolator,
+    final ForkJoinPool pool
+  ) {
+    if (interpolator.getMaxRecursionDepth() > 0) {
+      throw new IllegalArgumentException(
+        "interpolator must not recursively expand values"
+      );
+    }
+
+    this.interpolator = interpolator;
+    this.pool = Objects.requireNonNull(pool);
+  }
+
+  /**
+   * Resolves the specified configuration.
+   *
+   * @param configuration the configuration, whose values may refer to its
+   *                      keys
+   *
+   * @throws IllegalArgumentException when values of the configuration refer
+   * to one another cyclically
+   *
+   * @return an immutable context holding the resolved configuration
+   */
+  public Context resolve(final Map<String, String> configuration) {
+    return resolve(configuration, key -> null);
+  }
+
+  /**
+   * Resolves the specified configuration, retrieving the values of keys
+   * outside the configuration from the specified context.
+   *
+   * @param configuration the configuration, whose values may refer to its
+   *                      keys
+   * @param fallback      the context from which the values of keys outside
+   *                      the configuration are retrieved; it must be safe for
+   *                      use by many threads
+   *
+   * @throws IllegalArgumentException when values of the configuration refer
+   * to one another cyclically
+   *
+   * @return an immutable context holding the resolved configuration
+   */
+  public Context resolve(final Map<String, String> configuration,
+                         final Context fallback) {
+    Objects.requireNonNull(fallback);
+
+    final int size = configuration.size();
+    final String[] keys = new String[size];
+    final Template[] templates = new Template[size];
+    final Map<String, Integer> indexes = new HashMap<>(size * 2);
+    int count = 0;
+
+    for (final Map.Entry<String, String> entry : configuration.entrySet()) {
+      keys[count] = entry.getKey();
+      templates[count] = this.interpolator.compile(entry.getValue());
+      indexes.put(entry.getKey(), count++);
+    }
+
+    // dependencies[i] holds the keys on which the value of key i depends
+    final int[][] dependencies = new int[size][];
+    final int[] dependentCounts = new int[size];
+    final int[] pending = new int[size];
+
+    for (int i = 0; i < size; ++i) {
+      dependencies[i] = dependencies(templates[i], indexes);
+      pending[i] = dependencies[i].length;
+
+      for (final int dependency : dependencies[i]) {
+        ++dependentCounts[dependency];
+      }
+    }
+
+    // dependents[i] holds the keys whose values depend on key i
+    final int[][] dependents = new int[size][];
+
+    for (int i = 0; i < size; ++i) {
+      dependents[i] =
+        dependentCounts[i] == 0 ? NO_INDEXES : new int[dependentCounts[i]];
+      dependentCounts[i] = 0;
+    }
+
+    for (int i = 0; i < size; ++i) {
+      for (final int dependency : dependencies[i]) {
+        dependents[dependency][dependentCounts[dependency]++] = i;
+      }
+    }
+
+    final String[] values = new String[size];
+    final Context context = key -> {
+      final Integer index = indexes.get(key);
+      return index == null ? fallback.get(key) : values[index];
+    };
+
+    // the keys in topological order; each level is a range of this array
+    final int[] order = new int[size];
+    int levelStart = 0;
+    int levelEnd = 0;
+
+    for (int i = 0; i < size; ++i) {
+      if (pending[i] == 0) {
+        order[levelEnd++] = i;
+      }
+    }
+
+    while (levelStart < levelEnd) {
+      this.pool.invoke(new LevelResolution(
+        templates, values, context, order, levelStart, levelEnd, null
+      ));
+
+      int nextLevelEnd = levelEnd;
+
+      for (int i = levelStart; i < levelEnd; ++i) {
+        for (final int dependent : dependents[order[i]]) {
+          if (--pending[dependent] == 0) {
+            order[nextLevelEnd++] = dependent;
+          }
+        }
+      }
+
+      levelStart = levelEnd;
+      levelEnd = nextLevelEnd;
+    }
+
+    if (levelEnd < size) {
+      throw new IllegalArgumentException(
+        "Cyclic reference between configuration keys: " +
+        describeCycle(keys, dependencies, pending)
+      );
+    }
+
+    final Map<String, String> resolution = new LinkedHashMap<>(size * 2);
+
+    for (int i = 0; i < size; ++i) {
+      resolution.put(keys[i], values[i]);
+    }
+
+    return Context.of(resolution);
+  }
+
+  /**
+   * Resolves the specified properties, including their defaults.
+   *
+   * @param properties the properties, whose values may refer to their keys
+   *
+   * @throws IllegalArgumentException when values of the properties refer to
+   * one another cyclically
+   *
+   * @return an immutable context holding the resolved properties
+   */
+  public Context resolve(final Properties properties) {
+    return resolve(properties, key -> null);
+  }
+
+  /**
+   * Resolves the specified properties, including their defaults, retrieving
+   * the values of keys outside the properties from the specified context.
+   *
+   * @param properties the properties, whose values may refer to their keys
+   * @param fallback   the context from which the values of keys outside the
+   *                   properties are retrieved; it must be safe for use by
+   *                   many threads
+   *
+   * @throws IllegalArgumentException when values of the properties refer to
+   * one another cyclically
+   *
+   * @return an immutable context holding the resolved properties
+   */
+  public Context resolve(final Properties properties, final Context fallback) {
+    final Map<String, String> configuration = new HashMap<>();
+
+    for (final String key : properties.stringPropertyNames()) {
+      configuration.put(key, properties.getProperty(key));
+    }
+
+    return resolve(configuration, fallback);
+  }
+
+  /**
+   * Returns the indexes of the configuration keys referred to by the
+   * specified template.
+   *
+   * @param template the template
+   * @param indexes  the indexes of the configuration keys
+   *
+   * @return the indexes of the keys referred to, each at most once
+   */
+  private static int[] dependencies(final Template template,
+                                    final Map<String, Integer> indexes) {
+    if (template.getKeys().isEmpty()) {
+      return NO_INDEXES;
+    }
+
+    final int[] dependencies = new int[template.getKeys().size()];
+    int count = 0;
+
+    for (final String key : template.getKeys()) {
+      final Integer index = indexes.get(key);
+
+      if (index != null) {
+        dependencies[count++] = index;
+      }
+    }
+
+    return count == dependencies.length ? dependencies :
+      Arrays.copyOf(dependencies, count);
+  }
+
+  /**
+   * Describes a cycle among the keys which could not be resolved.
+   * <p>
+   * Every unresolved key depends on at least one other unresolved key, so
+   * following such dependencies from any unresolved key must eventually
+   * revisit a key, closing a cycle.
+   *
+   * @param keys         the configuration keys
+   * @param dependencies the indexes of the keys on which each key depends
+   * @param pending      the number of unresolved dependencies of each key
+   *
+   * @return the keys of the cycle, in order, beginning and ending with the
+   * same key
+   */
+  private static String describeCycle(final String[] keys,
+                                      final int[][] dependencies,
+                                      final int[] pending) {
+    final Map<Integer, Integer> positions = new HashMap<>();
+    final List<Integer> path = new ArrayList<>();
+    int current = 0;
+
+    while (pending[current] == 0) {
+      ++current;
+    }
+
+    while (!positions.containsKey(current)) {
+      positions.put(current, path.size());
+      path.add(current);
+
+      for (final int dependency : dependencies[current]) {
+        if (pending[dependency] != 0) {
+          current = dependency;
+          break;
+        }
+      }
+    }
+
+    final StringBuilder cycle = new StringBuilder();
+
+    for (final int index : path.subList(positions.get(current), path.size())) {
+      cycle.append(keys[index]).append(" -> ");
+    }
+
+    return cycle.append(keys[current]).toString();
+  }
+
+  /**
+   * A fork/join task which renders the values of a range of a level of keys.
+   */
+  private static final class LevelResolution extends RangeTask {
+    /**
+     * The serialization version of this class.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The parsed values of every key.
+     */
+    private final Template[] templates;
+
+    /**
+     * The resolved values of every key, indexed as the templates are.
+     */
+    private final String[] values;
+
+    /**
+     * The context in which the values are rendered.
+     */
+    private final Context context;
+
+    /**
+     * The indexes of the keys in topological order.
+     */
+    private final int[] order;
+
+    private LevelResolution(final Template[] templates,
+                            final String[] values,
+                            final Context context,
+                            final int[] order,
+                            final int start,
+                            final int end,
+                            final RangeTask next) {
+      super(start, end, next);
+      this.templates = templates;
+      this.values = values;
+      this.context = context;
+      this.order = order;
+    }
+
+    @Override
+    RangeTask split(final int start, final int end, final RangeTask next) {
+      return new LevelResolution(
+        this.templates, this.values, this.context, this.order, start, end, next
+      );
+    }
+
+    @Override
+    void process(final int index) {
+      final int key = this.order[index];
+      this.values[key] = this.templates[key].render(this.context);
+    }
+  }
+}
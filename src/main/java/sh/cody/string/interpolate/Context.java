@@ -1,5 +1,9 @@
 package sh.cody.string.interpolate;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * An object that maps string keys to string values.
  *
@@ -15,6 +19,74 @@ public interface Context {
    */
   String get(String key);
 
+  /**
+   * Returns the value to which the key composed of the specified range of
+   * characters is associated.
+   *
+   * @implSpec The default implementation materializes the key as a
+   * {@link String} and invokes {@link #get(String)}. Implementations able to
+   * look up a key without materializing it should override this method.
+   *
+   * @param source the source of the key's characters
+   * @param start  the index of the first character of the key
+   * @param end    the index after the last character of the key
+   *
+   * @throws IndexOutOfBoundsException when start or end is out of the source's
+   * bounds, or start is greater than end
+   *
+   * @return the value to which the key is associated, or {@code null} if this
+   * context does not contain a value associated with the key
+   */
+  default String get(final CharSequence source,
+                     final int start,
+                     final int end) {
+    return get(source.subSequence(start, end).toString());
+  }
+
+  /**
+   * Returns the values to which the specified keys are associated.
+   * <p>
+   * Contexts backed by a store for which each lookup is costly should
+   * override this method to fetch every value in a single operation.
+   *
+   * @implSpec The default implementation invokes {@link #get(String)} once
+   * for each key.
+   *
+   * @param keys the keys whose associated values are to be returned
+   *
+   * @return a map from each key associated with a value in this context to its
+   * value; keys with no associated value are absent from the map
+   */
+  default Map<String, String> getAll(final Set<String> keys) {
+    final Map<String, String> values = new HashMap<>();
+
+    for (final String key : keys) {
+      final String value = get(key);
+
+      if (value != null) {
+        values.put(key, value);
+      }
+    }
+
+    return values;
+  }
+
+  /**
+   * Constructs a {@link Context} for the entries of the specified map.
+   *
+   * @implNote the returned context holds an immutable copy of the map's
+   * entries in an open-addressed hash table, so later changes to the map are
+   * not reflected in the context; keys looked up by a range of characters are
+   * hashed and compared in place without being materialized
+   *
+   * @param map the map whose entries are to be contained in the context
+   *
+   * @return a context for the entries of the map
+   */
+  static Context of(final Map<String, String> map) {
+    return new MapContext(map);
+  }
+
   /**
    * Constructs a {@link Context} for the system environment variables.
    *
@@ -42,20 +114,57 @@ public interface Context {
    * @implNote the returned context accesses system properties by default;
    * however, environment variables may be accessed by prefixing the key with
    * {@code env.}; likewise, system properties may be accessed explicitly by
-   * prefixing the key with {@code prop.}
+   * prefixing the key with {@code prop.}; prefixes are matched without regard
+   * to case
    *
    * @return a context for the system environment variables and system
    * properties
    */
   static Context combined() {
-    return key -> {
-      if (key.toLowerCase().startsWith("env.")) {
-        return System.getenv(key.substring(4));
-      } else if (key.toLowerCase().startsWith("prop.")) {
-        return System.getProperty(key.substring(5));
-      } else {
-        return System.getProperty(key);
-      }
-    };
+    return layered()
+      .namespace("env.", System::getenv)
+      .namespace("prop.", System::getProperty)
+      .layer(System::getProperty)
+      .build();
+  }
+
+  /**
+   * Constructs a builder of a {@link LayeredContext}, which routes each key
+   * either to the one layer owning the namespace identified by the key's
+   * prefix, or through its unprefixed layers in order.
+   * <p>
+   * For example, request overrides, tenant configuration, environment
+   * variables and system properties might be layered as follows:
+   * <pre>{@code
+   * Context context = Context.layered()
+   *   .namespace("env.", System::getenv)
+   *   .namespace("prop.", System::getProperty)
+   *   .layer(requestOverrides)
+   *   .layer(tenantConfiguration)
+   *   .layer(System::getProperty)
+   *   .layer(Context.of(defaults))
+   *   .build();
+   * }</pre>
+   *
+   * @return a new builder of a layered context
+   */
+  static LayeredContext.Builder layered() {
+    return new LayeredContext.Builder();
+  }
+
+  /**
+   * Constructs a {@link SnapshotContext} for a snapshot of the system
+   * environment variables and system properties.
+   *
+   * @implNote the returned context resolves keys in the same manner as
+   * {@link #combined()}, but captures every value once so that lookups are
+   * served from immutable tables without locking or allocating; the values
+   * may be captured again using {@link SnapshotContext#refresh()}
+   *
+   * @return a context for a snapshot of the system environment variables and
+   * system properties
+   */
+  static SnapshotContext snapshot() {
+    return new SnapshotContext();
   }
 }
@@ -1,5 +1,8 @@
 package sh.cody.string.interpolate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 /**
  * An object that acts as a {@link StringInterpolator} with a fixed
  * {@link Context}.
@@ -8,4 +11,32 @@ package sh.cody.string.interpolate;
  */
 public interface ContextualizedStringInterpolator {
   String interpolate(String string);
+
+  /**
+   * Interpolates the specified template with values from this object's
+   * context, appending the result to the specified destination.
+   *
+   * @implSpec The default implementation appends the string returned by
+   * {@link #interpolate(String)} to the destination.
+   *
+   * @param template    the template to be interpolated
+   * @param destination the destination to which the interpolated template is
+   *                    appended
+   * @param <A>         the type of the destination
+   *
+   * @throws UncheckedIOException when the destination throws an
+   * {@link IOException}
+   *
+   * @return the destination
+   */
+  default <A extends Appendable> A interpolateTo(final CharSequence template,
+                                                 final A destination) {
+    try {
+      destination.append(this.interpolate(template.toString()));
+    } catch (final IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+
+    return destination;
+  }
 }
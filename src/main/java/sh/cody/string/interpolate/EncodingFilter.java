@@ -0,0 +1,103 @@
+package sh.cody.string.interpolate;
+
+import sh.cody.string.hex.FastererHexStringConverter;
+
+import java.io.IOException;
+
+/**
+ * The built-in {@link ValueFilter}s, which write the bytes of a value's UTF-8
+ * encoding as hexadecimal digits.
+ * <p>
+ * Values are encoded one character at a time, so no intermediate byte array
+ * or string is allocated. An unpaired surrogate is encoded as {@code ?}.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+final class EncodingFilter implements ValueFilter {
+  /**
+   * A filter writing every byte as two lowercase hexadecimal digits.
+   */
+  static final EncodingFilter HEX = new EncodingFilter(false);
+
+  /**
+   * A filter percent-encoding every byte except the unreserved characters.
+   */
+  static final EncodingFilter URL = new EncodingFilter(true);
+
+  /**
+   * Whether bytes are percent-encoded, leaving unreserved characters as they
+   * are, rather than written as bare lowercase digits.
+   */
+  private final boolean percentEncoding;
+
+  private EncodingFilter(final boolean percentEncoding) {
+    this.percentEncoding = percentEncoding;
+  }
+
+  @Override
+  public void filter(final CharSequence value, final Appendable destination)
+    throws IOException {
+    final int length = value.length();
+
+    for (int i = 0; i < length; ++i) {
+      final char ch = value.charAt(i);
+
+      if (ch < 0x80) {
+        if (this.percentEncoding && isUnreserved(ch)) {
+          destination.append(ch);
+        } else {
+          octet(ch, destination);
+        }
+      } else if (ch < 0x800) {
+        octet(0xC0 | ch >> 6, destination);
+        octet(0x80 | ch & 0x3F, destination);
+      } else if (!Character.isSurrogate(ch)) {
+        octet(0xE0 | ch >> 12, destination);
+        octet(0x80 | ch >> 6 & 0x3F, destination);
+        octet(0x80 | ch & 0x3F, destination);
+      } else if (Character.isHighSurrogate(ch) && i + 1 < length &&
+                 Character.isLowSurrogate(value.charAt(i + 1))) {
+        final int codePoint = Character.toCodePoint(ch, value.charAt(++i));
+        octet(0xF0 | codePoint >> 18, destination);
+        octet(0x80 | codePoint >> 12 & 0x3F, destination);
+        octet(0x80 | codePoint >> 6 & 0x3F, destination);
+        octet(0x80 | codePoint & 0x3F, destination);
+      } else {
+        octet('?', destination);
+      }
+    }
+  }
+
+  /**
+   * Writes a single byte of an encoded value.
+   *
+   * @param octet       the byte
+   * @param destination the destination to which the byte is written
+   *
+   * @throws IOException when the destination throws an {@link IOException}
+   */
+  private void octet(final int octet, final Appendable destination)
+    throws IOException {
+    if (this.percentEncoding) {
+      destination.append('%');
+    }
+
+    FastererHexStringConverter.appendOctet(
+      octet, this.percentEncoding, destination
+    );
+  }
+
+  /**
+   * Returns whether the specified character is left as it is by
+   * percent-encoding.
+   *
+   * @param ch the character
+   *
+   * @return whether the character is unreserved
+   */
+  private static boolean isUnreserved(final char ch) {
+    return ch >= 'a' && ch <= 'z' || ch >= 'A' && ch <= 'Z' ||
+           ch >= '0' && ch <= '9' || ch == '-' || ch == '.' || ch == '_' ||
+           ch == '~';
+  }
+}
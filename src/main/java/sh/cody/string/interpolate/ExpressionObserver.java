@@ -0,0 +1,39 @@
+package sh.cody.string.interpolate;
+
+/**
+ * An object notified of the outcome of variable expressions which could not
+ * be matched.
+ * <p>
+ * A {@link Context} passed to a {@link ShellStyleStringInterpolator}, or to a
+ * {@link Template} it compiled, which also implements this interface is
+ * notified as each unmatched expression is interpolated.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+interface ExpressionObserver {
+  /**
+   * Notifies this object that an expression could not be matched and was
+   * reproduced without being interpolated.
+   */
+  void unresolved();
+
+  /**
+   * Notifies this object that an expression could not be matched and its
+   * default value was interpolated instead.
+   */
+  void defaulted();
+
+  /**
+   * Returns the specified context as an {@link ExpressionObserver}, if it is
+   * one.
+   *
+   * @param context the context
+   *
+   * @return the context, or {@code null} if it is not an {@link
+   * ExpressionObserver}
+   */
+  static ExpressionObserver of(final Context context) {
+    return context instanceof ExpressionObserver ?
+           (ExpressionObserver) context : null;
+  }
+}
@@ -0,0 +1,119 @@
+package sh.cody.string.interpolate;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link Utf8Output} which writes to a file, transferring long runs of bytes
+ * copied from a memory-mapped source file with {@link FileChannel#transferTo}
+ * so that the operating system may copy them without passing them through
+ * the heap.
+ * <p>
+ * Shorter runs and rendered values are buffered and written in bulk. An
+ * {@link IOException} thrown by either file is rethrown as an
+ * {@link UncheckedIOException}, as is an {@link EOFException} when the source
+ * is truncated before a run could be transferred.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+final class FileTransferOutput extends Utf8Output {
+  /**
+   * The length of the shortest run of bytes transferred rather than buffered.
+   */
+  private static final int TRANSFER_THRESHOLD = 8192;
+
+  /**
+   * The number of buffered bytes at which the buffer is written to the target.
+   */
+  private static final int FLUSH_THRESHOLD = 65536;
+
+  /**
+   * The file from which runs of bytes are transferred; the mapped buffers
+   * passed to this object must be mapped from {@link #sourcePosition}.
+   */
+  private final FileChannel source;
+
+  /**
+   * The file to which the output is written.
+   */
+  private final FileChannel target;
+
+  /**
+   * The position in the source file of the first byte of the mapped buffers
+   * currently passed to this object.
+   */
+  private long sourcePosition;
+
+  /**
+   * Constructs a new {@link FileTransferOutput}.
+   *
+   * @param source the file from which runs of bytes are transferred
+   * @param target the file to which the output is written
+   */
+  FileTransferOutput(final FileChannel source, final FileChannel target) {
+    super(FLUSH_THRESHOLD + TRANSFER_THRESHOLD);
+    this.source = source;
+    this.target = target;
+  }
+
+  /**
+   * Sets the position in the source file of the first byte of the mapped
+   * buffers subsequently passed to this object.
+   *
+   * @param sourcePosition the position in the source file
+   */
+  void setSourcePosition(final long sourcePosition) {
+    this.sourcePosition = sourcePosition;
+  }
+
+  @Override
+  void appendRaw(final ByteBuffer buffer, final int offset, final int length) {
+    if (length < TRANSFER_THRESHOLD) {
+      super.appendRaw(buffer, offset, length);
+
+      if (size() >= FLUSH_THRESHOLD) {
+        flush();
+      }
+
+      return;
+    }
+
+    flush();
+
+    try {
+      long position = this.sourcePosition + offset;
+      long remaining = length;
+
+      while (remaining > 0) {
+        final long transferred =
+          this.source.transferTo(position, remaining, this.target);
+
+        if (transferred == 0 && position >= this.source.size()) {
+          throw new EOFException(
+            "source truncated at " + this.source.size() + " bytes while " +
+            remaining + " bytes remained to be transferred"
+          );
+        }
+
+        position += transferred;
+        remaining -= transferred;
+      }
+    } catch (final IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+  }
+
+  /**
+   * Writes the buffered bytes to the target.
+   */
+  void flush() {
+    try {
+      drainTo(this.target);
+    } catch (final IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+  }
+}
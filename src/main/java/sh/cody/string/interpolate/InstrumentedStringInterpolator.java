@@ -0,0 +1,388 @@
+package sh.cody.string.interpolate;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * A {@link StringInterpolator} which records metrics describing the
+ * interpolations performed by another interpolator.
+ * <p>
+ * The context passed to each interpolation is wrapped so that its lookups and
+ * misses are counted. When the wrapped interpolator is a {@link
+ * ShellStyleStringInterpolator}, or renders templates compiled by one,
+ * unmatched expressions are further classified as unresolved or as having
+ * fallen back to their default values. The metrics are exposed through the
+ * {@link InstrumentedStringInterpolatorMBean} interface and may be published
+ * to the platform MBean server with {@link #register(ObjectName)}.
+ *
+ * @implNote Counts are accumulated in local variables during an
+ * interpolation and added to {@link LongAdder}s once it completes, so threads
+ * recording concurrently do not contend. Reading the clock costs more than
+ * the rest of the recording combined, so latency is measured for a random
+ * sample of interpolations, one in every {@code latencySamplingInterval} on
+ * average.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+public class InstrumentedStringInterpolator
+  implements StringInterpolator, InstrumentedStringInterpolatorMBean {
+  /**
+   * The default number of interpolations per latency measurement.
+   */
+  private static final int DEFAULT_LATENCY_SAMPLING_INTERVAL = 16;
+
+  /**
+   * The interpolator whose interpolations are measured.
+   */
+  private final StringInterpolator delegate;
+
+  /**
+   * The mask applied to a random number to decide whether an interpolation's
+   * latency is measured.
+   */
+  private final int latencySamplingMask;
+
+  /**
+   * The number of interpolations performed.
+   */
+  private final LongAdder calls = new LongAdder();
+
+  /**
+   * The combined length of the interpolated templates.
+   */
+  private final LongAdder templateCharacters = new LongAdder();
+
+  /**
+   * The number of values looked up.
+   */
+  private final LongAdder lookups = new LongAdder();
+
+  /**
+   * The number of lookups which found no value.
+   */
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * The number of unresolved expressions.
+   */
+  private final LongAdder unresolved = new LongAdder();
+
+  /**
+   * The number of expressions which fell back to their default values.
+   */
+  private final LongAdder defaults = new LongAdder();
+
+  /**
+   * The lengths of the interpolated templates.
+   */
+  private final Log2Histogram templateLengths = new Log2Histogram();
+
+  /**
+   * The sampled latencies of interpolations, in nanoseconds.
+   */
+  private final Log2Histogram latencies = new Log2Histogram();
+
+  /**
+   * Constructs a new {@link InstrumentedStringInterpolator} measuring the
+   * latency of one in every sixteen interpolations.
+   *
+   * @param delegate the interpolator whose interpolations are measured
+   */
+  public InstrumentedStringInterpolator(final StringInterpolator delegate) {
+    this(delegate, DEFAULT_LATENCY_SAMPLING_INTERVAL);
+  }
+
+  /**
+   * Constructs a new {@link InstrumentedStringInterpolator}.
+   *
+   * @param delegate                the interpolator whose interpolations are
+   *                                measured
+   * @param latencySamplingInterval the average number of interpolations per
+   *                                latency measurement; {@code 1} measures
+   *                                every interpolation
+   *
+   * @throws IllegalArgumentException when latencySamplingInterval is not a
+   * positive power of two
+   */
+  public InstrumentedStringInterpolator(final StringInterpolator delegate,
+                                        final int latencySamplingInterval) {
+    if (latencySamplingInterval <= 0 ||
+        Integer.bitCount(latencySamplingInterval) != 1) {
+      throw new IllegalArgumentException(
+        "latencySamplingInterval must be a positive power of two"
+      );
+    }
+
+    this.delegate = Objects.requireNonNull(delegate);
+    this.latencySamplingMask = latencySamplingInterval - 1;
+  }
+
+  @Override
+  public String interpolate(final String string, final Context context) {
+    final Recorder recorder = new Recorder(context);
+    final long start = startTiming();
+
+    try {
+      return this.delegate.interpolate(string, recorder);
+    } finally {
+      record(string.length(), recorder, start);
+    }
+  }
+
+  @Override
+  public <A extends Appendable> A interpolateTo(final CharSequence template,
+                                                final Context context,
+                                                final A destination) {
+    final Recorder recorder = new Recorder(context);
+    final long start = startTiming();
+
+    try {
+      return this.delegate.interpolateTo(template, recorder, destination);
+    } finally {
+      record(template.length(), recorder, start);
+    }
+  }
+
+  /**
+   * Publishes this object's metrics to the platform MBean server under the
+   * specified name.
+   *
+   * @param name the name under which the metrics are published
+   *
+   * @throws JMException when the metrics cannot be published
+   */
+  public void register(final ObjectName name) throws JMException {
+    ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+  }
+
+  @Override
+  public long getCalls() {
+    return this.calls.sum();
+  }
+
+  @Override
+  public long getTemplateCharacters() {
+    return this.templateCharacters.sum();
+  }
+
+  @Override
+  public double getMeanTemplateLength() {
+    final long calls = this.calls.sum();
+    return calls == 0 ? 0 : (double) this.templateCharacters.sum() / calls;
+  }
+
+  @Override
+  public long getTemplateLength99thPercentile() {
+    return this.templateLengths.quantile(0.99);
+  }
+
+  @Override
+  public long getLookups() {
+    return this.lookups.sum();
+  }
+
+  @Override
+  public double getMeanLookupsPerCall() {
+    final long calls = this.calls.sum();
+    return calls == 0 ? 0 : (double) this.lookups.sum() / calls;
+  }
+
+  @Override
+  public long getMisses() {
+    return this.misses.sum();
+  }
+
+  @Override
+  public long getUnresolved() {
+    return this.unresolved.sum();
+  }
+
+  @Override
+  public long getDefaults() {
+    return this.defaults.sum();
+  }
+
+  @Override
+  public long getLatencySamples() {
+    long samples = 0;
+
+    for (final long count : this.latencies.snapshot()) {
+      samples += count;
+    }
+
+    return samples;
+  }
+
+  @Override
+  public long getLatency50thPercentileNanos() {
+    return this.latencies.quantile(0.5);
+  }
+
+  @Override
+  public long getLatency90thPercentileNanos() {
+    return this.latencies.quantile(0.9);
+  }
+
+  @Override
+  public long getLatency99thPercentileNanos() {
+    return this.latencies.quantile(0.99);
+  }
+
+  @Override
+  public long[] getLatencyHistogram() {
+    return this.latencies.snapshot();
+  }
+
+  @Override
+  public void reset() {
+    this.calls.reset();
+    this.templateCharacters.reset();
+    this.lookups.reset();
+    this.misses.reset();
+    this.unresolved.reset();
+    this.defaults.reset();
+    this.templateLengths.reset();
+    this.latencies.reset();
+  }
+
+  /**
+   * Reads the clock if this interpolation's latency is to be measured.
+   *
+   * @return the current value of {@link System#nanoTime()}, or {@code -1} if
+   * this interpolation's latency is not to be measured
+   */
+  private long startTiming() {
+    final int random = ThreadLocalRandom.current().nextInt();
+
+    if ((random & this.latencySamplingMask) != 0) {
+      return -1;
+    }
+
+    return System.nanoTime();
+  }
+
+  /**
+   * Adds the metrics of a completed interpolation to the totals.
+   *
+   * @param length   the length of the interpolated template
+   * @param recorder the context which recorded the interpolation's lookups
+   * @param start    the time at which the interpolation started, or {@code -1}
+   *                 if its latency is not measured
+   */
+  private void record(final int length,
+                      final Recorder recorder,
+                      final long start) {
+    if (start != -1) {
+      this.latencies.record(System.nanoTime() - start);
+    }
+
+    this.calls.increment();
+    this.templateCharacters.add(length);
+    this.templateLengths.record(length);
+
+    if (recorder.lookups != 0) {
+      this.lookups.add(recorder.lookups);
+    }
+
+    if (recorder.misses != 0) {
+      this.misses.add(recorder.misses);
+    }
+
+    if (recorder.unresolved != 0) {
+      this.unresolved.add(recorder.unresolved);
+    }
+
+    if (recorder.defaults != 0) {
+      this.defaults.add(recorder.defaults);
+    }
+  }
+
+  /**
+   * A {@link Context} which counts the lookups made during a single
+   * interpolation and their outcomes.
+   */
+  private static final class Recorder
+    implements Context, ExpressionObserver {
+    /**
+     * The context in which values are looked up.
+     */
+    private final Context context;
+
+    /**
+     * The number of values looked up.
+     */
+    private int lookups;
+
+    /**
+     * The number of lookups which found no value.
+     */
+    private int misses;
+
+    /**
+     * The number of unresolved expressions.
+     */
+    private int unresolved;
+
+    /**
+     * The number of expressions which fell back to their default values.
+     */
+    private int defaults;
+
+    private Recorder(final Context context) {
+      this.context = context;
+    }
+
+    @Override
+    public String get(final String key) {
+      return count(this.context.get(key));
+    }
+
+    @Override
+    public String get(final CharSequence source,
+                      final int start,
+                      final int end) {
+      return count(this.context.get(source, start, end));
+    }
+
+    @Override
+    public Map<String, String> getAll(final Set<String> keys) {
+      final Map<String, String> values = this.context.getAll(keys);
+      this.lookups += keys.size();
+      this.misses += keys.size() - values.size();
+      return values;
+    }
+
+    @Override
+    public void unresolved() {
+      ++this.unresolved;
+    }
+
+    @Override
+    public void defaulted() {
+      ++this.defaults;
+    }
+
+    /**
+     * Counts a lookup and its outcome.
+     *
+     * @param value the value found by the lookup
+     *
+     * @return the value
+     */
+    private String count(final String value) {
+      ++this.lookups;
+
+      if (value == null) {
+        ++this.misses;
+      }
+
+      return value;
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package sh.cody.string.interpolate;
+
+/**
+ * The management interface of an {@link InstrumentedStringInterpolator}.
+ * <p>
+ * Every count is cumulative since construction or the last {@link #reset()};
+ * rates, such as calls per second, are derived by sampling a count
+ * periodically.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+public interface InstrumentedStringInterpolatorMBean {
+  /**
+   * Returns the number of interpolations performed.
+   *
+   * @return the number of interpolations performed
+   */
+  long getCalls();
+
+  /**
+   * Returns the combined length of the interpolated templates.
+   *
+   * @return the combined length of the interpolated templates
+   */
+  long getTemplateCharacters();
+
+  /**
+   * Returns the mean length of the interpolated templates.
+   *
+   * @return the mean length of the interpolated templates, or zero if no
+   * interpolation has been performed
+   */
+  double getMeanTemplateLength();
+
+  /**
+   * Returns the upper bound of the bucket containing the 99th percentile of
+   * the interpolated templates' lengths.
+   *
+   * @return the 99th percentile template length, rounded up to one less than
+   * a power of two
+   */
+  long getTemplateLength99thPercentile();
+
+  /**
+   * Returns the number of values looked up in contexts.
+   *
+   * @return the number of values looked up
+   */
+  long getLookups();
+
+  /**
+   * Returns the mean number of values looked up per interpolation.
+   *
+   * @return the mean number of values looked up per interpolation, or zero if
+   * no interpolation has been performed
+   */
+  double getMeanLookupsPerCall();
+
+  /**
+   * Returns the number of lookups which found no value.
+   *
+   * @return the number of lookups which found no value
+   */
+  long getMisses();
+
+  /**
+   * Returns the number of expressions which could not be matched and were
+   * reproduced without being interpolated. Only counted when the wrapped
+   * interpolator is a {@link ShellStyleStringInterpolator} or renders its
+   * templates.
+   *
+   * @return the number of unresolved expressions
+   */
+  long getUnresolved();
+
+  /**
+   * Returns the number of expressions which could not be matched and fell
+   * back to their default values. Only counted when the wrapped interpolator
+   * is a {@link ShellStyleStringInterpolator} or renders its templates.
+   *
+   * @return the number of expressions which fell back to their defaults
+   */
+  long getDefaults();
+
+  /**
+   * Returns the number of interpolations whose latency was measured.
+   *
+   * @return the number of interpolations whose latency was measured
+   */
+  long getLatencySamples();
+
+  /**
+   * Returns the upper bound of the bucket containing the median latency.
+   *
+   * @return the median latency in nanoseconds, rounded up to one less than a
+   * power of two
+   */
+  long getLatency50thPercentileNanos();
+
+  /**
+   * Returns the upper bound of the bucket containing the 90th percentile
+   * latency.
+   *
+   * @return the 90th percentile latency in nanoseconds, rounded up to one less
+   * than a power of two
+   */
+  long getLatency90thPercentileNanos();
+
+  /**
+   * Returns the upper bound of the bucket containing the 99th percentile
+   * latency.
+   *
+   * @return the 99th percentile latency in nanoseconds, rounded up to one less
+   * than a power of two
+   */
+  long getLatency99thPercentileNanos();
+
+  /**
+   * Returns the latency histogram. Element {@code b} counts the sampled
+   * latencies from {@code 2^(b-1)} to {@code 2^b - 1} nanoseconds; element
+   * {@code 0} counts latencies of zero.
+   *
+   * @return the counts of the latency histogram's buckets
+   */
+  long[] getLatencyHistogram();
+
+  /**
+   * Resets every count to zero.
+   */
+  void reset();
+}
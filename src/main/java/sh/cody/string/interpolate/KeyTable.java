@@ -0,0 +1,190 @@
+package sh.cody.string.interpolate;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An immutable, open-addressed hash table mapping string keys to string
+ * values, optimized for lookups.
+ * <p>
+ * Keys may be looked up by a range of characters within any
+ * {@link CharSequence}; the range is hashed and compared in place, so no
+ * string is materialized for the lookup.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+final class KeyTable {
+  /**
+   * The keys of this table, indexed by slot; empty slots are {@code null}.
+   */
+  private final String[] keys;
+
+  /**
+   * The values of this table, indexed by slot.
+   */
+  private final String[] values;
+
+  /**
+   * The mask applied to a spread hash code to produce a slot index.
+   */
+  private final int mask;
+
+  /**
+   * The number of entries in this table.
+   */
+  private final int size;
+
+  /**
+   * Constructs a new {@link KeyTable} containing the entries of the specified
+   * map. Entries with a {@code null} key or value are ignored.
+   *
+   * @param map the map whose entries are to be placed in the table
+   */
+  KeyTable(final Map<String, String> map) {
+    int capacity = 2;
+
+    while (capacity < map.size() * 2) {
+      capacity <<= 1;
+    }
+
+    this.keys = new String[capacity];
+    this.values = new String[capacity];
+    this.mask = capacity - 1;
+
+    int size = 0;
+
+    for (final Map.Entry<String, String> entry : map.entrySet()) {
+      final String key = entry.getKey();
+      final String value = entry.getValue();
+
+      if (key == null || value == null) {
+        continue;
+      }
+
+      int slot = spread(key.hashCode()) & this.mask;
+
+      while (this.keys[slot] != null && !this.keys[slot].equals(key)) {
+        slot = slot + 1 & this.mask;
+      }
+
+      if (this.keys[slot] == null) {
+        ++size;
+      }
+
+      this.keys[slot] = key;
+      this.values[slot] = value;
+    }
+
+    this.size = size;
+  }
+
+  /**
+   * Returns the value to which the specified key is associated.
+   *
+   * @param key the key whose associated value is to be returned
+   *
+   * @return the value to which the key is associated, or {@code null} if this
+   * table does not contain the key
+   */
+  String get(final String key) {
+    int slot = spread(key.hashCode()) & this.mask;
+    String candidate;
+
+    while ((candidate = this.keys[slot]) != null) {
+      if (candidate.equals(key)) {
+        return this.values[slot];
+      }
+
+      slot = slot + 1 & this.mask;
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns the value to which the key composed of the specified range of
+   * characters is associated.
+   *
+   * @param source the source of the key's characters
+   * @param start  the index of the first character of the key
+   * @param end    the index after the last character of the key
+   *
+   * @throws IndexOutOfBoundsException when start or end is out of the source's
+   * bounds, or start is greater than end
+   *
+   * @return the value to which the key is associated, or {@code null} if this
+   * table does not contain the key
+   */
+  String get(final CharSequence source, final int start, final int end) {
+    Objects.checkFromToIndex(start, end, source.length());
+    int hash = 0;
+
+    for (int i = start; i < end; ++i) {
+      hash = 31 * hash + source.charAt(i);
+    }
+
+    int slot = spread(hash) & this.mask;
+    String candidate;
+
+    while ((candidate = this.keys[slot]) != null) {
+      if (matches(candidate, source, start, end)) {
+        return this.values[slot];
+      }
+
+      slot = slot + 1 & this.mask;
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns the number of entries in this table.
+   *
+   * @return the number of entries in this table
+   */
+  int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns whether the specified key is equal to the specified range of
+   * characters.
+   *
+   * @param key    the key
+   * @param source the source of the range of characters
+   * @param start  the index of the first character of the range
+   * @param end    the index after the last character of the range
+   *
+   * @return whether the key is equal to the range of characters
+   */
+  private static boolean matches(final String key,
+                                 final CharSequence source,
+                                 final int start,
+                                 final int end) {
+    final int length = end - start;
+
+    if (key.length() != length) {
+      return false;
+    }
+
+    for (int i = 0; i < length; ++i) {
+      if (key.charAt(i) != source.charAt(start + i)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Spreads the higher bits of a hash code into its lower bits, which are used
+   * to select a slot.
+   *
+   * @param hash the hash code
+   *
+   * @return the spread hash code
+   */
+  private static int spread(final int hash) {
+    return hash ^ hash >>> 16;
+  }
+}
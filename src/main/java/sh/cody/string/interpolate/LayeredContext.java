@@ -0,0 +1,310 @@
+package sh.cody.string.interpolate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A {@link Context} composed of layers, some of which own a namespace of keys
+ * identified by a prefix.
+ * <p>
+ * A key beginning with the prefix of a namespace, matched without regard to
+ * case, is routed to the layer owning that namespace alone and is looked up
+ * there with the prefix removed; when the prefixes of several namespaces
+ * match, the longest wins. Any other key is looked up in each unprefixed
+ * layer in turn, in the order in which the layers were added, until one of
+ * them contains a value for it.
+ * <p>
+ * Layered contexts are constructed with {@link Context#layered()} and are
+ * immutable; a single layered context may be used by many threads
+ * concurrently, provided its layers may be.
+ *
+ * @implNote The prefixes are compiled into a trie which is walked over the
+ * key's characters in place, so routing a key neither lowercases nor
+ * substrings it. Keys are passed to the layers by range through {@link
+ * Context#get(CharSequence, int, int)}, so a lookup allocates only if a layer
+ * must materialize the key.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+public final class LayeredContext implements Context {
+  /**
+   * The root of the trie of namespace prefixes.
+   */
+  private final Node root;
+
+  /**
+   * The layers which own a namespace, indexed by the layer numbers held by
+   * the trie.
+   */
+  private final Context[] namespaces;
+
+  /**
+   * The unprefixed layers, in the order in which they are consulted.
+   */
+  private final Context[] layers;
+
+  private LayeredContext(final Builder builder) {
+    final int count = builder.prefixes.size();
+    final Node root = new Node();
+
+    for (int i = 0; i < count; ++i) {
+      root.insert(builder.prefixes.get(i), 0, i);
+    }
+
+    this.root = root;
+    this.namespaces = builder.namespaces.toArray(new Context[0]);
+    this.layers = builder.layers.toArray(new Context[0]);
+  }
+
+  @Override
+  public String get(final String key) {
+    final long route = route(key, 0, key.length());
+
+    if (route != -1) {
+      return this.namespaces[(int) route].get(
+        key, (int) (route >>> 32), key.length()
+      );
+    }
+
+    for (final Context layer : this.layers) {
+      final String value = layer.get(key);
+
+      if (value != null) {
+        return value;
+      }
+    }
+
+    return null;
+  }
+
+  @Override
+  public String get(final CharSequence source,
+                    final int start,
+                    final int end) {
+    Objects.checkFromToIndex(start, end, source.length());
+    final long route = route(source, start, end);
+
+    if (route != -1) {
+      return this.namespaces[(int) route].get(
+        source, start + (int) (route >>> 32), end
+      );
+    }
+
+    for (final Context layer : this.layers) {
+      final String value = layer.get(source, start, end);
+
+      if (value != null) {
+        return value;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Finds the namespace owning the key composed of the specified range of
+   * characters.
+   *
+   * @param source the source of the key's characters
+   * @param start  the index of the first character of the key
+   * @param end    the index after the last character of the key
+   *
+   * @return the length of the longest matching prefix in the upper half and
+   * the number of its layer in the lower half, or {@code -1} if no prefix
+   * matches
+   */
+  private long route(final CharSequence source,
+                     final int start,
+                     final int end) {
+    Node node = this.root;
+    long route = -1;
+
+    for (int i = start; i < end; ++i) {
+      node = node.child(fold(source.charAt(i)));
+
+      if (node == null) {
+        break;
+      } else if (node.layer != -1) {
+        route = (long) (i + 1 - start) << 32 | node.layer;
+      }
+    }
+
+    return route;
+  }
+
+  /**
+   * Folds the case of a character, so that characters differing only in case
+   * are equal.
+   *
+   * @param ch the character
+   *
+   * @return the folded character
+   */
+  private static char fold(final char ch) {
+    return Character.toLowerCase(Character.toUpperCase(ch));
+  }
+
+  /**
+   * A node of the trie of namespace prefixes.
+   */
+  private static final class Node {
+    /**
+     * The characters labelling the edges to this node's children, in
+     * ascending order.
+     */
+    private char[] labels = new char[0];
+
+    /**
+     * The children of this node, in the order of their labels.
+     */
+    private Node[] children = new Node[0];
+
+    /**
+     * The number of the layer owning the prefix ending at this node, or
+     * {@code -1} if no prefix ends at this node.
+     */
+    private int layer = -1;
+
+    /**
+     * Returns the child reached by the edge with the specified label.
+     *
+     * @param label the folded character labelling the edge
+     *
+     * @return the child, or {@code null} if there is no such edge
+     */
+    Node child(final char label) {
+      final int index = Arrays.binarySearch(this.labels, label);
+      return index < 0 ? null : this.children[index];
+    }
+
+    /**
+     * Inserts the remainder of a prefix beneath this node.
+     *
+     * @param prefix the prefix, with its case folded
+     * @param index  the index of the first character not yet inserted
+     * @param layer  the number of the layer owning the prefix
+     */
+    void insert(final String prefix, final int index, final int layer) {
+      if (index == prefix.length()) {
+        this.layer = layer;
+        return;
+      }
+
+      final char label = prefix.charAt(index);
+      int position = Arrays.binarySearch(this.labels, label);
+
+      if (position < 0) {
+        position = -position - 1;
+
+        final char[] labels = new char[this.labels.length + 1];
+        final Node[] children = new Node[this.children.length + 1];
+        System.arraycopy(this.labels, 0, labels, 0, position);
+        System.arraycopy(this.children, 0, children, 0, position);
+        labels[position] = label;
+        children[position] = new Node();
+        System.arraycopy(
+          this.labels, position, labels, position + 1,
+          this.labels.length - position
+        );
+        System.arraycopy(
+          this.children, position, children, position + 1,
+          this.children.length - position
+        );
+
+        this.labels = labels;
+        this.children = children;
+      }
+
+      this.children[position].insert(prefix, index + 1, layer);
+    }
+  }
+
+  /**
+   * A builder of {@link LayeredContext}s. Builders are not safe for use by
+   * many threads concurrently.
+   */
+  public static final class Builder {
+    /**
+     * The namespace prefixes added so far, with their case folded.
+     */
+    private final List<String> prefixes = new ArrayList<>();
+
+    /**
+     * The layers owning the namespaces, in the order of their prefixes.
+     */
+    private final List<Context> namespaces = new ArrayList<>();
+
+    /**
+     * The unprefixed layers added so far, in order.
+     */
+    private final List<Context> layers = new ArrayList<>();
+
+    Builder() {
+    }
+
+    /**
+     * Adds a layer consulted for keys which do not begin with the prefix of
+     * any namespace, after the unprefixed layers added before it.
+     *
+     * @param layer the layer
+     *
+     * @return this builder
+     */
+    public Builder layer(final Context layer) {
+      this.layers.add(Objects.requireNonNull(layer));
+      return this;
+    }
+
+    /**
+     * Adds a layer owning the namespace of keys beginning with the specified
+     * prefix, matched without regard to case. Such keys are looked up in the
+     * layer with the prefix removed.
+     *
+     * @param prefix the prefix identifying the namespace, e.g. {@code env.}
+     * @param layer  the layer owning the namespace
+     *
+     * @throws IllegalArgumentException when the prefix is empty or a
+     * namespace with the same prefix has already been added
+     *
+     * @return this builder
+     */
+    public Builder namespace(final String prefix, final Context layer) {
+      Objects.requireNonNull(layer);
+
+      if (prefix.isEmpty()) {
+        throw new IllegalArgumentException("prefix must not be empty");
+      }
+
+      final char[] folded = new char[prefix.length()];
+
+      for (int i = 0; i < folded.length; ++i) {
+        folded[i] = fold(prefix.charAt(i));
+      }
+
+      final String key = new String(folded);
+
+      if (this.prefixes.contains(key)) {
+        throw new IllegalArgumentException(
+          "A namespace with the prefix " + prefix + " has already been added"
+        );
+      }
+
+      this.prefixes.add(key);
+      this.namespaces.add(layer);
+      return this;
+    }
+
+    /**
+     * Constructs a {@link LayeredContext} from the layers added so far. The
+     * builder may continue to be used afterwards without affecting the
+     * constructed context.
+     *
+     * @return the layered context
+     */
+    public LayeredContext build() {
+      return new LayeredContext(this);
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package sh.cody.string.interpolate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A string whose interpolation is deferred until its characters are first
+ * needed.
+ * <p>
+ * Constructing a lazy interpolation neither parses the string nor looks up
+ * any value; the string is interpolated on the first invocation of {@link
+ * #toString()}, {@link #get()}, {@link #length()}, {@link #charAt(int)} or
+ * {@link #subSequence(int, int)}, and the result is retained for every later
+ * invocation. {@link #appendTo(Appendable)} instead streams the interpolation
+ * into a destination without retaining it, unless the string has already
+ * been interpolated.
+ * <p>
+ * A lazy interpolation is a {@link Supplier}, so it may be passed to a
+ * {@link java.util.logging.Logger} directly; a message discarded by the
+ * logger's level costs only the construction of this object. Lazy
+ * interpolations are constructed with {@link StringInterpolator#lazy} and may
+ * be used by many threads concurrently; the string is interpolated at most
+ * once, provided the context always returns the same values.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+public final class LazyInterpolation implements CharSequence, Supplier<String> {
+  /**
+   * The interpolator by which the string is interpolated.
+   */
+  private final StringInterpolator interpolator;
+
+  /**
+   * The string to be interpolated.
+   */
+  private final String string;
+
+  /**
+   * The context from which interpolated values will be retrieved.
+   */
+  private final Context context;
+
+  /**
+   * The interpolated string, or {@code null} if the string has not been
+   * interpolated yet.
+   */
+  private volatile String interpolated;
+
+  LazyInterpolation(final StringInterpolator interpolator,
+                    final String string,
+                    final Context context) {
+    this.interpolator = interpolator;
+    this.string = Objects.requireNonNull(string);
+    this.context = context;
+  }
+
+  /**
+   * Returns whether the string has been interpolated and retained.
+   *
+   * @return whether the string has been interpolated
+   */
+  public boolean isInterpolated() {
+    return this.interpolated != null;
+  }
+
+  /**
+   * Appends the interpolated string to the specified destination. If the
+   * string has not been interpolated yet, it is interpolated directly into
+   * the destination and is not retained.
+   *
+   * @param destination the destination to which the interpolated string is
+   *                    appended
+   * @param <A>         the type of the destination
+   *
+   * @throws UncheckedIOException when the destination throws an
+   * {@link IOException}
+   *
+   * @return the destination
+   */
+  public <A extends Appendable> A appendTo(final A destination) {
+    final String interpolated = this.interpolated;
+
+    if (interpolated == null) {
+      return this.interpolator.interpolateTo(
+        this.string, this.context, destination
+      );
+    }
+
+    try {
+      destination.append(interpolated);
+    } catch (final IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+
+    return destination;
+  }
+
+  @Override
+  public String get() {
+    return toString();
+  }
+
+  @Override
+  public int length() {
+    return toString().length();
+  }
+
+  @Override
+  public char charAt(final int index) {
+    return toString().charAt(index);
+  }
+
+  @Override
+  public CharSequence subSequence(final int start, final int end) {
+    return toString().subSequence(start, end);
+  }
+
+  /**
+   * Returns the interpolated string, interpolating it if it has not been
+   * interpolated yet.
+   *
+   * @return the interpolated string
+   */
+  @Override
+  public String toString() {
+    String interpolated = this.interpolated;
+
+    if (interpolated == null) {
+      synchronized (this) {
+        interpolated = this.interpolated;
+
+        if (interpolated == null) {
+          interpolated = this.interpolator.interpolate(
+            this.string, this.context
+          );
+          this.interpolated = interpolated;
+        }
+      }
+    }
+
+    return interpolated;
+  }
+}
@@ -0,0 +1,100 @@
+package sh.cody.string.interpolate;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative values, counted in buckets whose
+ * bounds are powers of two.
+ * <p>
+ * Bucket {@code 0} counts the value zero and bucket {@code b} counts values
+ * from {@code 2^(b-1)} to {@code 2^b - 1}. Each bucket is a {@link LongAdder},
+ * so threads recording values concurrently do not contend with each other.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+final class Log2Histogram {
+  /**
+   * The number of buckets, enough for any non-negative {@code long}.
+   */
+  static final int BUCKETS = 64;
+
+  /**
+   * The counts of the buckets.
+   */
+  private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+  /**
+   * Constructs a new, empty {@link Log2Histogram}.
+   */
+  Log2Histogram() {
+    for (int i = 0; i < BUCKETS; ++i) {
+      this.buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Records a value. Negative values are recorded as zero.
+   *
+   * @param value the value
+   */
+  void record(final long value) {
+    final int bucket = BUCKETS - Long.numberOfLeadingZeros(Math.max(value, 0));
+    this.buckets[bucket].increment();
+  }
+
+  /**
+   * Returns the upper bound of the bucket containing the specified quantile
+   * of the recorded values.
+   *
+   * @param quantile the quantile, between zero and one
+   *
+   * @return the upper bound of the bucket containing the quantile, or zero if
+   * no value has been recorded
+   */
+  long quantile(final double quantile) {
+    final long[] counts = snapshot();
+    long total = 0;
+
+    for (final long count : counts) {
+      total += count;
+    }
+
+    final long rank = (long) Math.ceil(quantile * total);
+    long seen = 0;
+
+    for (int i = 0; i < BUCKETS; ++i) {
+      seen += counts[i];
+
+      if (seen >= rank && seen > 0) {
+        return i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+      }
+    }
+
+    return 0;
+  }
+
+  /**
+   * Returns the counts of the buckets. Values recorded concurrently may or
+   * may not be included.
+   *
+   * @return the counts of the buckets, indexed by bucket
+   */
+  long[] snapshot() {
+    final long[] counts = new long[BUCKETS];
+
+    for (int i = 0; i < BUCKETS; ++i) {
+      counts[i] = this.buckets[i].sum();
+    }
+
+    return counts;
+  }
+
+  /**
+   * Resets the counts of the buckets to zero.
+   */
+  void reset() {
+    for (final LongAdder bucket : this.buckets) {
+      bucket.reset();
+    }
+  }
+}
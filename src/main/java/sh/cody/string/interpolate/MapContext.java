@@ -0,0 +1,36 @@
+package sh.cody.string.interpolate;
+
+import java.util.Map;
+
+/**
+ * A {@link Context} for an immutable copy of the entries of a {@link Map}.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+final class MapContext implements Context {
+  /**
+   * The entries of this context.
+   */
+  private final KeyTable table;
+
+  /**
+   * Constructs a new {@link MapContext} for the entries of the specified map.
+   *
+   * @param map the map whose entries are to be contained in the context
+   */
+  MapContext(final Map<String, String> map) {
+    this.table = new KeyTable(map);
+  }
+
+  @Override
+  public String get(final String key) {
+    return this.table.get(key);
+  }
+
+  @Override
+  public String get(final CharSequence source,
+                    final int start,
+                    final int end) {
+    return this.table.get(source, start, end);
+  }
+}
@@ -0,0 +1,127 @@
+package sh.cody.string.interpolate;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Context} whose values may be changed, notifying registered
+ * listeners of the keys whose values changed.
+ * <p>
+ * Lookups may be performed by many threads concurrently with changes. Each
+ * change is delivered to the listeners on the thread which made it, after the
+ * change has been applied; a change to several values made with
+ * {@link #putAll(Map)} is delivered as a single notification.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+public final class MutableContext implements Context {
+  /**
+   * The values of this context.
+   */
+  private final Map<String, String> values = new ConcurrentHashMap<>();
+
+  /**
+   * The listeners notified of the keys whose values changed.
+   */
+  private final List<Consumer<Set<String>>> listeners =
+    new CopyOnWriteArrayList<>();
+
+  /**
+   * Constructs a new, empty {@link MutableContext}.
+   */
+  public MutableContext() {
+  }
+
+  /**
+   * Constructs a new {@link MutableContext} containing the entries of the
+   * specified map.
+   *
+   * @param map the map whose entries are to be contained in the context
+   */
+  public MutableContext(final Map<String, String> map) {
+    this.values.putAll(map);
+  }
+
+  @Override
+  public String get(final String key) {
+    return this.values.get(key);
+  }
+
+  /**
+   * Associates the specified value with the specified key, notifying the
+   * listeners if the key's value changed.
+   *
+   * @param key   the key with which the value is to be associated
+   * @param value the value to be associated with the key, or {@code null} to
+   *              remove the key's value
+   */
+  public void put(final String key, final String value) {
+    putAll(Collections.singletonMap(key, value));
+  }
+
+  /**
+   * Removes the value associated with the specified key, notifying the
+   * listeners if the key had a value.
+   *
+   * @param key the key whose value is to be removed
+   */
+  public void remove(final String key) {
+    put(key, null);
+  }
+
+  /**
+   * Associates each value in the specified map with its key, notifying the
+   * listeners once of every key whose value changed. Keys mapped to {@code
+   * null} have their values removed.
+   *
+   * @param map the map whose entries are to be placed in this context
+   */
+  public void putAll(final Map<String, String> map) {
+    final Set<String> changed = new HashSet<>();
+
+    for (final Map.Entry<String, String> entry : map.entrySet()) {
+      final String key = Objects.requireNonNull(entry.getKey());
+      final String value = entry.getValue();
+      final String previous = value == null ? this.values.remove(key) :
+                                              this.values.put(key, value);
+
+      if (!Objects.equals(previous, value)) {
+        changed.add(key);
+      }
+    }
+
+    if (!changed.isEmpty()) {
+      final Set<String> keys = Collections.unmodifiableSet(changed);
+
+      for (final Consumer<Set<String>> listener : this.listeners) {
+        listener.accept(keys);
+      }
+    }
+  }
+
+  /**
+   * Registers a listener to be notified of the keys whose values changed.
+   *
+   * @param listener the listener to be notified
+   */
+  public void addListener(final Consumer<Set<String>> listener) {
+    this.listeners.add(Objects.requireNonNull(listener));
+  }
+
+  /**
+   * Unregisters a listener previously registered with
+   * {@link #addListener(Consumer)}.
+   *
+   * @param listener the listener to be unregistered
+   */
+  public void removeListener(final Consumer<Set<String>> listener) {
+    this.listeners.remove(listener);
+  }
+}
@@ -0,0 +1,49 @@
+package sh.cody.string.interpolate;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link Context} which serves the values of a known set of keys from values
+ * fetched in advance, and looks up any other key in an underlying context.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+final class PrefetchedContext implements Context {
+  /**
+   * The context used to look up keys which were not prefetched.
+   */
+  private final Context context;
+
+  /**
+   * The keys whose values were prefetched.
+   */
+  private final Set<String> keys;
+
+  /**
+   * The prefetched values; prefetched keys with no associated value are
+   * absent.
+   */
+  private final Map<String, String> values;
+
+  /**
+   * Constructs a new {@link PrefetchedContext}.
+   *
+   * @param context the context used to look up keys which were not prefetched
+   * @param keys    the keys whose values were prefetched
+   * @param values  the prefetched values
+   */
+  PrefetchedContext(final Context context,
+                    final Set<String> keys,
+                    final Map<String, String> values) {
+    this.context = context;
+    this.keys = keys;
+    this.values = values;
+  }
+
+  @Override
+  public String get(final String key) {
+    return this.keys.contains(key) ? this.values.get(key) :
+                                     this.context.get(key);
+  }
+}
@@ -0,0 +1,101 @@
+package sh.cody.string.interpolate;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A fork/join task which processes a range of indexes.
+ * <p>
+ * The granularity of the work adapts to the load of the pool: a task keeps
+ * splitting its range in half, forking one half, for as long as its worker
+ * has few queued tasks which other workers could steal. Idle workers
+ * therefore cause the work to be divided finely, while busy workers process
+ * large ranges sequentially.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+abstract class RangeTask extends RecursiveAction {
+  /**
+   * The serialization version of this class.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The number of surplus queued tasks beyond which a task stops splitting.
+   */
+  private static final int SURPLUS_THRESHOLD = 3;
+
+  /**
+   * The first index processed by this task.
+   */
+  private final int start;
+
+  /**
+   * The index after the last index processed by this task.
+   */
+  private final int end;
+
+  /**
+   * The task forked before this task by the same parent, if any.
+   */
+  private final RangeTask next;
+
+  /**
+   * Constructs a new {@link RangeTask}.
+   *
+   * @param start the first index processed by the task
+   * @param end   the index after the last index processed by the task
+   * @param next  the task forked before the task by the same parent, if any
+   */
+  RangeTask(final int start, final int end, final RangeTask next) {
+    this.start = start;
+    this.end = end;
+    this.next = next;
+  }
+
+  /**
+   * Constructs a task sharing the work of this task which processes the
+   * specified range of indexes.
+   *
+   * @param start the first index processed by the task
+   * @param end   the index after the last index processed by the task
+   * @param next  the task forked before the task by the same parent, if any
+   *
+   * @return the task
+   */
+  abstract RangeTask split(int start, int end, RangeTask next);
+
+  /**
+   * Processes the specified index.
+   *
+   * @param index the index
+   */
+  abstract void process(int index);
+
+  @Override
+  protected final void compute() {
+    int end = this.end;
+    RangeTask forked = null;
+
+    while (end - this.start > 1 &&
+           getSurplusQueuedTaskCount() <= SURPLUS_THRESHOLD) {
+      final int middle = this.start + end >>> 1;
+      forked = split(middle, end, forked);
+      forked.fork();
+      end = middle;
+    }
+
+    for (int i = this.start; i < end; ++i) {
+      process(i);
+    }
+
+    while (forked != null) {
+      if (forked.tryUnfork()) {
+        forked.compute();
+      } else {
+        forked.join();
+      }
+
+      forked = forked.next;
+    }
+  }
+}
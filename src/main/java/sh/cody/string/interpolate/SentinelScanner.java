@@ -0,0 +1,172 @@
+package sh.cody.string.interpolate;
+
+/**
+ * Finds the sentinel characters of a string being parsed: those which begin a
+ * DOS-style expression, an sh-style expression, or an sh-style escape
+ * sequence, to the extent that each style is supported.
+ * <p>
+ * Literal text between sentinels is skipped in bulk rather than one
+ * character at a time. A {@link String} is searched for each sentinel
+ * character separately with {@link String#indexOf(int, int)}, which the JVM
+ * implements with vector instructions; the position of the next occurrence
+ * of each character is retained, so that a character is searched for again
+ * only once the parser has passed its previous occurrence, and every
+ * character of the string is examined at most once per sentinel. UTF-8 bytes
+ * are searched eight at a time by {@link Utf8Bytes#indexOfAny}. Other
+ * sequences are searched one character at a time.
+ * <p>
+ * A scanner holds the state of a single parse and is not safe for use by
+ * many threads concurrently.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+final class SentinelScanner {
+  /**
+   * A position beyond any string, standing for a sentinel which is not
+   * supported.
+   */
+  private static final int NEVER = Integer.MAX_VALUE;
+
+  /**
+   * The string being parsed.
+   */
+  private final CharSequence string;
+
+  /**
+   * The border character of bordered expressions.
+   */
+  private final char border;
+
+  /**
+   * The first character of the opener of enclosed expressions.
+   */
+  private final char sentinel;
+
+  /**
+   * The escape character.
+   */
+  private final char escape;
+
+  /**
+   * The index of the next DOS-style expression border, {@code -1} if it has
+   * not been searched for, or {@link #NEVER} if DOS-style expressions are not
+   * supported.
+   */
+  private int nextBorder;
+
+  /**
+   * The index of the next sh-style sentinel, {@code -1} if it has not been
+   * searched for, or {@link #NEVER} if sh-style expressions are not
+   * supported.
+   */
+  private int nextSentinel;
+
+  /**
+   * The index of the next sh-style escape character, {@code -1} if it has not
+   * been searched for, or {@link #NEVER} if sh-style expressions are not
+   * supported.
+   */
+  private int nextEscape;
+
+  /**
+   * Constructs a new {@link SentinelScanner}.
+   *
+   * @param string     the string being parsed
+   * @param syntax     the syntax of the expressions
+   * @param supportDos whether DOS-style expressions are supported
+   * @param supportSh  whether sh-style expressions are supported
+   */
+  SentinelScanner(final CharSequence string,
+                  final Syntax syntax,
+                  final boolean supportDos,
+                  final boolean supportSh) {
+    this.string = string;
+    this.border = syntax.border();
+    this.sentinel = syntax.sentinel();
+    this.escape = syntax.escape();
+    this.nextBorder = supportDos ? -1 : NEVER;
+    this.nextSentinel = supportSh ? -1 : NEVER;
+    this.nextEscape = supportSh ? -1 : NEVER;
+  }
+
+  /**
+   * Returns the index of the first sentinel character at or after the
+   * specified index. Successive invocations must not pass decreasing indexes.
+   *
+   * @param startIndex the index at which the search begins
+   *
+   * @return the index of the first sentinel character, or the length of the
+   * string if there is no such character
+   */
+  int next(final int startIndex) {
+    final int length = this.string.length();
+
+    if (this.nextBorder == NEVER && this.nextSentinel == NEVER) {
+      return length;
+    }
+
+    if (this.string instanceof String) {
+      final String string = (String) this.string;
+
+      if (this.nextBorder < startIndex) {
+        this.nextBorder = indexOf(string, this.border, startIndex);
+      }
+
+      if (this.nextSentinel < startIndex) {
+        this.nextSentinel = indexOf(string, this.sentinel, startIndex);
+      }
+
+      if (this.nextEscape < startIndex) {
+        this.nextEscape = indexOf(string, this.escape, startIndex);
+      }
+
+      return Math.min(
+        Math.min(this.nextBorder, this.nextSentinel),
+        Math.min(this.nextEscape, length)
+      );
+    }
+
+    final char border = this.nextBorder == NEVER ? 0 : this.border;
+    final char sentinel = this.nextSentinel == NEVER ? 0 : this.sentinel;
+    final char escape = this.nextEscape == NEVER ? 0 : this.escape;
+
+    if (this.string instanceof Utf8Bytes) {
+      // a disabled sentinel is searched for as a duplicate of another
+      final char enabled = border != 0 ? border : sentinel;
+      return ((Utf8Bytes) this.string).indexOfAny(
+        startIndex,
+        border != 0 ? border : enabled,
+        sentinel != 0 ? sentinel : enabled,
+        escape != 0 ? escape : enabled
+      );
+    }
+
+    for (int i = startIndex; i < length; ++i) {
+      final char ch = this.string.charAt(i);
+
+      if (ch != 0 && (ch == border || ch == sentinel || ch == escape)) {
+        return i;
+      }
+    }
+
+    return length;
+  }
+
+  /**
+   * Returns the index of the first occurrence of the specified character in
+   * the specified string at or after the specified index.
+   *
+   * @param string     the string to be searched
+   * @param ch         the character to be found
+   * @param startIndex the index at which the search begins
+   *
+   * @return the index of the first occurrence of the character, or the length
+   * of the string if there is no such occurrence
+   */
+  private static int indexOf(final String string,
+                             final char ch,
+                             final int startIndex) {
+    final int index = string.indexOf(ch, startIndex);
+    return index < 0 ? string.length() : index;
+  }
+}
@@ -1,5 +1,22 @@
 package sh.cody.string.interpolate;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * Command shell-style implementation of the {@link StringInterpolator}
  * interface. This implementation interpolates values into strings in a similar
@@ -16,6 +33,29 @@ package sh.cody.string.interpolate;
  * sh-style expressions may be enabled or disabled, respectively. Furthermore,
  * support for default values within sh-style expressions may be enabled or
  * disabled.
+ * <p>
+ * Recursive expansion may also be enabled at construction. In that mode, the
+ * values retrieved from the context and the default values of sh-style
+ * expressions are themselves interpolated before being substituted, and
+ * default values may contain nested sh-style expressions, e.g.
+ * {@code ${A:${B}}}. Each variable is expanded at most once per
+ * interpolation; a variable whose expansion refers back to itself, or an
+ * expansion nested more deeply than the configured limit, causes an {@link
+ * IllegalArgumentException}.
+ * <p>
+ * Filters may also be registered at construction. In that case, the name of
+ * an sh-style variable may be followed by a pipeline of filter names, each
+ * preceded by {@code |}, e.g. {@code ${TOKEN|hex}} or {@code
+ * ${NAME|url:anonymous}}. The filters are applied in order to the value or
+ * default value before it is substituted; an unmatched expression without a
+ * default value is reproduced with its filters, unfiltered.
+ * <p>
+ * The delimiters of both styles are those of {@link Syntax#shell()} unless
+ * another {@link Syntax} is specified at construction, so that other
+ * dialects, e.g. {@code #{NAME}}, <code>{{NAME}}</code> or {@code @NAME@},
+ * are interpolated with the same semantics. The syntax may also allow
+ * characters other than letters and digits in the names of DOS-style
+ * expressions, e.g. {@code %PROGRAM_FILES%}.
  *
  * @implNote This implementation is designed to perform a majority of its
  * parsing in a single pass. This results in significantly improved throughput
@@ -25,38 +65,46 @@ package sh.cody.string.interpolate;
  */
 public class ShellStyleStringInterpolator implements StringInterpolator {
   /**
-   * The character used to indicate the beginning and end of a DOS-style
-   * variable expressions.
+   * The number of characters read at a time when interpolating a stream.
    */
-  private static final char DOS_EXPRESSION_BORDER = '%';
+  private static final int STREAM_BUFFER_SIZE = 8192;
 
   /**
-   * The character used to indicate the beginning of an sh-style variable.
+   * The largest number of bytes of a file mapped at a time.
    */
-  private static final char SH_SENTINEL = '$';
+  private static final int FILE_WINDOW_LENGTH = Integer.MAX_VALUE;
 
   /**
-   * The character used to indicate that the next sh-style sentinel is to be
-   * parsed as the raw character without variable expression substitution.
+   * The number of bytes at the end of a window of a file, other than the
+   * last, which are only interpolated if they belong to an expression or
+   * escape sequence beginning before them; the following window begins after
+   * that expression or escape sequence.
    */
-  private static final char SH_ESCAPE = '\\';
+  private static final int FILE_WINDOW_OVERLAP = 1 << 30;
 
   /**
-   * The character used to indicate the beginning of an sh-style variable
-   * expression.
+   * The least number of characters in each chunk of a string interpolated in
+   * parallel.
    */
-  private static final char SH_EXPRESSION_OPENER = '{';
+  private static final int PARALLEL_CHUNK_LENGTH = 1 << 16;
 
   /**
-   * The character used to indicate the end of an sh-style variable expression.
+   * The number of chunks into which a string interpolated in parallel is
+   * divided for each thread of the pool, so that threads which finish early
+   * may steal the remaining chunks.
    */
-  private static final char SH_EXPRESSION_CLOSER = '}';
+  private static final int PARALLEL_CHUNKS_PER_THREAD = 4;
 
   /**
-   * The character used to delimit the variable name and default value within
-   * an sh-style variable expression.
+   * The greatest length of a string which may be allocated, allowing for the
+   * header words some virtual machines reserve in an array.
    */
-  private static final char SH_EXPRESSION_DEFAULT_VALUE_SEPARATOR = ':';
+  private static final int MAX_STRING_LENGTH = Integer.MAX_VALUE - 8;
+
+  /**
+   * The syntax of the expressions interpolated by this object.
+   */
+  private final Syntax syntax;
 
   /**
    * Whether DOS-style variables are supported.
@@ -73,6 +121,18 @@ public class ShellStyleStringInterpolator implements StringInterpolator {
    */
   private final boolean supportSh;
 
+  /**
+   * The maximum depth to which values are recursively expanded, or zero if
+   * values are not recursively expanded.
+   */
+  private final int maxRecursionDepth;
+
+  /**
+   * The filters which may be named in sh-style variable expressions, keyed by
+   * name, or {@code null} if filters are not supported.
+   */
+  private final Map<String, ValueFilter> filters;
+
   /**
    * Constructs a new {@link ShellStyleStringInterpolator}.
    * <p>
@@ -134,14 +194,148 @@ public class ShellStyleStringInterpolator implements StringInterpolator {
   public ShellStyleStringInterpolator(final boolean shEnable,
                                       final boolean shAllowDefaults,
                                       final boolean dosEnable) {
-    this.supportDos = dosEnable;
+    this(shEnable, shAllowDefaults, dosEnable, 0);
+  }
+
+  /**
+   * Constructs a new {@link ShellStyleStringInterpolator}.
+   * <p>
+   * The constructed {@link StringInterpolator} conditionally supports
+   * interpolating DOS-style variables and sh-style variables, as with {@link
+   * #ShellStyleStringInterpolator(boolean, boolean, boolean)}. Additionally,
+   * when {@code maxRecursionDepth} is positive, values and default values are
+   * recursively expanded, up to {@code maxRecursionDepth} expansions deep.
+   *
+   * @param shEnable          whether sh-style variables should be interpolated
+   * @param shAllowDefaults   whether default values should be interpreted in
+   *                          sh-style variables.
+   * @param dosEnable         whether DOS-style variables should be interpolated
+   * @param maxRecursionDepth the maximum depth to which values are recursively
+   *                          expanded, or zero if values should not be
+   *                          recursively expanded
+   *
+   * @throws IllegalArgumentException when maxRecursionDepth is negative
+   */
+  public ShellStyleStringInterpolator(final boolean shEnable,
+                                      final boolean shAllowDefaults,
+                                      final boolean dosEnable,
+                                      final int maxRecursionDepth) {
+    this(shEnable, shAllowDefaults, dosEnable, maxRecursionDepth, null);
+  }
+
+  /**
+   * Constructs a new {@link ShellStyleStringInterpolator}.
+   * <p>
+   * The constructed {@link StringInterpolator} behaves as with {@link
+   * #ShellStyleStringInterpolator(boolean, boolean, boolean, int)}, and
+   * additionally supports filter pipelines in sh-style variables. The names
+   * of sh-style variables may then not contain {@code |}.
+   *
+   * @param shEnable          whether sh-style variables should be interpolated
+   * @param shAllowDefaults   whether default values should be interpreted in
+   *                          sh-style variables.
+   * @param dosEnable         whether DOS-style variables should be interpolated
+   * @param maxRecursionDepth the maximum depth to which values are recursively
+   *                          expanded, or zero if values should not be
+   *                          recursively expanded
+   * @param filters           the filters which may be named in sh-style
+   *                          variables, keyed by name, e.g. {@link
+   *                          ValueFilter#builtins()}
+   *
+   * @throws IllegalArgumentException when maxRecursionDepth is negative
+   */
+  public ShellStyleStringInterpolator(final boolean shEnable,
+                                      final boolean shAllowDefaults,
+                                      final boolean dosEnable,
+                                      final int maxRecursionDepth,
+                                      final Map<String, ValueFilter> filters) {
+    this(
+      Syntax.shell(), shEnable, shAllowDefaults, dosEnable, maxRecursionDepth,
+      filters
+    );
+  }
+
+  /**
+   * Constructs a new {@link ShellStyleStringInterpolator} interpolating the
+   * expressions of the specified syntax.
+   * <p>
+   * The enclosed expressions of the syntax take the place of sh-style
+   * variables, and its bordered expressions take the place of DOS-style
+   * variables; each style is supported if the syntax has the corresponding
+   * form. The constructed {@link StringInterpolator} otherwise behaves as
+   * with {@link #ShellStyleStringInterpolator(boolean, boolean, boolean, int,
+   * Map)}.
+   *
+   * @param syntax            the syntax of the interpolated expressions, e.g.
+   *                          {@link Syntax#shell()}
+   * @param shAllowDefaults   whether default values should be interpreted in
+   *                          enclosed expressions
+   * @param maxRecursionDepth the maximum depth to which values are recursively
+   *                          expanded, or zero if values should not be
+   *                          recursively expanded
+   * @param filters           the filters which may be named in enclosed
+   *                          expressions, keyed by name, or {@code null} if
+   *                          filters are not supported
+   *
+   * @throws IllegalArgumentException when maxRecursionDepth is negative
+   */
+  public ShellStyleStringInterpolator(final Syntax syntax,
+                                      final boolean shAllowDefaults,
+                                      final int maxRecursionDepth,
+                                      final Map<String, ValueFilter> filters) {
+    this(
+      syntax, syntax.hasEnclosedForm(), shAllowDefaults,
+      syntax.hasBorderedForm(), maxRecursionDepth, filters
+    );
+  }
+
+  /**
+   * Constructs a new {@link ShellStyleStringInterpolator}.
+   *
+   * @param syntax            the syntax of the interpolated expressions
+   * @param shEnable          whether enclosed expressions should be
+   *                          interpolated, if the syntax has them
+   * @param shAllowDefaults   whether default values should be interpreted in
+   *                          enclosed expressions
+   * @param dosEnable         whether bordered expressions should be
+   *                          interpolated, if the syntax has them
+   * @param maxRecursionDepth the maximum depth to which values are recursively
+   *                          expanded, or zero if values should not be
+   *                          recursively expanded
+   * @param filters           the filters which may be named in enclosed
+   *                          expressions, keyed by name, or {@code null} if
+   *                          filters are not supported
+   *
+   * @throws IllegalArgumentException when maxRecursionDepth is negative
+   */
+  private ShellStyleStringInterpolator(
+    final Syntax syntax,
+    final boolean shEnable,
+    final boolean shAllowDefaults,
+    final boolean dosEnable,
+    final int maxRecursionDepth,
+    final Map<String, ValueFilter> filters
+  ) {
+    if (maxRecursionDepth < 0) {
+      throw new IllegalArgumentException(
+        "maxRecursionDepth must not be negative"
+      );
+    }
+
+    this.syntax = syntax;
+    this.supportDos = dosEnable && syntax.hasBorderedForm();
     this.supportShDefaults = shAllowDefaults;
-    this.supportSh = shEnable;
+    this.supportSh = shEnable && syntax.hasEnclosedForm();
+    this.maxRecursionDepth = maxRecursionDepth;
+    this.filters = filters == null ? null : Map.copyOf(filters);
   }
 
   /**
    *  Interpolates values from the specified context into the specified string
    *  using shell-style variable substitution semantics.
+   *  <p>
+   *  When the string contains no character which may begin an expression or
+   *  an escape sequence, the string itself is returned without being copied.
    *
    * @param string  the string to be interpolated
    * @param context the context from which interpolated values will be retrieved
@@ -152,306 +346,1162 @@ public class ShellStyleStringInterpolator implements StringInterpolator {
   @Override
   public String interpolate(final String string,
                             final Context context) {
-    final StringBuilder substituted = new StringBuilder(string.length() * 2);
-    final StringBuilder escapeBuffer = new StringBuilder(1);
     final int length = string.length();
-    int parserIndex = 0;
-
-    while (parserIndex < length) {
-      final char ch = string.charAt(parserIndex);
+    final int sentinelIndex = indexOfSentinel(string, 0);
 
-      if (escapeBuffer.length() > 0) {
-        if (ch != SH_SENTINEL) {
-          substituted.append(escapeBuffer);
-        }
+    if (sentinelIndex == length) {
+      return string;
+    }
 
-        escapeBuffer.setLength(0);
-        substituted.append(ch);
-      } else if (ch == DOS_EXPRESSION_BORDER && this.supportDos) {
-        parserIndex = parseDosStyle(
-          substituted, string, parserIndex, context
-        );
+    final StringBuilder substituted = new StringBuilder(length * 2);
+    substituted.append(string, 0, sentinelIndex);
+    parse(string, sentinelIndex, newRenderer(substituted, context));
+    return substituted.toString();
+  }
 
-        continue;
-      } else if (ch == SH_SENTINEL && this.supportSh) {
-        parserIndex = parseShStyle(
-          substituted, string, parserIndex, context
-        );
+  /**
+   * Interpolates values from the specified context into the specified template
+   * using shell-style variable substitution semantics, appending the result
+   * directly to the specified destination.
+   *
+   * @param template    the template to be interpolated
+   * @param context     the context from which interpolated values will be
+   *                    retrieved
+   * @param destination the destination to which the interpolated template is
+   *                    appended
+   * @param <A>         the type of the destination
+   *
+   * @throws UncheckedIOException when the destination throws an
+   * {@link IOException}
+   *
+   * @return the destination
+   */
+  @Override
+  public <A extends Appendable> A interpolateTo(final CharSequence template,
+                                                final Context context,
+                                                final A destination) {
+    final int length = template.length();
+    final int sentinelIndex = indexOfSentinel(template, 0);
 
-        continue;
-      } else if (ch == SH_ESCAPE && this.supportSh) {
-        escapeBuffer.append(ch);
-      } else {
-        substituted.append(ch);
-      }
+    try {
+      destination.append(template, 0, sentinelIndex);
+    } catch (final IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
 
-      ++parserIndex;
+    if (sentinelIndex < length) {
+      parse(template, sentinelIndex, newRenderer(destination, context));
     }
 
-    return substituted.append(escapeBuffer).toString();
+    return destination;
   }
 
   /**
-   * Parses a DOS-style variable expression.
+   * Parses the specified string into a {@link Template} which may be rendered
+   * repeatedly without parsing the string again.
+   * <p>
+   * Rendering the returned template with a given context produces the same
+   * result as interpolating the specified string with that context using this
+   * object.
    *
-   * @param destination the destination buffer for the parsed expression
-   * @param string      the source buffer
-   * @param startIndex  the starting index of the DOS-style expression, the
-   *                    index of the initial {@code %} character
-   * @param context     the context used to look up the value to interpolate
+   * @param string the string to be parsed
    *
-   * @throws IndexOutOfBoundsException when startIndex is out of the source
-   * buffer's bounds
+   * @return the parsed template
+   */
+  public Template compile(final String string) {
+    final TemplateBuilder builder = new TemplateBuilder(this.syntax);
+    parse(string, 0, builder);
+    return builder.build(string, this.maxRecursionDepth > 0 ? this : null);
+  }
+
+  /**
+   * Interpolates values from the specified context into the specified UTF-8
+   * encoded template, producing UTF-8 encoded output.
+   * <p>
+   * The template is parsed directly as bytes, with the same semantics as
+   * {@link #interpolate(String, Context)}; only variable names and the values
+   * substituted for them are transcoded. Literal text, including any byte
+   * sequence which is not well-formed UTF-8, is copied verbatim.
    *
-   * @throws IllegalArgumentException when the character at the startIndex in
-   * the source buffer is not a DOS-style expression border character ({@code
-   * %})
+   * @param template the UTF-8 encoded template to be interpolated
+   * @param context  the context from which interpolated values will be
+   *                 retrieved
    *
-   * @return the index of the position in the source buffer immediately after
-   * the parsed expression
+   * @return a new array holding the UTF-8 encoded interpolated template
    */
-  private int parseDosStyle(final StringBuilder destination,
-                            final String string,
-                            final int startIndex,
-                            final Context context) {
-    final int length = string.length();
+  public byte[] interpolateUtf8(final byte[] template, final Context context) {
+    final ByteBuffer buffer = ByteBuffer.wrap(template);
+    return interpolateUtf8(buffer, 0, template.length, context).toByteArray();
+  }
 
-    if (startIndex >= length) {
-      throw new IndexOutOfBoundsException("startIndex");
-    } else if (string.charAt(startIndex) != DOS_EXPRESSION_BORDER) {
+  /**
+   * Interpolates values from the specified context into the UTF-8 encoded
+   * template between the position and the limit of the specified buffer,
+   * producing UTF-8 encoded output. The position of the buffer is not changed.
+   * <p>
+   * The template is parsed directly as bytes, with the same semantics as
+   * {@link #interpolate(String, Context)}; only variable names and the values
+   * substituted for them are transcoded. Literal text, including any byte
+   * sequence which is not well-formed UTF-8, is copied verbatim.
+   *
+   * @param template the buffer holding the UTF-8 encoded template to be
+   *                 interpolated
+   * @param context  the context from which interpolated values will be
+   *                 retrieved
+   *
+   * @return a new buffer holding the UTF-8 encoded interpolated template,
+   * positioned at its first byte
+   */
+  public ByteBuffer interpolateUtf8(final ByteBuffer template,
+                                    final Context context) {
+    return interpolateUtf8(
+      template, template.position(), template.remaining(), context
+    ).toByteBuffer();
+  }
+
+  /**
+   * Interpolates values from the specified context into the specified range of
+   * UTF-8 encoded bytes.
+   *
+   * @param template the buffer holding the template, read with absolute
+   *                 indexes
+   * @param offset   the index of the first byte of the template
+   * @param length   the number of bytes in the template
+   * @param context  the context from which interpolated values will be
+   *                 retrieved
+   *
+   * @return the output holding the interpolated template
+   */
+  private Utf8Output interpolateUtf8(final ByteBuffer template,
+                                     final int offset,
+                                     final int length,
+                                     final Context context) {
+    final Utf8Output destination = new Utf8Output(length + length / 2);
+    interpolateUtf8(
+      new Utf8Bytes(template, offset, length), context, destination
+    );
+    return destination;
+  }
+
+  /**
+   * Interpolates values from the specified context into the specified UTF-8
+   * encoded template, appending the result to the specified destination.
+   *
+   * @param template    the template to be interpolated
+   * @param context     the context from which interpolated values will be
+   *                    retrieved
+   * @param destination the destination for the interpolated template
+   */
+  private void interpolateUtf8(final Utf8Bytes template,
+                               final Context context,
+                               final Utf8Output destination) {
+    final int length = template.length();
+    final int sentinelIndex = indexOfSentinel(template, 0);
+
+    template.copyTo(0, sentinelIndex, destination);
+
+    if (sentinelIndex < length) {
+      parse(
+        template,
+        sentinelIndex,
+        new Utf8Renderer(
+          this.syntax,
+          destination,
+          context,
+          this.maxRecursionDepth > 0 ? new Expansion(context) : null
+        )
+      );
+    }
+  }
+
+  /**
+   * Interpolates values from the specified context into the UTF-8 encoded
+   * template held by the specified source file, writing the UTF-8 encoded
+   * result to the specified target file, which is created or truncated.
+   * <p>
+   * The source file is memory-mapped and parsed in place, with the same
+   * semantics as {@link #interpolateUtf8(byte[], Context)}. Long runs of text
+   * between expressions are handed to {@link FileChannel#transferTo(long,
+   * long, java.nio.channels.WritableByteChannel)}, so that the operating
+   * system may copy them between the files directly; only the expressions are
+   * rendered on the heap. This makes templating large files in which
+   * expressions are sparse substantially cheaper than reading the file into a
+   * string.
+   *
+   * @implNote A source file too large to be mapped as a single buffer, more
+   * than {@link Integer#MAX_VALUE} bytes, is mapped and interpolated in
+   * windows which overlap by a gigabyte. Each window but the last ends after
+   * the last expression or escape sequence beginning before the overlap,
+   * found by parsing the window without rendering it, and the next window
+   * begins there; so every window is interpolated exactly as the same bytes
+   * would be within a single mapping.
+   *
+   * @param source  the file holding the template to be interpolated
+   * @param target  the file to which the interpolated template is written
+   * @param context the context from which interpolated values will be
+   *                retrieved
+   *
+   * @throws IOException when either file cannot be read or written, or when
+   * an expression in a source file too large to be mapped as a single buffer
+   * spans more than a gigabyte
+   * @throws IllegalArgumentException when the source and target are the same
+   * file
+   */
+  public void interpolate(final Path source,
+                          final Path target,
+                          final Context context) throws IOException {
+    if (Files.exists(target) && Files.isSameFile(source, target)) {
       throw new IllegalArgumentException(
-        "startIndex must be positioned on a DOS-style variable expression" +
-        "border character. ('%')"
+        "source and target must not be the same file"
       );
     }
 
-    final StringBuilder variableNameBuffer = new StringBuilder(length / 2);
-    int parserIndex = startIndex + 1;
+    try (
+      final FileChannel input =
+        FileChannel.open(source, StandardOpenOption.READ);
+      final FileChannel output = FileChannel.open(
+        target,
+        StandardOpenOption.WRITE,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING
+      )
+    ) {
+      final long size = input.size();
+      final FileTransferOutput destination =
+        new FileTransferOutput(input, output);
+      long position = 0;
 
-    while (parserIndex < length) {
-      final char ch = string.charAt(parserIndex);
+      do {
+        final int windowLength =
+          (int) Math.min(size - position, FILE_WINDOW_LENGTH);
+        final MappedByteBuffer mapped =
+          input.map(FileChannel.MapMode.READ_ONLY, position, windowLength);
+        Utf8Bytes window = new Utf8Bytes(mapped, 0, windowLength);
 
-      if (ch == DOS_EXPRESSION_BORDER) {
-        if (variableNameBuffer.length() > 0) {
-          final String value = context.get(variableNameBuffer.toString());
+        if (position + windowLength < size) {
+          final int windowEnd = parse(
+            window, 0, windowLength - FILE_WINDOW_OVERLAP, new Discarder()
+          );
 
-          if (value == null) {
-            destination
-              .append(DOS_EXPRESSION_BORDER)
-              .append(variableNameBuffer)
-              .append(DOS_EXPRESSION_BORDER);
-          } else {
-            destination.append(value);
+          // an expression reaching the end of the window may continue past
+          // it, and cannot be interpolated within any window
+          if (windowEnd == windowLength) {
+            throw new IOException(
+              "expression beginning before byte " +
+              (position + windowLength - FILE_WINDOW_OVERLAP) + " of " +
+              source + " is too long to be interpolated"
+            );
           }
-        } else {
-          destination.append(DOS_EXPRESSION_BORDER);
+
+          window = window.subSequence(0, windowEnd);
         }
 
-        return parserIndex + 1;
-      } else if (!Character.isLetterOrDigit(ch)) {
-        destination
-          .append(DOS_EXPRESSION_BORDER)
-          .append(variableNameBuffer);
+        destination.setSourcePosition(position);
 
-        return parserIndex;
-      } else {
-        variableNameBuffer.append(ch);
-      }
+        try {
+          interpolateUtf8(window, context, destination);
+          destination.flush();
+        } catch (final UncheckedIOException exception) {
+          throw exception.getCause();
+        }
 
-      ++parserIndex;
+        position += window.length();
+      } while (position < size);
     }
+  }
 
-    destination
-      .append(DOS_EXPRESSION_BORDER)
-      .append(variableNameBuffer);
+  /**
+   * Interpolates values from the specified context into the specified string,
+   * fetching the values of every variable referred to by the string up front
+   * with a single invocation of {@link Context#getAll(java.util.Set)}.
+   * <p>
+   * The result is the same as that of {@link #interpolate(String, Context)},
+   * but a context backed by a costly store is consulted once rather than once
+   * per expression.
+   *
+   * @param string  the string to be interpolated
+   * @param context the context from which interpolated values will be retrieved
+   *
+   * @return the string interpolated using shell-style variable substitution
+   * semantics
+   */
+  public String interpolatePrefetched(final String string,
+                                      final Context context) {
+    if (indexOfSentinel(string, 0) == string.length()) {
+      return string;
+    }
 
-    return parserIndex;
+    return compile(string).renderPrefetched(context);
   }
 
   /**
-   * Parses a sh-style variable expression.
+   * Interpolates values from the specified context into the specified string,
+   * dividing the work among the threads of the common fork/join pool.
    *
-   * @param destination the destination buffer for the parsed expression
-   * @param string      the source buffer
-   * @param startIndex  the starting index of the sh-style expression, the
-   *                    index of the initial {@code $} character
-   * @param context     the context used to look up the value to interpolate
+   * @param string  the string to be interpolated
+   * @param context the context from which interpolated values will be
+   *                retrieved; it must be safe for use by many threads
    *
-   * @throws IndexOutOfBoundsException when startIndex is out of the source
-   * buffer's bounds
+   * @return the string interpolated using shell-style variable substitution
+   * semantics
    *
-   * @throws IllegalArgumentException when the character at the startIndex in
-   * the source buffer is not a sh-style expression sentinel character ({@code
-   * $})
+   * @see #interpolateParallel(String, Context, ForkJoinPool)
+   */
+  public String interpolateParallel(final String string,
+                                    final Context context) {
+    return interpolateParallel(string, context, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Interpolates values from the specified context into the specified string,
+   * dividing the work among the threads of the specified fork/join pool.
+   * <p>
+   * The string is divided into chunks at indexes which lie outside of any
+   * expression or escape sequence, and the chunks are interpolated
+   * concurrently, so the result is identical to that of {@link
+   * #interpolate(String, Context)}. When an interpolation fails, the
+   * exception thrown is that of the earliest failing chunk, as it would be
+   * were the string interpolated sequentially. A string too short to be
+   * worth dividing is interpolated on the calling thread.
    *
-   * @return the index of the position in the source buffer immediately after
-   * the parsed expression
+   * @implNote The indexes at which the string is divided are found by a
+   * sequential pre-scan which parses the string without looking up or
+   * rendering anything; between expressions, it skips literal text as
+   * quickly as interpolation itself does. Each chunk is then rendered from
+   * the string in place, without being copied, into a buffer of its own; the
+   * buffers are finally concatenated into a single buffer sized to hold them
+   * exactly.
+   *
+   * @param string  the string to be interpolated
+   * @param context the context from which interpolated values will be
+   *                retrieved; it must be safe for use by many threads
+   * @param pool    the pool in which the chunks are interpolated
+   *
+   * @return the string interpolated using shell-style variable substitution
+   * semantics
    */
-  private int parseShStyle(final StringBuilder destination,
-                           final String string,
-                           final int startIndex,
-                           final Context context) {
-    final int length = string.length();
+  public String interpolateParallel(final String string,
+                                    final Context context,
+                                    final ForkJoinPool pool) {
+    Objects.requireNonNull(pool);
 
-    if (startIndex >= length) {
-      throw new IndexOutOfBoundsException("startIndex");
-    } else if (string.charAt(startIndex) != SH_SENTINEL) {
-      throw new IllegalArgumentException(
-        "startIndex must be positioned on an sh-style variable expression " +
-        "sentinel character. ('$')"
-      );
-    } else if (startIndex + 1 >= length) {
-      destination.append(SH_SENTINEL);
-      return startIndex + 1;
-    } else {
-      final char ch = string.charAt(startIndex + 1);
+    final int length = string.length();
+    final int chunkCount = Math.min(
+      length / PARALLEL_CHUNK_LENGTH,
+      pool.getParallelism() * PARALLEL_CHUNKS_PER_THREAD
+    );
 
-      if (ch != SH_EXPRESSION_OPENER) {
-        destination.append(SH_SENTINEL).append(ch);
-        return startIndex + 2;
-      }
+    if (chunkCount <= 1) {
+      return interpolate(string, context);
     }
 
-    final int halfLength = length / 2;
-    final StringBuilder variableNameBuffer = new StringBuilder(halfLength);
-    final StringBuilder escapeBuffer = new StringBuilder(1);
-    StringBuilder defaultValueBuffer = null;
-    int parserIndex = startIndex + 2;
+    // bounds[i] is the index of the first character of chunk i
+    final int[] bounds = new int[chunkCount + 1];
+    final ExpressionVisitor discarder = new Discarder();
+    int count = 0;
 
-    while (parserIndex < length) {
-      final char ch = string.charAt(parserIndex);
+    for (int i = 1; i < chunkCount && bounds[count] < length; ++i) {
+      final int target = (int) ((long) length * i / chunkCount);
+
+      // an expression may extend past any number of targets
+      if (target > bounds[count]) {
+        final int bound = parse(string, bounds[count], target, discarder);
 
-      if (escapeBuffer.length() > 0) {
-        if (ch != SH_EXPRESSION_DEFAULT_VALUE_SEPARATOR) {
-          variableNameBuffer.append(escapeBuffer);
+        if (bound < length) {
+          bounds[++count] = bound;
         }
+      }
+    }
 
-        escapeBuffer.setLength(0);
-        variableNameBuffer.append(ch);
-      } else if (ch == SH_EXPRESSION_CLOSER) {
-        final String name = variableNameBuffer.toString().trim();
-        variableNameBuffer.setLength(0);
-        variableNameBuffer.trimToSize();
-        final String value = context.get(name);
+    bounds[++count] = length;
 
-        if (value == null) {
-          if (defaultValueBuffer == null) {
-            destination
-              .append(SH_SENTINEL)
-              .append(SH_EXPRESSION_OPENER)
-              .append(name)
-              .append(SH_EXPRESSION_CLOSER);
-          } else {
-            destination.append(defaultValueBuffer);
-          }
-        } else {
-          destination.append(value);
-        }
+    final StringBuilder[] chunks = new StringBuilder[count];
+    final RuntimeException[] failures = new RuntimeException[count];
 
-        if (defaultValueBuffer != null) {
-          defaultValueBuffer.setLength(0);
-          defaultValueBuffer.trimToSize();
-        }
+    pool.invoke(new ChunkInterpolation(
+      string, context, bounds, chunks, failures, 0, count, null
+    ));
 
-        return parserIndex + 1;
-      } else if (ch == SH_EXPRESSION_DEFAULT_VALUE_SEPARATOR && supportShDefaults) {
-        defaultValueBuffer = new StringBuilder(halfLength);
-        parserIndex = parseShStyleDefaultValue(
-          defaultValueBuffer, string, parserIndex
-        );
-        continue;
-      } else if (ch == SH_ESCAPE) {
-        escapeBuffer.append(ch);
-      } else {
-        variableNameBuffer.append(ch);
+    long interpolatedLength = 0;
+
+    for (int i = 0; i < count; ++i) {
+      if (failures[i] != null) {
+        throw failures[i];
       }
 
-      ++parserIndex;
+      interpolatedLength += chunks[i].length();
+    }
+
+    if (interpolatedLength > MAX_STRING_LENGTH) {
+      throw new OutOfMemoryError(
+        "Interpolated length " + interpolatedLength + " exceeds the limit"
+      );
     }
 
-    destination
-      .append(SH_SENTINEL)
-      .append(SH_EXPRESSION_OPENER)
-      .append(variableNameBuffer)
-      .append(escapeBuffer);
+    final StringBuilder interpolated =
+      new StringBuilder((int) interpolatedLength);
 
-    if (defaultValueBuffer != null) {
-      destination.append(defaultValueBuffer);
+    for (int i = 0; i < count; ++i) {
+      interpolated.append(chunks[i]);
+      chunks[i] = null;
     }
 
-    return parserIndex;
+    return interpolated.toString();
   }
 
   /**
-   * Parses a sh-style variable expression's default value.
+   * Constructs a {@link Renderer} which interpolates into the specified
+   * destination, recursively expanding values if this object is configured to
+   * do so.
    *
-   * @param destination the destination buffer for the parsed value
-   * @param string      the source buffer
-   * @param startIndex  the starting index of the default value expression, the
-   *                    index of the separating {@code :} character
+   * @param destination the destination for the interpolated string
+   * @param context     the context used to look up the values to interpolate
    *
-   * @throws IndexOutOfBoundsException when startIndex is out of the source
-   * buffer's bounds
+   * @return the renderer
+   */
+  private Renderer newRenderer(final Appendable destination,
+                               final Context context) {
+    return new Renderer(
+      this.syntax, destination, context,
+      this.maxRecursionDepth > 0 ? new Expansion(context) : null
+    );
+  }
+
+  /**
+   * Interpolates values from the specified context into the characters read
+   * from the specified reader using shell-style variable substitution
+   * semantics, writing the interpolated characters to the specified writer.
+   * <p>
+   * The characters written are identical to those of the string returned by
+   * {@link #interpolate(String, Context)} for a string composed of every
+   * character read. Neither the reader nor the writer is closed.
    *
-   * @throws IllegalArgumentException when the character at the startIndex in
-   * the source buffer is not a sh-style expression separating character ({@code
-   * :})
+   * @implNote Characters are processed in fixed-size blocks by a state machine
+   * which retains only the text of the expression being parsed between
+   * blocks, so that expressions may span block boundaries. Literal text is
+   * written directly from the block in which it is read. Memory use is
+   * therefore bounded by the length of the longest expression rather than the
+   * length of the input.
    *
-   * @return the index of the position in the source buffer immediately after
-   * the parsed expression
+   * @param reader  the reader from which the characters to be interpolated
+   *                are read
+   * @param writer  the writer to which the interpolated characters are written
+   * @param context the context from which interpolated values will be retrieved
+   *
+   * @throws IOException when an I/O error occurs reading from the reader or
+   * writing to the writer
    */
-  private int parseShStyleDefaultValue(final StringBuilder destination,
-                                       final String string,
-                                       final int startIndex) {
-    final int length = string.length();
+  public void interpolate(final Reader reader,
+                          final Writer writer,
+                          final Context context) throws IOException {
+    final char[] buffer = new char[STREAM_BUFFER_SIZE];
+    final StringBuilder expression = new StringBuilder();
+    final Renderer renderer = newRenderer(writer, context);
+    final Syntax syntax = this.syntax;
+    StreamState state = StreamState.TEXT;
+    int defaultValueDepth = 0;
+    // the index in the expression buffer at which a closer may next begin
+    int closerIndex = 0;
+    int read;
 
-    if (startIndex >= length) {
-      throw new IndexOutOfBoundsException("startIndex");
-    } else if (string.charAt(startIndex) != SH_EXPRESSION_DEFAULT_VALUE_SEPARATOR) {
-      throw new IllegalArgumentException(
-        "startIndex must be positioned on an sh-style variable expression " +
-        "default value separator character. (':')"
-      );
-    }
+    while ((read = reader.read(buffer)) != -1) {
+      int literalIndex = 0;
+      int parserIndex = 0;
 
-    final int halfLength = length / 2;
-    final StringBuilder defaultValueBuffer = new StringBuilder(halfLength);
-    int parseIndex = startIndex + 1;
-    boolean escaped = false;
+      while (parserIndex < read) {
+        final char ch = buffer[parserIndex];
 
-    while (parseIndex < length) {
-      final char ch = string.charAt(parseIndex);
+        switch (state) {
+          case TEXT:
+            if (!isSentinel(ch)) {
+              ++parserIndex;
+              continue;
+            }
 
-      if (escaped) {
-        if (ch != SH_EXPRESSION_OPENER && ch != SH_EXPRESSION_CLOSER) {
-          defaultValueBuffer.append(SH_ESCAPE);
+            writer.write(buffer, literalIndex, parserIndex - literalIndex);
+
+            final int type = syntax.classOf(ch);
+
+            if (type == Syntax.ESCAPE) {
+              state = StreamState.ESCAPE;
+            } else {
+              expression.append(ch);
+              state = type == Syntax.SENTINEL ? StreamState.SH_SENTINEL :
+                                                StreamState.DOS_NAME;
+            }
+            break;
+          case ESCAPE:
+            if (ch != syntax.sentinel()) {
+              writer.write(syntax.escape());
+            }
+
+            writer.write(ch);
+            state = StreamState.TEXT;
+            break;
+          case DOS_NAME:
+            if (ch == syntax.border()) {
+              expression.append(ch);
+              state = StreamState.TEXT;
+            } else if (syntax.isNameCharacter(ch)) {
+              expression.append(ch);
+            } else {
+              // the character terminating the expression is not a part of it
+              writeExpression(expression, renderer);
+              literalIndex = parserIndex;
+              state = StreamState.TEXT;
+              continue;
+            }
+            break;
+          case SH_SENTINEL:
+            expression.append(ch);
+            state = ch == syntax.opener() ? StreamState.SH_NAME :
+                                            StreamState.TEXT;
+            closerIndex = expression.length();
+            break;
+          case SH_NAME:
+            expression.append(ch);
+
+            if (syntax.closesBefore(expression, closerIndex)) {
+              state = StreamState.TEXT;
+            } else if (ch == syntax.defaultValueSeparator() &&
+                       this.supportShDefaults) {
+              state = StreamState.SH_DEFAULT_VALUE;
+            } else if (ch == syntax.escape()) {
+              state = StreamState.SH_NAME_ESCAPE;
+            }
+            break;
+          case SH_NAME_ESCAPE:
+            expression.append(ch);
+            closerIndex = expression.length();
+            state = StreamState.SH_NAME;
+            break;
+          case SH_DEFAULT_VALUE:
+            expression.append(ch);
+
+            if (syntax.closesBefore(expression, closerIndex)) {
+              if (defaultValueDepth == 0) {
+                state = StreamState.TEXT;
+              } else {
+                --defaultValueDepth;
+                closerIndex = expression.length();
+              }
+            } else if (ch == syntax.escape()) {
+              state = StreamState.SH_DEFAULT_VALUE_ESCAPE;
+            } else if (ch == syntax.sentinel() && this.maxRecursionDepth > 0) {
+              state = StreamState.SH_DEFAULT_VALUE_SENTINEL;
+            }
+            break;
+          case SH_DEFAULT_VALUE_SENTINEL:
+            state = StreamState.SH_DEFAULT_VALUE;
+
+            if (ch != syntax.opener()) {
+              // the character is not a part of a nested expression's opening
+              continue;
+            }
+
+            expression.append(ch);
+            closerIndex = expression.length();
+            ++defaultValueDepth;
+            break;
+          case SH_DEFAULT_VALUE_ESCAPE:
+            expression.append(ch);
+            closerIndex = expression.length();
+            state = StreamState.SH_DEFAULT_VALUE;
+            break;
         }
 
-        defaultValueBuffer.append(ch);
+        ++parserIndex;
 
-        escaped = false;
-      } else if (ch == SH_EXPRESSION_CLOSER) {
-        destination.append(defaultValueBuffer);
-        return parseIndex;
-      } else if (ch == SH_ESCAPE) {
-        escaped = true;
-      } else {
-        defaultValueBuffer.append(ch);
+        if (state == StreamState.TEXT) {
+          if (expression.length() > 0) {
+            writeExpression(expression, renderer);
+          }
+
+          literalIndex = parserIndex;
+        }
       }
 
-      ++parseIndex;
+      if (state == StreamState.TEXT) {
+        writer.write(buffer, literalIndex, parserIndex - literalIndex);
+      }
     }
 
-    defaultValueBuffer.setLength(0);
-    defaultValueBuffer.trimToSize();
+    if (state == StreamState.ESCAPE) {
+      writer.write(syntax.escape());
+    } else if (expression.length() > 0) {
+      writeExpression(expression, renderer);
+    }
+  }
 
+  /**
+   * Interpolates a single buffered expression into the destination of the
+   * specified renderer, clearing the expression buffer.
+   *
+   * @param expression the buffered text of the expression, beginning with its
+   *                   sentinel character
+   * @param renderer   the renderer used to interpolate the expression
+   *
+   * @throws IOException when an I/O error occurs writing to the renderer's
+   * destination
+   */
+  private void writeExpression(final StringBuilder expression,
+                               final Renderer renderer) throws IOException {
     try {
-      destination.append(string, startIndex, parseIndex);
-    } catch (final IndexOutOfBoundsException ignored) {
-      // nothing to append, the default value expression is empty
+      parse(expression, 0, renderer);
+    } catch (final UncheckedIOException exception) {
+      throw exception.getCause();
     }
 
-    return parseIndex;
+    expression.setLength(0);
+  }
+
+  /**
+   * Parses the specified string, reporting its literal text and variable
+   * expressions to the specified visitor in the order in which they appear.
+   * <p>
+   * Runs of literal text between sentinel characters are found by a {@link
+   * SentinelScanner} and reported in bulk rather than one character at a
+   * time.
+   *
+   * @param string     the string to be parsed
+   * @param startIndex the index at which parsing begins
+   * @param visitor    the visitor to which the parsed string is reported
+   */
+  private void parse(final CharSequence string,
+                     final int startIndex,
+                     final ExpressionVisitor visitor) {
+    parse(string, startIndex, string.length(), visitor);
+  }
+
+  /**
+   * Parses the specified string up to the first index at or after the
+   * specified stop index which lies outside of any expression or escape
+   * sequence, reporting its literal text and variable expressions to the
+   * specified visitor in the order in which they appear.
+   * <p>
+   * Parsing begun at an index returned by this method reports the remainder
+   * of the string exactly as parsing the whole string would, so the string
+   * may be parsed in pieces delimited by such indexes.
+   *
+   * @param string     the string to be parsed
+   * @param startIndex the index at which parsing begins, which must lie
+   *                   outside of any expression or escape sequence
+   * @param stopIndex  the index at which parsing stops, unless it lies within
+   *                   an expression or escape sequence
+   * @param visitor    the visitor to which the parsed string is reported
+   *
+   * @return the index at which parsing stopped, the end of the last
+   * expression, escape sequence or run of literal text parsed
+   */
+  private int parse(final CharSequence string,
+                    final int startIndex,
+                    final int stopIndex,
+                    final ExpressionVisitor visitor) {
+    final int length = string.length();
+    final SentinelScanner scanner = new SentinelScanner(
+      string, this.syntax, this.supportDos, this.supportSh
+    );
+    int parserIndex = startIndex;
+
+    while (parserIndex < stopIndex) {
+      final int sentinelIndex = Math.min(scanner.next(parserIndex), stopIndex);
+
+      if (sentinelIndex > parserIndex) {
+        visitor.literal(string, parserIndex, sentinelIndex);
+        parserIndex = sentinelIndex;
+
+        if (parserIndex == stopIndex) {
+          break;
+        }
+      }
+
+      final int type = this.syntax.classOf(string.charAt(parserIndex));
+
+      if (type == Syntax.BORDER) {
+        parserIndex = parseDosStyle(visitor, string, parserIndex);
+      } else if (type == Syntax.SENTINEL) {
+        parserIndex = parseShStyle(visitor, string, parserIndex);
+      } else if (parserIndex + 1 < length) {
+        final char escaped = string.charAt(parserIndex + 1);
+
+        if (escaped != this.syntax.sentinel()) {
+          visitor.literal(this.syntax.escape());
+        }
+
+        visitor.literal(escaped);
+        parserIndex += 2;
+      } else {
+        visitor.literal(this.syntax.escape());
+        ++parserIndex;
+      }
+    }
+
+    return parserIndex;
+  }
+
+  /**
+   * Returns the index of the first sentinel character in the specified string
+   * at or after the specified index. The sentinel characters are those which
+   * begin a DOS-style expression, an sh-style expression, or an sh-style
+   * escape sequence, to the extent that each style is supported by this
+   * object.
+   *
+   * @param string     the string to be searched
+   * @param startIndex the index at which the search begins
+   *
+   * @return the index of the first sentinel character, or the length of the
+   * string if there is no such character
+   */
+  private int indexOfSentinel(final CharSequence string, final int startIndex) {
+    return new SentinelScanner(
+      string, this.syntax, this.supportDos, this.supportSh
+    ).next(startIndex);
+  }
+
+  /**
+   * Returns whether the specified character is a sentinel character, one which
+   * begins a DOS-style expression, an sh-style expression, or an sh-style
+   * escape sequence, to the extent that each style is supported by this
+   * object.
+   *
+   * @param ch the character
+   *
+   * @return whether the character is a sentinel character
+   */
+  private boolean isSentinel(final char ch) {
+    final int type = this.syntax.classOf(ch);
+    return type == Syntax.BORDER ? this.supportDos :
+           type != Syntax.NONE && this.supportSh;
+  }
+
+  /**
+   * Parses a DOS-style variable expression.
+   *
+   * @param visitor    the visitor to which the parsed expression is reported
+   * @param string     the source buffer
+   * @param startIndex the starting index of the DOS-style expression, the
+   *                   index of the initial {@code %} character
+   *
+   * @throws IndexOutOfBoundsException when startIndex is out of the source
+   * buffer's bounds
+   *
+   * @throws IllegalArgumentException when the character at the startIndex in
+   * the source buffer is not a DOS-style expression border character ({@code
+   * %})
+   *
+   * @return the index of the position in the source buffer immediately after
+   * the parsed expression
+   */
+  private int parseDosStyle(final ExpressionVisitor visitor,
+                            final CharSequence string,
+                            final int startIndex) {
+    final int length = string.length();
+
+    if (startIndex >= length) {
+      throw new IndexOutOfBoundsException("startIndex");
+    } else if (string.charAt(startIndex) != this.syntax.border()) {
+      throw new IllegalArgumentException(
+        "startIndex must be positioned on a DOS-style variable expression" +
+        "border character. ('" + this.syntax.border() + "')"
+      );
+    }
+
+    final int nameStartIndex = startIndex + 1;
+    int parserIndex = nameStartIndex;
+
+    while (parserIndex < length) {
+      final char ch = string.charAt(parserIndex);
+
+      if (ch == this.syntax.border()) {
+        if (parserIndex > nameStartIndex) {
+          visitor.dosExpression(string, nameStartIndex, parserIndex);
+        } else {
+          visitor.literal(ch);
+        }
+
+        return parserIndex + 1;
+      }
+
+      final int nameCharLength =
+        this.syntax.nameCharacterLength(string, parserIndex);
+
+      if (nameCharLength == 0) {
+        visitor.literal(string, startIndex, parserIndex);
+
+        return parserIndex;
+      }
+
+      parserIndex += nameCharLength;
+    }
+
+    visitor.literal(string, startIndex, parserIndex);
+
+    return parserIndex;
+  }
+
+  /**
+   * Parses a sh-style variable expression.
+   *
+   * @param visitor    the visitor to which the parsed expression is reported
+   * @param string     the source buffer
+   * @param startIndex the starting index of the sh-style expression, the
+   *                   index of the initial {@code $} character
+   *
+   * @throws IndexOutOfBoundsException when startIndex is out of the source
+   * buffer's bounds
+   *
+   * @throws IllegalArgumentException when the character at the startIndex in
+   * the source buffer is not a sh-style expression sentinel character ({@code
+   * $})
+   *
+   * @return the index of the position in the source buffer immediately after
+   * the parsed expression
+   */
+  private int parseShStyle(final ExpressionVisitor visitor,
+                           final CharSequence string,
+                           final int startIndex) {
+    final int length = string.length();
+    final Syntax syntax = this.syntax;
+
+    if (startIndex >= length) {
+      throw new IndexOutOfBoundsException("startIndex");
+    } else if (string.charAt(startIndex) != syntax.sentinel()) {
+      throw new IllegalArgumentException(
+        "startIndex must be positioned on an sh-style variable expression " +
+        "sentinel character. ('" + syntax.sentinel() + "')"
+      );
+    } else if (startIndex + 1 >= length) {
+      visitor.literal(syntax.sentinel());
+      return startIndex + 1;
+    } else {
+      final char ch = string.charAt(startIndex + 1);
+
+      if (ch != syntax.opener()) {
+        visitor.literal(syntax.sentinel());
+        visitor.literal(ch);
+        return startIndex + 2;
+      }
+    }
+
+    final int nameStartIndex = startIndex + 2;
+    int nameEndIndex = length;
+    boolean nameEscaped = false;
+    CharSequence defaultValue = null;
+    int parserIndex = nameStartIndex;
+
+    while (parserIndex < length) {
+      final char ch = string.charAt(parserIndex);
+
+      if (syntax.closesAt(string, parserIndex)) {
+        if (defaultValue == null) {
+          nameEndIndex = parserIndex;
+        }
+
+        CharSequence name = string;
+        int nameStart = nameStartIndex;
+        int nameEnd = nameEndIndex;
+
+        if (nameEscaped) {
+          name = unescapeShStyleName(syntax, string, nameStart, nameEnd);
+          nameStart = 0;
+          nameEnd = name.length();
+        }
+
+        while (nameStart < nameEnd && name.charAt(nameStart) <= ' ') {
+          ++nameStart;
+        }
+
+        while (nameEnd > nameStart && name.charAt(nameEnd - 1) <= ' ') {
+          --nameEnd;
+        }
+
+        int keyEnd = nameEnd;
+        ValueFilter filter = null;
+
+        if (this.filters != null) {
+          keyEnd = indexOf(
+            name, syntax.filterSeparator(), nameStart, nameEnd
+          );
+
+          if (keyEnd < nameEnd) {
+            filter = parseShStyleFilters(name, keyEnd, nameEnd);
+          }
+
+          while (keyEnd > nameStart && name.charAt(keyEnd - 1) <= ' ') {
+            --keyEnd;
+          }
+        }
+
+        visitor.shExpression(
+          name, nameStart, keyEnd, nameEnd, defaultValue, filter
+        );
+
+        return parserIndex + syntax.closer().length();
+      } else if (ch == syntax.defaultValueSeparator() &&
+                 this.supportShDefaults) {
+        nameEndIndex = parserIndex;
+        parserIndex = parseShStyleDefaultValue(null, string, parserIndex);
+
+        if (parserIndex < length) {
+          defaultValue =
+            shStyleDefaultValue(string, nameEndIndex, parserIndex);
+        }
+
+        continue;
+      } else if (ch == syntax.escape() && parserIndex + 1 < length) {
+        // the escaped character belongs to the name, whatever it may be
+        if (string.charAt(parserIndex + 1) ==
+            syntax.defaultValueSeparator()) {
+          nameEscaped = true;
+        }
+
+        parserIndex += 2;
+        continue;
+      }
+
+      ++parserIndex;
+    }
+
+    // the expression is unterminated; its name is reproduced without escaped
+    // separators, and anything following the name is reproduced verbatim
+    if (nameEscaped) {
+      visitor.literal(syntax.sentinel());
+      visitor.literal(syntax.opener());
+      visitor.literal(
+        unescapeShStyleName(syntax, string, nameStartIndex, nameEndIndex)
+      );
+      visitor.literal(string, nameEndIndex, length);
+    } else {
+      visitor.literal(string, startIndex, length);
+    }
+
+    return parserIndex;
+  }
+
+  /**
+   * Returns the index of the first occurrence of the specified character in
+   * the specified range of a string.
+   *
+   * @param string     the string to be searched
+   * @param ch         the character to be found
+   * @param startIndex the index at which the search begins
+   * @param endIndex   the index at which the search ends
+   *
+   * @return the index of the first occurrence of the character, or endIndex
+   * if there is no such occurrence
+   */
+  private static int indexOf(final CharSequence string,
+                             final char ch,
+                             final int startIndex,
+                             final int endIndex) {
+    for (int i = startIndex; i < endIndex; ++i) {
+      if (string.charAt(i) == ch) {
+        return i;
+      }
+    }
+
+    return endIndex;
+  }
+
+  /**
+   * Resolves the pipeline of filters named in the specified range of an
+   * sh-style variable expression's name.
+   *
+   * @param string     the source buffer
+   * @param startIndex the index of the separator preceding the first filter
+   * @param endIndex   the index after the last character of the last filter
+   *
+   * @throws IllegalArgumentException when a named filter is not registered
+   * with this object
+   *
+   * @return the filter applying every named filter in order
+   */
+  private ValueFilter parseShStyleFilters(final CharSequence string,
+                                          final int startIndex,
+                                          final int endIndex) {
+    ValueFilter pipeline = null;
+    int filterStart = startIndex + 1;
+
+    while (filterStart <= endIndex) {
+      final int filterEnd = indexOf(
+        string, this.syntax.filterSeparator(), filterStart, endIndex
+      );
+      final String name =
+        string.subSequence(filterStart, filterEnd).toString().trim();
+      final ValueFilter filter = this.filters.get(name);
+
+      if (filter == null) {
+        throw new IllegalArgumentException("Unknown filter: " + name);
+      }
+
+      pipeline = pipeline == null ? filter : pipeline.andThen(filter);
+      filterStart = filterEnd + 1;
+    }
+
+    return pipeline;
+  }
+
+  /**
+   * Removes the escape characters preceding default value separators in the
+   * specified range of an sh-style variable expression's name. Other escape
+   * characters are retained.
+   *
+   * @param syntax     the syntax of the expression
+   * @param string     the source buffer
+   * @param startIndex the index of the first character of the name
+   * @param endIndex   the index after the last character of the name
+   *
+   * @return the unescaped name
+   */
+  private static StringBuilder unescapeShStyleName(final Syntax syntax,
+                                                   final CharSequence string,
+                                                   final int startIndex,
+                                                   final int endIndex) {
+    final StringBuilder name = new StringBuilder(endIndex - startIndex);
+
+    for (int i = startIndex; i < endIndex; ++i) {
+      final char ch = string.charAt(i);
+
+      if (ch == syntax.escape() && i + 1 < endIndex) {
+        final char escaped = string.charAt(++i);
+
+        if (escaped != syntax.defaultValueSeparator()) {
+          name.append(ch);
+        }
+
+        name.append(escaped);
+      } else {
+        name.append(ch);
+      }
+    }
+
+    return name;
+  }
+
+  /**
+   * Returns the default value of an sh-style variable expression, with its
+   * escape sequences resolved.
+   * <p>
+   * A default value containing no escape character is returned as a
+   * subsequence of the source buffer; otherwise, the unescaped value is
+   * collected into a buffer sized to the default value.
+   *
+   * @param string     the source buffer
+   * @param startIndex the index of the separating {@code :} character
+   * @param endIndex   the index of the closing {@code }} character
+   *
+   * @return the default value
+   */
+  private CharSequence shStyleDefaultValue(final CharSequence string,
+                                           final int startIndex,
+                                           final int endIndex) {
+    for (int i = startIndex + 1; i < endIndex; ++i) {
+      if (string.charAt(i) == this.syntax.escape()) {
+        final StringBuilder defaultValue =
+          new StringBuilder(endIndex - startIndex - 1);
+        parseShStyleDefaultValue(defaultValue, string, startIndex);
+        return defaultValue;
+      }
+    }
+
+    return string.subSequence(startIndex + 1, endIndex);
+  }
+
+  /**
+   * Parses a sh-style variable expression's default value.
+   *
+   * @param destination the destination buffer for the unescaped value, or
+   *                    {@code null} if the value is only to be located
+   * @param string      the source buffer
+   * @param startIndex  the starting index of the default value expression, the
+   *                    index of the separating {@code :} character
+   *
+   * @throws IndexOutOfBoundsException when startIndex is out of the source
+   * buffer's bounds
+   *
+   * @throws IllegalArgumentException when the character at the startIndex in
+   * the source buffer is not a sh-style expression separating character ({@code
+   * :})
+   *
+   * @return the index of the closing {@code }} character, or the length of the
+   * source buffer if the default value is unterminated, in which case the
+   * contents of the destination buffer are unspecified
+   */
+  private int parseShStyleDefaultValue(final StringBuilder destination,
+                                       final CharSequence string,
+                                       final int startIndex) {
+    final int length = string.length();
+    final Syntax syntax = this.syntax;
+
+    if (startIndex >= length) {
+      throw new IndexOutOfBoundsException("startIndex");
+    } else if (string.charAt(startIndex) != syntax.defaultValueSeparator()) {
+      throw new IllegalArgumentException(
+        "startIndex must be positioned on an sh-style variable expression " +
+        "default value separator character. ('" +
+        syntax.defaultValueSeparator() + "')"
+      );
+    }
+
+    int parseIndex = startIndex + 1;
+    int depth = 0;
+    boolean escaped = false;
+
+    while (parseIndex < length) {
+      final char ch = string.charAt(parseIndex);
+
+      if (escaped) {
+        // escapes within nested expressions are left for their own parsing
+        if (destination != null) {
+          if (depth > 0 ||
+              ch != syntax.opener() && ch != syntax.closer().charAt(0)) {
+            destination.append(syntax.escape());
+          }
+
+          destination.append(ch);
+        }
+
+        escaped = false;
+      } else if (syntax.closesAt(string, parseIndex)) {
+        if (depth == 0) {
+          return parseIndex;
+        }
+
+        if (destination != null) {
+          destination.append(syntax.closer());
+        }
+
+        --depth;
+        parseIndex += syntax.closer().length();
+        continue;
+      } else if (ch == syntax.escape()) {
+        escaped = true;
+      } else if (this.maxRecursionDepth > 0 &&
+                 syntax.opensAt(string, parseIndex)) {
+        if (destination != null) {
+          destination.append(ch).append(syntax.opener());
+        }
+
+        ++depth;
+        parseIndex += 2;
+        continue;
+      } else if (destination != null) {
+        destination.append(ch);
+      }
+
+      ++parseIndex;
+    }
+
+    return parseIndex;
+  }
+
+  /**
+   * Returns the syntax of the expressions interpolated by this object.
+   *
+   * @return the syntax of the interpolated expressions
+   */
+  public Syntax getSyntax() {
+    return this.syntax;
   }
 
   /**
@@ -482,4 +1532,828 @@ public class ShellStyleStringInterpolator implements StringInterpolator {
   public boolean supportsShDefaults() {
     return this.supportShDefaults;
   }
+
+  /**
+   * Returns the maximum depth to which this object recursively expands values,
+   * or zero if this object does not recursively expand values.
+   *
+   * @return the maximum depth to which this object recursively expands values
+   */
+  public int getMaxRecursionDepth() {
+    return this.maxRecursionDepth;
+  }
+
+  /**
+   * The states of the parser used to interpolate a stream, each corresponding
+   * to a position within the grammar of shell-style expressions.
+   */
+  private enum StreamState {
+    /**
+     * Outside of any expression or escape sequence.
+     */
+    TEXT,
+
+    /**
+     * Immediately after an sh-style escape character outside of an
+     * expression.
+     */
+    ESCAPE,
+
+    /**
+     * Within the name of a DOS-style expression.
+     */
+    DOS_NAME,
+
+    /**
+     * Immediately after an sh-style sentinel character.
+     */
+    SH_SENTINEL,
+
+    /**
+     * Within the name of an sh-style expression.
+     */
+    SH_NAME,
+
+    /**
+     * Immediately after an escape character within the name of an sh-style
+     * expression.
+     */
+    SH_NAME_ESCAPE,
+
+    /**
+     * Within the default value of an sh-style expression.
+     */
+    SH_DEFAULT_VALUE,
+
+    /**
+     * Immediately after an escape character within the default value of an
+     * sh-style expression.
+     */
+    SH_DEFAULT_VALUE_ESCAPE,
+
+    /**
+     * Immediately after an sh-style sentinel character within the default
+     * value of an sh-style expression, when values are recursively expanded.
+     */
+    SH_DEFAULT_VALUE_SENTINEL
+  }
+
+  /**
+   * An object to which the literal text and variable expressions of a parsed
+   * string are reported.
+   */
+  private interface ExpressionVisitor {
+    /**
+     * Reports a literal character.
+     *
+     * @param ch the literal character
+     */
+    void literal(char ch);
+
+    /**
+     * Reports a sequence of literal characters.
+     *
+     * @param chars the literal characters
+     */
+    void literal(CharSequence chars);
+
+    /**
+     * Reports a subsequence of literal characters.
+     *
+     * @param chars the source of the literal characters
+     * @param start the index of the first literal character
+     * @param end   the index after the last literal character
+     */
+    void literal(CharSequence chars, int start, int end);
+
+    /**
+     * Reports a DOS-style variable expression.
+     *
+     * @param name  the source of the name of the variable
+     * @param start the index of the first character of the name
+     * @param end   the index after the last character of the name
+     */
+    void dosExpression(CharSequence name, int start, int end);
+
+    /**
+     * Reports an sh-style variable expression.
+     *
+     * @param name         the source of the name of the variable
+     * @param start        the index of the first character of the name
+     * @param keyEnd       the index after the last character of the name,
+     *                     excluding any filters
+     * @param end          the index after the last character of the name,
+     *                     including any filters
+     * @param defaultValue the default value of the expression, or {@code null}
+     *                     if the expression does not specify a default value
+     * @param filter       the filter applied to the value or default value, or
+     *                     {@code null} if the expression names no filter
+     */
+    void shExpression(CharSequence name,
+                      int start,
+                      int keyEnd,
+                      int end,
+                      CharSequence defaultValue,
+                      ValueFilter filter);
+  }
+
+  /**
+   * An {@link ExpressionVisitor} which interpolates a parsed string into a
+   * destination.
+   * <p>
+   * An {@link IOException} thrown by the destination is rethrown as an
+   * {@link UncheckedIOException}.
+   */
+  private static final class Renderer implements ExpressionVisitor {
+    /**
+     * The syntax of the interpolated expressions, with which unmatched
+     * expressions are reproduced.
+     */
+    private final Syntax syntax;
+
+    /**
+     * The destination for the interpolated string.
+     */
+    private final Appendable destination;
+
+    /**
+     * The context used to look up the values to interpolate.
+     */
+    private final Context context;
+
+    /**
+     * The state of the recursive expansion of values, or {@code null} if
+     * values are not recursively expanded.
+     */
+    private final Expansion expansion;
+
+    /**
+     * The context, if it is to be notified of unmatched expressions, or
+     * {@code null}.
+     */
+    private final ExpressionObserver observer;
+
+    Renderer(final Syntax syntax,
+             final Appendable destination,
+             final Context context,
+             final Expansion expansion) {
+      this.syntax = syntax;
+      this.destination = destination;
+      this.context = context;
+      this.expansion = expansion;
+      this.observer = ExpressionObserver.of(context);
+    }
+
+    /**
+     * Returns the value to which the key composed of the specified range of
+     * characters is associated, recursively expanded if values are
+     * recursively expanded.
+     *
+     * @param name  the source of the key's characters
+     * @param start the index of the first character of the key
+     * @param end   the index after the last character of the key
+     *
+     * @return the value to which the key is associated, or {@code null} if the
+     * context does not contain a value associated with the key
+     */
+    private String resolve(final CharSequence name,
+                           final int start,
+                           final int end) {
+      return this.expansion == null ? this.context.get(name, start, end) :
+                                      this.expansion.resolve(name, start, end);
+    }
+
+    @Override
+    public void literal(final char ch) {
+      try {
+        this.destination.append(ch);
+      } catch (final IOException exception) {
+        throw new UncheckedIOException(exception);
+      }
+    }
+
+    @Override
+    public void literal(final CharSequence chars) {
+      try {
+        this.destination.append(chars);
+      } catch (final IOException exception) {
+        throw new UncheckedIOException(exception);
+      }
+    }
+
+    @Override
+    public void literal(final CharSequence chars,
+                        final int start,
+                        final int end) {
+      try {
+        this.destination.append(chars, start, end);
+      } catch (final IOException exception) {
+        throw new UncheckedIOException(exception);
+      }
+    }
+
+    @Override
+    public void dosExpression(final CharSequence name,
+                              final int start,
+                              final int end) {
+      final String value = resolve(name, start, end);
+
+      try {
+        if (value == null) {
+          if (this.observer != null) {
+            this.observer.unresolved();
+          }
+
+          this.destination
+            .append(this.syntax.border())
+            .append(name, start, end)
+            .append(this.syntax.border());
+        } else {
+          this.destination.append(value);
+        }
+      } catch (final IOException exception) {
+        throw new UncheckedIOException(exception);
+      }
+    }
+
+    @Override
+    public void shExpression(final CharSequence name,
+                             final int start,
+                             final int keyEnd,
+                             final int end,
+                             final CharSequence defaultValue,
+                             final ValueFilter filter) {
+      final String value = resolve(name, start, keyEnd);
+
+      try {
+        if (value == null) {
+          if (this.observer != null) {
+            if (defaultValue == null) {
+              this.observer.unresolved();
+            } else {
+              this.observer.defaulted();
+            }
+          }
+
+          if (defaultValue == null) {
+            this.destination
+              .append(this.syntax.sentinel())
+              .append(this.syntax.opener())
+              .append(name, start, end)
+              .append(this.syntax.closer());
+          } else if (this.expansion != null) {
+            this.expansion.expand(defaultValue, this.destination, filter);
+          } else if (filter != null) {
+            filter.filter(defaultValue, this.destination);
+          } else {
+            this.destination.append(defaultValue);
+          }
+        } else if (filter != null) {
+          filter.filter(value, this.destination);
+        } else {
+          this.destination.append(value);
+        }
+      } catch (final IOException exception) {
+        throw new UncheckedIOException(exception);
+      }
+    }
+  }
+
+  /**
+   * An {@link ExpressionVisitor} which interpolates a parsed sequence of UTF-8
+   * encoded bytes, viewed as characters by {@link Utf8Bytes}, into UTF-8
+   * encoded output.
+   * <p>
+   * Literal characters each hold a single byte and are copied verbatim;
+   * variable names are decoded before being looked up, and values are
+   * encoded as they are appended.
+   */
+  private static final class Utf8Renderer implements ExpressionVisitor {
+    /**
+     * The syntax of the interpolated expressions, with which unmatched
+     * expressions are reproduced.
+     */
+    private final Syntax syntax;
+
+    /**
+     * The destination for the interpolated bytes.
+     */
+    private final Utf8Output destination;
+
+    /**
+     * The context used to look up the values to interpolate.
+     */
+    private final Context context;
+
+    /**
+     * The state of the recursive expansion of values, or {@code null} if
+     * values are not recursively expanded.
+     */
+    private final Expansion expansion;
+
+    /**
+     * The context, if it is to be notified of unmatched expressions, or
+     * {@code null}.
+     */
+    private final ExpressionObserver observer;
+
+    Utf8Renderer(final Syntax syntax,
+                 final Utf8Output destination,
+                 final Context context,
+                 final Expansion expansion) {
+      this.syntax = syntax;
+      this.destination = destination;
+      this.context = context;
+      this.expansion = expansion;
+      this.observer = ExpressionObserver.of(context);
+    }
+
+    /**
+     * Returns the value to which the key encoded by the specified range of
+     * characters is associated, recursively expanded if values are
+     * recursively expanded.
+     *
+     * @param name  the characters holding the bytes of the key
+     * @param start the index of the first character of the key
+     * @param end   the index after the last character of the key
+     *
+     * @return the value to which the key is associated, or {@code null} if the
+     * context does not contain a value associated with the key
+     */
+    private String resolve(final CharSequence name,
+                           final int start,
+                           final int end) {
+      final String key = Utf8Bytes.decode(name, start, end);
+
+      if (this.expansion == null) {
+        return this.context.get(key);
+      }
+
+      return this.expansion.resolve(key, 0, key.length());
+    }
+
+    @Override
+    public void literal(final char ch) {
+      this.destination.appendRaw(ch);
+    }
+
+    @Override
+    public void literal(final CharSequence chars) {
+      literal(chars, 0, chars.length());
+    }
+
+    @Override
+    public void literal(final CharSequence chars,
+                        final int start,
+                        final int end) {
+      if (chars instanceof Utf8Bytes) {
+        ((Utf8Bytes) chars).copyTo(start, end, this.destination);
+      } else {
+        this.destination.appendRaw(chars, start, end);
+      }
+    }
+
+    @Override
+    public void dosExpression(final CharSequence name,
+                              final int start,
+                              final int end) {
+      final String value = resolve(name, start, end);
+
+      if (value == null) {
+        if (this.observer != null) {
+          this.observer.unresolved();
+        }
+
+        this.destination.appendRaw(this.syntax.border());
+        literal(name, start, end);
+        this.destination.appendRaw(this.syntax.border());
+      } else {
+        this.destination.append(value);
+      }
+    }
+
+    @Override
+    public void shExpression(final CharSequence name,
+                             final int start,
+                             final int keyEnd,
+                             final int end,
+                             final CharSequence defaultValue,
+                             final ValueFilter filter) {
+      final String value = resolve(name, start, keyEnd);
+
+      if (value == null && this.observer != null) {
+        if (defaultValue == null) {
+          this.observer.unresolved();
+        } else {
+          this.observer.defaulted();
+        }
+      }
+
+      try {
+        if (value == null && defaultValue == null) {
+          this.destination.appendRaw(this.syntax.sentinel());
+          this.destination.appendRaw(this.syntax.opener());
+          literal(name, start, end);
+          literal(this.syntax.closer());
+        } else if (value != null) {
+          if (filter != null) {
+            filter.filter(value, this.destination);
+          } else {
+            this.destination.append(value);
+          }
+        } else if (this.expansion != null) {
+          this.expansion.expand(
+            Utf8Bytes.decode(defaultValue, 0, defaultValue.length()),
+            this.destination, filter
+          );
+        } else if (filter != null) {
+          filter.filter(
+            Utf8Bytes.decode(defaultValue, 0, defaultValue.length()),
+            this.destination
+          );
+        } else {
+          literal(defaultValue);
+        }
+      } catch (final IOException exception) {
+        throw new UncheckedIOException(exception);
+      }
+    }
+  }
+
+  /**
+   * The state of the recursive expansion of values during a single
+   * interpolation.
+   * <p>
+   * Each key's expanded value is memoized, so that every variable is looked up
+   * and expanded at most once no matter how often it is referred to. The keys
+   * whose values are being expanded are tracked in order to detect cyclic
+   * references.
+   */
+  final class Expansion {
+    /**
+     * The context used to look up the values to interpolate.
+     */
+    private final Context context;
+
+    /**
+     * The expanded values of the keys resolved so far; keys with no associated
+     * value are mapped to {@code null}.
+     */
+    private final Map<String, String> expanded = new HashMap<>();
+
+    /**
+     * The keys whose values are being expanded, outermost first.
+     */
+    private final List<String> expanding = new ArrayList<>();
+
+    /**
+     * The number of values and default values being expanded.
+     */
+    private int depth;
+
+    Expansion(final Context context) {
+      this.context = context;
+    }
+
+    /**
+     * Returns the expanded value to which the key composed of the specified
+     * range of characters is associated.
+     *
+     * @param name  the source of the key's characters
+     * @param start the index of the first character of the key
+     * @param end   the index after the last character of the key
+     *
+     * @throws IllegalArgumentException when the value refers to itself,
+     * directly or indirectly, or its expansion is nested too deeply
+     *
+     * @return the expanded value to which the key is associated, or {@code
+     * null} if the context does not contain a value associated with the key
+     */
+    String resolve(final CharSequence name, final int start, final int end) {
+      final String key = name.subSequence(start, end).toString();
+
+      if (this.expanded.containsKey(key)) {
+        return this.expanded.get(key);
+      } else if (this.expanding.contains(key)) {
+        final StringBuilder cycle = new StringBuilder();
+
+        for (final String expandingKey :
+          this.expanding.subList(this.expanding.indexOf(key),
+                                 this.expanding.size())) {
+          cycle.append(expandingKey).append(" -> ");
+        }
+
+        throw new IllegalArgumentException(
+          "Cyclic reference while expanding variables: " + cycle + key
+        );
+      }
+
+      final String value = this.context.get(key);
+      String expandedValue = value;
+
+      if (value != null && indexOfSentinel(value, 0) < value.length()) {
+        final StringBuilder destination = new StringBuilder(value.length());
+        this.expanding.add(key);
+        expand(value, destination);
+        this.expanding.remove(this.expanding.size() - 1);
+        expandedValue = destination.toString();
+      }
+
+      this.expanded.put(key, expandedValue);
+      return expandedValue;
+    }
+
+    /**
+     * Interpolates the specified text into the specified destination, one
+     * level deeper than the current expansion.
+     *
+     * @param text        the text to be expanded
+     * @param destination the destination for the expanded text
+     *
+     * @throws IllegalArgumentException when the expansion is nested too deeply
+     */
+    void expand(final CharSequence text, final Appendable destination) {
+      final int maxDepth = ShellStyleStringInterpolator.this.maxRecursionDepth;
+
+      if (this.depth >= maxDepth) {
+        throw new IllegalArgumentException(
+          "Variable expansion exceeds the maximum depth of " + maxDepth +
+          (this.expanding.isEmpty() ? "" : " while expanding " + this.expanding)
+        );
+      }
+
+      ++this.depth;
+      parse(
+        text, 0,
+        new Renderer(
+          ShellStyleStringInterpolator.this.syntax, destination, this.context,
+          this
+        )
+      );
+      --this.depth;
+    }
+
+    /**
+     * Interpolates the specified text one level deeper than the current
+     * expansion, and appends the result to the specified destination through
+     * the specified filter.
+     *
+     * @param text        the text to be expanded
+     * @param destination the destination for the expanded text
+     * @param filter      the filter applied to the expanded text, or {@code
+     *                    null} if it is appended unfiltered
+     *
+     * @throws IOException when the destination throws an {@link IOException}
+     * @throws IllegalArgumentException when the expansion is nested too deeply
+     */
+    void expand(final CharSequence text,
+                final Appendable destination,
+                final ValueFilter filter) throws IOException {
+      if (filter == null) {
+        expand(text, destination);
+        return;
+      }
+
+      final StringBuilder expanded = new StringBuilder(text.length());
+      expand(text, expanded);
+      filter.filter(expanded, destination);
+    }
+  }
+
+  /**
+   * An {@link ExpressionVisitor} which discards a parsed string, used to find
+   * the boundaries of its expressions without rendering them.
+   */
+  private static final class Discarder implements ExpressionVisitor {
+    @Override
+    public void literal(final char ch) {
+    }
+
+    @Override
+    public void literal(final CharSequence chars) {
+    }
+
+    @Override
+    public void literal(final CharSequence chars,
+                        final int start,
+                        final int end) {
+    }
+
+    @Override
+    public void dosExpression(final CharSequence name,
+                              final int start,
+                              final int end) {
+    }
+
+    @Override
+    public void shExpression(final CharSequence name,
+                             final int start,
+                             final int keyEnd,
+                             final int end,
+                             final CharSequence defaultValue,
+                             final ValueFilter filter) {
+    }
+  }
+
+  /**
+   * A fork/join task which interpolates a range of the chunks of a string.
+   */
+  private final class ChunkInterpolation extends RangeTask {
+    /**
+     * The serialization version of this class.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The string being interpolated.
+     */
+    private final String string;
+
+    /**
+     * The context from which interpolated values are retrieved.
+     */
+    private final Context context;
+
+    /**
+     * The index of the first character of each chunk, followed by the length
+     * of the string.
+     */
+    private final int[] bounds;
+
+    /**
+     * The interpolated chunks.
+     */
+    private final StringBuilder[] chunks;
+
+    /**
+     * The exceptions thrown while interpolating each chunk, if any.
+     */
+    private final RuntimeException[] failures;
+
+    private ChunkInterpolation(final String string,
+                               final Context context,
+                               final int[] bounds,
+                               final StringBuilder[] chunks,
+                               final RuntimeException[] failures,
+                               final int start,
+                               final int end,
+                               final RangeTask next) {
+      super(start, end, next);
+      this.string = string;
+      this.context = context;
+      this.bounds = bounds;
+      this.chunks = chunks;
+      this.failures = failures;
+    }
+
+    @Override
+    RangeTask split(final int start, final int end, final RangeTask next) {
+      return new ChunkInterpolation(
+        this.string, this.context, this.bounds, this.chunks, this.failures,
+        start, end, next
+      );
+    }
+
+    @Override
+    void process(final int index) {
+      final int chunkStart = this.bounds[index];
+      final int chunkEnd = this.bounds[index + 1];
+      final int chunkLength = chunkEnd - chunkStart;
+      final StringBuilder chunk =
+        new StringBuilder(chunkLength + (chunkLength >> 2));
+
+      try {
+        parse(
+          this.string, chunkStart, chunkEnd, newRenderer(chunk, this.context)
+        );
+      } catch (final RuntimeException exception) {
+        this.failures[index] = exception;
+      }
+
+      this.chunks[index] = chunk;
+    }
+  }
+
+  /**
+   * An {@link ExpressionVisitor} which collects a parsed string into the
+   * segments of a {@link Template}.
+   */
+  private static final class TemplateBuilder implements ExpressionVisitor {
+    /**
+     * The syntax of the interpolated expressions, with which unmatched
+     * expressions are reproduced.
+     */
+    private final Syntax syntax;
+
+    /**
+     * The segments collected so far.
+     */
+    private final List<Template.Segment> segments = new ArrayList<>();
+
+    /**
+     * The literal text which has not yet been collected into a segment.
+     */
+    private final StringBuilder literal = new StringBuilder();
+
+    TemplateBuilder(final Syntax syntax) {
+      this.syntax = syntax;
+    }
+
+    @Override
+    public void literal(final char ch) {
+      this.literal.append(ch);
+    }
+
+    @Override
+    public void literal(final CharSequence chars) {
+      this.literal.append(chars);
+    }
+
+    @Override
+    public void literal(final CharSequence chars,
+                        final int start,
+                        final int end) {
+      this.literal.append(chars, start, end);
+    }
+
+    @Override
+    public void dosExpression(final CharSequence source,
+                              final int start,
+                              final int end) {
+      final String name = source.subSequence(start, end).toString();
+      final char border = this.syntax.border();
+      expression(name, border + name + border, false, null);
+    }
+
+    @Override
+    public void shExpression(final CharSequence source,
+                             final int start,
+                             final int keyEnd,
+                             final int end,
+                             final CharSequence defaultValue,
+                             final ValueFilter filter) {
+      final String name = source.subSequence(start, keyEnd).toString();
+
+      if (defaultValue == null) {
+        expression(
+          name,
+          "" + this.syntax.sentinel() + this.syntax.opener() +
+            source.subSequence(start, end) + this.syntax.closer(),
+          false, filter
+        );
+      } else {
+        expression(name, defaultValue.toString(), true, filter);
+      }
+    }
+
+    /**
+     * Collects a variable expression, along with any literal text preceding
+     * it.
+     *
+     * @param name            the name of the variable
+     * @param fallback        the text to be interpolated when the variable
+     *                        cannot be matched
+     * @param fallbackDefault whether the fallback is the expression's default
+     *                        value, rather than the expression itself
+     * @param filter          the filter applied to the value or default value,
+     *                        or {@code null} if the expression names no filter
+     */
+    private void expression(final String name,
+                            final String fallback,
+                            final boolean fallbackDefault,
+                            final ValueFilter filter) {
+      flushLiteral();
+      this.segments.add(
+        new Template.Expression(name, fallback, fallbackDefault, filter)
+      );
+    }
+
+    /**
+     * Collects any literal text which has not yet been collected.
+     */
+    private void flushLiteral() {
+      if (this.literal.length() > 0) {
+        this.segments.add(new Template.Literal(this.literal.toString()));
+        this.literal.setLength(0);
+      }
+    }
+
+    /**
+     * Constructs a {@link Template} from the collected segments.
+     *
+     * @param source       the string from which the template was parsed
+     * @param interpolator the interpolator used to recursively expand values
+     *                     when the template is rendered, or {@code null} if
+     *                     values are not recursively expanded
+     *
+     * @return the template
+     */
+    Template build(final String source,
+                   final ShellStyleStringInterpolator interpolator) {
+      flushLiteral();
+      return new Template(
+        source, this.segments.toArray(new Template.Segment[0]), interpolator
+      );
+    }
+  }
 }
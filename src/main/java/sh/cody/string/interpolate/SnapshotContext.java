@@ -0,0 +1,176 @@
+package sh.cody.string.interpolate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * A {@link Context} for a snapshot of the system environment variables and
+ * system properties.
+ * <p>
+ * Keys are resolved with the same semantics as {@link Context#combined()}:
+ * system properties are accessed by default, environment variables may be
+ * accessed by prefixing the key with {@code env.}, and system properties may
+ * be accessed explicitly by prefixing the key with {@code prop.}; prefixes are
+ * matched without regard to case.
+ * <p>
+ * Unlike {@link Context#combined()}, the values are captured once, when this
+ * object is constructed, and are not affected by later changes to the
+ * environment or system properties until {@link #refresh()} is invoked.
+ *
+ * @implNote The captured values are held in immutable, open-addressed hash
+ * tables which are read without locking. Prefixes are matched in place and
+ * keys are hashed over the characters following the prefix, so lookups do
+ * not allocate.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+public final class SnapshotContext implements Context {
+  /**
+   * The prefix of keys naming environment variables.
+   */
+  private static final String ENVIRONMENT_PREFIX = "env.";
+
+  /**
+   * The prefix of keys explicitly naming system properties.
+   */
+  private static final String PROPERTY_PREFIX = "prop.";
+
+  /**
+   * The current snapshot.
+   */
+  private volatile Snapshot snapshot;
+
+  /**
+   * Constructs a new {@link SnapshotContext} capturing the current system
+   * environment variables and system properties.
+   */
+  SnapshotContext() {
+    this.snapshot = Snapshot.capture();
+  }
+
+  @Override
+  public String get(final String key) {
+    final Snapshot snapshot = this.snapshot;
+    final int environmentPrefixLength = ENVIRONMENT_PREFIX.length();
+    final int propertyPrefixLength = PROPERTY_PREFIX.length();
+
+    if (key.regionMatches(
+      true, 0, ENVIRONMENT_PREFIX, 0, environmentPrefixLength
+    )) {
+      return snapshot.environment.get(
+        key, environmentPrefixLength, key.length()
+      );
+    } else if (key.regionMatches(
+      true, 0, PROPERTY_PREFIX, 0, propertyPrefixLength
+    )) {
+      return snapshot.properties.get(key, propertyPrefixLength, key.length());
+    } else {
+      return snapshot.properties.get(key);
+    }
+  }
+
+  @Override
+  public String get(final CharSequence source,
+                    final int start,
+                    final int end) {
+    final Snapshot snapshot = this.snapshot;
+
+    if (startsWithIgnoreCase(source, start, end, ENVIRONMENT_PREFIX)) {
+      return snapshot.environment.get(
+        source, start + ENVIRONMENT_PREFIX.length(), end
+      );
+    } else if (startsWithIgnoreCase(source, start, end, PROPERTY_PREFIX)) {
+      return snapshot.properties.get(
+        source, start + PROPERTY_PREFIX.length(), end
+      );
+    } else {
+      return snapshot.properties.get(source, start, end);
+    }
+  }
+
+  /**
+   * Captures the current system environment variables and system properties,
+   * replacing the values captured previously.
+   * <p>
+   * The replacement is atomic; a concurrent lookup observes either the
+   * previous snapshot or the new snapshot in its entirety.
+   */
+  public void refresh() {
+    this.snapshot = Snapshot.capture();
+  }
+
+  /**
+   * Returns whether the specified range of characters begins with the
+   * specified prefix, ignoring case.
+   *
+   * @param source the source of the range of characters
+   * @param start  the index of the first character of the range
+   * @param end    the index after the last character of the range
+   * @param prefix the prefix
+   *
+   * @return whether the range of characters begins with the prefix
+   */
+  private static boolean startsWithIgnoreCase(final CharSequence source,
+                                              final int start,
+                                              final int end,
+                                              final String prefix) {
+    final int length = prefix.length();
+
+    if (end - start < length) {
+      return false;
+    }
+
+    for (int i = 0; i < length; ++i) {
+      final char ch = source.charAt(start + i);
+      final char expected = prefix.charAt(i);
+
+      if (ch != expected &&
+          Character.toLowerCase(Character.toUpperCase(ch)) != expected) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * An immutable snapshot of the system environment variables and system
+   * properties.
+   */
+  private static final class Snapshot {
+    /**
+     * The captured system environment variables.
+     */
+    private final KeyTable environment;
+
+    /**
+     * The captured system properties.
+     */
+    private final KeyTable properties;
+
+    private Snapshot(final KeyTable environment, final KeyTable properties) {
+      this.environment = environment;
+      this.properties = properties;
+    }
+
+    /**
+     * Captures the current system environment variables and system
+     * properties.
+     *
+     * @return the snapshot
+     */
+    static Snapshot capture() {
+      final Properties systemProperties = System.getProperties();
+      final Map<String, String> properties = new HashMap<>();
+
+      for (final String name : systemProperties.stringPropertyNames()) {
+        properties.put(name, systemProperties.getProperty(name));
+      }
+
+      return new Snapshot(
+        new KeyTable(System.getenv()), new KeyTable(properties)
+      );
+    }
+  }
+}
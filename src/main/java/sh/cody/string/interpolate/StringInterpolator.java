@@ -1,5 +1,11 @@
 package sh.cody.string.interpolate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
 /**
  * An object that interpolates values from a given {@link Context} into a
  * {@link String}.
@@ -17,6 +23,127 @@ public interface StringInterpolator {
    */
   String interpolate(String string, Context context);
 
+  /**
+   * Interpolates the specified template with values from the specified
+   * context, appending the result to the specified destination.
+   *
+   * @implSpec The default implementation appends the string returned by
+   * {@link #interpolate(String, Context)} to the destination.
+   *
+   * @param template    the template to be interpolated
+   * @param context     the context from which interpolated values will be
+   *                    retrieved
+   * @param destination the destination to which the interpolated template is
+   *                    appended
+   * @param <A>         the type of the destination
+   *
+   * @throws UncheckedIOException when the destination throws an
+   * {@link IOException}
+   *
+   * @return the destination
+   */
+  default <A extends Appendable> A interpolateTo(final CharSequence template,
+                                                 final Context context,
+                                                 final A destination) {
+    try {
+      destination.append(this.interpolate(template.toString(), context));
+    } catch (final IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+
+    return destination;
+  }
+
+  /**
+   * Returns a {@link CharSequence} which interpolates the specified string
+   * with values from the specified context when its characters are first
+   * needed, and retains the result.
+   * <p>
+   * The string is not parsed, and no value is retrieved from the context,
+   * until then; a result which is never used costs a single small object.
+   *
+   * @param string  the string to be interpolated
+   * @param context the context from which interpolated values will be
+   *                retrieved
+   *
+   * @return the lazily interpolated string
+   */
+  default LazyInterpolation lazy(final String string, final Context context) {
+    return new LazyInterpolation(this, string, context);
+  }
+
+  /**
+   * Interpolates every string in the specified list with values from the
+   * specified context, dividing the work among the threads of the common
+   * fork/join pool.
+   *
+   * @implSpec The default implementation is equivalent to invoking {@link
+   * #interpolateAll(List, Context, ForkJoinPool)} with the common pool.
+   *
+   * @param strings the strings to be interpolated
+   * @param context the context from which interpolated values will be
+   *                retrieved; it must be safe for use by many threads
+   *
+   * @return an unmodifiable list of the interpolated strings, in the order of
+   * the strings from which they were interpolated
+   */
+  default List<String> interpolateAll(final List<String> strings,
+                                      final Context context) {
+    return interpolateAll(strings, context, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Interpolates every string in the specified list with values from the
+   * specified context, dividing the work among the threads of the specified
+   * fork/join pool.
+   * <p>
+   * The value associated with each key is retrieved from the context at most
+   * once per batch, barring concurrent first lookups of the same key, and is
+   * shared by every string in the batch.
+   *
+   * @implSpec The default implementation interpolates each string with
+   * {@link #interpolate(String, Context)}, splitting the list into ranges
+   * whose size adapts to the number of idle threads in the pool.
+   *
+   * @param strings the strings to be interpolated
+   * @param context the context from which interpolated values will be
+   *                retrieved; it must be safe for use by many threads
+   * @param pool    the pool in which the strings are interpolated
+   *
+   * @return an unmodifiable list of the interpolated strings, in the order of
+   * the strings from which they were interpolated
+   */
+  default List<String> interpolateAll(final List<String> strings,
+                                      final Context context,
+                                      final ForkJoinPool pool) {
+    return BatchInterpolation.interpolateAll(this, strings, context, pool);
+  }
+
+  /**
+   * Returns a stream of the strings of the specified stream interpolated with
+   * values from the specified context.
+   * <p>
+   * As with {@link #interpolateAll(List, Context, ForkJoinPool)}, the value
+   * associated with each key is retrieved from the context at most once per
+   * stream, barring concurrent first lookups of the same key. The returned
+   * stream is parallel if and only if the specified stream is, so strings
+   * are only interpolated concurrently when the caller has requested it with
+   * {@link Stream#parallel()}; it preserves the encounter order of the
+   * specified stream.
+   *
+   * @param strings the strings to be interpolated
+   * @param context the context from which interpolated values will be
+   *                retrieved; it must be safe for use by many threads if the
+   *                stream is parallel
+   *
+   * @return a stream of the interpolated strings
+   */
+  default Stream<String> interpolateAll(final Stream<String> strings,
+                                        final Context context) {
+    final Context batchContext = new BatchContext(context);
+    return strings.map(string -> interpolate(string, batchContext));
+  }
+
   /**
    * Constructs a {@link ContextualizedStringInterpolator} from this {@link
    * StringInterpolator} and the specified {@link Context}.
@@ -27,6 +154,21 @@ public interface StringInterpolator {
    * backed by this string interpolator
    */
   default ContextualizedStringInterpolator forContext(final Context context) {
-    return string -> this.interpolate(string, context);
+    return new ContextualizedStringInterpolator() {
+      @Override
+      public String interpolate(final String string) {
+        return StringInterpolator.this.interpolate(string, context);
+      }
+
+      @Override
+      public <A extends Appendable> A interpolateTo(
+        final CharSequence template,
+        final A destination
+      ) {
+        return StringInterpolator.this.interpolateTo(
+          template, context, destination
+        );
+      }
+    };
   }
 }
@@ -0,0 +1,630 @@
+package sh.cody.string.interpolate;
+
+/**
+ * The delimiters of the variable expressions understood by a {@link
+ * ShellStyleStringInterpolator}.
+ * <p>
+ * A syntax describes at most one enclosed form and at most one bordered form
+ * of expression. An enclosed expression, such as the sh-style {@code
+ * ${PATH}}, begins with a two-character opener, e.g. {@code ${}, {@code #{}
+ * or <code>{{</code>, and ends with a closer of one or more characters, e.g.
+ * <code>}</code> or <code>}}</code>. Its name may be followed by filters and a
+ * default value, and its first character may be escaped. A bordered
+ * expression, such as the DOS-style {@code %APPDATA%}, is a name between two
+ * border characters, e.g. {@code %} or {@code @}; its name is composed of
+ * letters, digits, and any additional name characters of the syntax, e.g.
+ * {@code _} and {@code .}.
+ * <p>
+ * Every delimiter is an ASCII punctuation character, and no two delimiters
+ * which could be confused are the same. Syntaxes are constructed with {@link
+ * #builder()}, or {@link #shell()} for the syntax of sh and DOS, and are
+ * immutable.
+ *
+ * @implNote A syntax is compiled at construction into a table classifying
+ * every ASCII character, so that the parser classifies a character, and
+ * decides whether it may belong to a bordered expression's name, with a
+ * single array lookup. Only characters outside of ASCII are classified by
+ * {@link Character#isLetterOrDigit(char)}.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+public final class Syntax {
+  /**
+   * The class of characters without significance to the parser.
+   */
+  static final int NONE = 0;
+
+  /**
+   * The class of the border character of bordered expressions.
+   */
+  static final int BORDER = 1;
+
+  /**
+   * The class of the first character of the opener of enclosed expressions.
+   */
+  static final int SENTINEL = 2;
+
+  /**
+   * The class of the escape character.
+   */
+  static final int ESCAPE = 3;
+
+  /**
+   * The mask selecting the class of a character from its table entry.
+   */
+  private static final int CLASS_MASK = 0x3;
+
+  /**
+   * The flag set in the table entries of characters which may belong to a
+   * bordered expression's name.
+   */
+  private static final int NAME = 0x4;
+
+  /**
+   * The syntax of sh-style and DOS-style expressions.
+   */
+  private static final Syntax SHELL =
+    builder().enclosed("${", "}").bordered('%').build();
+
+  /**
+   * The first character of the opener of enclosed expressions, or {@code 0}
+   * if there is no enclosed form.
+   */
+  private final char sentinel;
+
+  /**
+   * The second character of the opener of enclosed expressions.
+   */
+  private final char opener;
+
+  /**
+   * The closer of enclosed expressions.
+   */
+  private final String closer;
+
+  /**
+   * The character escaping the following character.
+   */
+  private final char escape;
+
+  /**
+   * The character separating the name and default value of enclosed
+   * expressions.
+   */
+  private final char defaultValueSeparator;
+
+  /**
+   * The character separating the name and filters of enclosed expressions.
+   */
+  private final char filterSeparator;
+
+  /**
+   * The border character of bordered expressions, or {@code 0} if there is no
+   * bordered form.
+   */
+  private final char border;
+
+  /**
+   * The class and name flag of every ASCII character, indexed by character.
+   */
+  private final byte[] table = new byte[0x80];
+
+  private Syntax(final Builder builder) {
+    this.sentinel = builder.sentinel;
+    this.opener = builder.opener;
+    this.closer = builder.closer;
+    this.escape = builder.escape;
+    this.defaultValueSeparator = builder.defaultValueSeparator;
+    this.filterSeparator = builder.filterSeparator;
+    this.border = builder.border;
+
+    for (char ch = 0; ch < 0x80; ++ch) {
+      if (Character.isLetterOrDigit(ch) ||
+          builder.nameCharacters.indexOf(ch) >= 0) {
+        this.table[ch] = NAME;
+      }
+    }
+
+    if (this.border != 0) {
+      this.table[this.border] |= BORDER;
+    }
+
+    if (this.sentinel != 0) {
+      this.table[this.sentinel] |= SENTINEL;
+      this.table[this.escape] |= ESCAPE;
+    }
+  }
+
+  /**
+   * Returns the syntax of sh-style expressions, e.g. {@code ${PATH}}, and
+   * DOS-style expressions, e.g. {@code %APPDATA%}, escaped with {@code \}.
+   *
+   * @return the shell syntax
+   */
+  public static Syntax shell() {
+    return SHELL;
+  }
+
+  /**
+   * Constructs a new builder of a {@link Syntax}, initially with neither
+   * form of expression, {@code \} as its escape character, {@code :} as its
+   * default value separator, {@code |} as its filter separator, and no
+   * additional name characters.
+   *
+   * @return the builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns whether this syntax has an enclosed form of expression.
+   *
+   * @return whether this syntax has an enclosed form
+   */
+  public boolean hasEnclosedForm() {
+    return this.sentinel != 0;
+  }
+
+  /**
+   * Returns whether this syntax has a bordered form of expression.
+   *
+   * @return whether this syntax has a bordered form
+   */
+  public boolean hasBorderedForm() {
+    return this.border != 0;
+  }
+
+  /**
+   * Returns the first character of the opener of enclosed expressions.
+   *
+   * @return the sentinel character
+   */
+  char sentinel() {
+    return this.sentinel;
+  }
+
+  /**
+   * Returns the second character of the opener of enclosed expressions.
+   *
+   * @return the opener character
+   */
+  char opener() {
+    return this.opener;
+  }
+
+  /**
+   * Returns the closer of enclosed expressions.
+   *
+   * @return the closer
+   */
+  String closer() {
+    return this.closer;
+  }
+
+  /**
+   * Returns the escape character.
+   *
+   * @return the escape character
+   */
+  char escape() {
+    return this.escape;
+  }
+
+  /**
+   * Returns the character separating the name and default value of enclosed
+   * expressions.
+   *
+   * @return the default value separator
+   */
+  char defaultValueSeparator() {
+    return this.defaultValueSeparator;
+  }
+
+  /**
+   * Returns the character separating the name and filters of enclosed
+   * expressions.
+   *
+   * @return the filter separator
+   */
+  char filterSeparator() {
+    return this.filterSeparator;
+  }
+
+  /**
+   * Returns the border character of bordered expressions.
+   *
+   * @return the border character
+   */
+  char border() {
+    return this.border;
+  }
+
+  /**
+   * Returns the class of the specified character.
+   *
+   * @param ch the character
+   *
+   * @return {@link #BORDER}, {@link #SENTINEL}, {@link #ESCAPE}, or {@link
+   * #NONE}
+   */
+  int classOf(final char ch) {
+    return ch < 0x80 ? this.table[ch] & CLASS_MASK : NONE;
+  }
+
+  /**
+   * Returns the number of characters at the specified index of the specified
+   * string forming a single character which may belong to a bordered
+   * expression's name. The characters of {@link Utf8Bytes} are its bytes, so
+   * a character outside of ASCII is decoded from them.
+   *
+   * @param string the string
+   * @param index  the index of the character
+   *
+   * @return the number of characters forming the name character, or zero if
+   * the character at the index may not belong to a name
+   */
+  int nameCharacterLength(final CharSequence string, final int index) {
+    final char ch = string.charAt(index);
+
+    if (ch < 0x80) {
+      return (this.table[ch] & NAME) != 0 ? 1 : 0;
+    } else if (string instanceof Utf8Bytes) {
+      return ((Utf8Bytes) string).letterOrDigitLength(index);
+    }
+
+    return Character.isLetterOrDigit(ch) ? 1 : 0;
+  }
+
+  /**
+   * Returns whether the specified character may belong to a bordered
+   * expression's name.
+   *
+   * @param ch the character
+   *
+   * @return whether the character may belong to a name
+   */
+  boolean isNameCharacter(final char ch) {
+    return ch < 0x80 ? (this.table[ch] & NAME) != 0 :
+                       Character.isLetterOrDigit(ch);
+  }
+
+  /**
+   * Returns whether the opener of enclosed expressions begins at the
+   * specified index of the specified string.
+   *
+   * @param string the string
+   * @param index  the index
+   *
+   * @return whether the opener begins at the index
+   */
+  boolean opensAt(final CharSequence string, final int index) {
+    return string.charAt(index) == this.sentinel &&
+           index + 1 < string.length() &&
+           string.charAt(index + 1) == this.opener;
+  }
+
+  /**
+   * Returns whether the closer of enclosed expressions begins at the
+   * specified index of the specified string.
+   *
+   * @param string the string
+   * @param index  the index
+   *
+   * @return whether the closer begins at the index
+   */
+  boolean closesAt(final CharSequence string, final int index) {
+    final String closer = this.closer;
+
+    if (string.charAt(index) != closer.charAt(0)) {
+      return false;
+    } else if (index + closer.length() > string.length()) {
+      return false;
+    }
+
+    for (int i = 1; i < closer.length(); ++i) {
+      if (string.charAt(index + i) != closer.charAt(i)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns whether the specified string ends with the closer of enclosed
+   * expressions, beginning at or after the specified index.
+   *
+   * @param string     the string
+   * @param startIndex the first index at which the closer may begin
+   *
+   * @return whether the string ends with the closer
+   */
+  boolean closesBefore(final CharSequence string, final int startIndex) {
+    final int index = string.length() - this.closer.length();
+    return index >= startIndex && closesAt(string, index);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder string = new StringBuilder("Syntax[");
+
+    if (hasEnclosedForm()) {
+      string.append(this.sentinel).append(this.opener).append(this.closer);
+    }
+
+    if (hasBorderedForm()) {
+      string.append(hasEnclosedForm() ? " " : "")
+        .append(this.border).append(this.border);
+    }
+
+    return string.append(']').toString();
+  }
+
+  /**
+   * A builder of {@link Syntax}es. Builders are not safe for use by many
+   * threads concurrently.
+   */
+  public static final class Builder {
+    /**
+     * The first character of the opener of enclosed expressions, or {@code 0}
+     * if there is no enclosed form.
+     */
+    private char sentinel;
+
+    /**
+     * The second character of the opener of enclosed expressions.
+     */
+    private char opener;
+
+    /**
+     * The closer of enclosed expressions.
+     */
+    private String closer;
+
+    /**
+     * The character escaping the following character.
+     */
+    private char escape = '\\';
+
+    /**
+     * The character separating the name and default value of enclosed
+     * expressions.
+     */
+    private char defaultValueSeparator = ':';
+
+    /**
+     * The character separating the name and filters of enclosed expressions.
+     */
+    private char filterSeparator = '|';
+
+    /**
+     * The border character of bordered expressions, or {@code 0} if there is
+     * no bordered form.
+     */
+    private char border;
+
+    /**
+     * The characters other than letters and digits which may belong to a
+     * bordered expression's name.
+     */
+    private String nameCharacters = "";
+
+    Builder() {
+    }
+
+    /**
+     * Sets the delimiters of the enclosed form of expression.
+     *
+     * @param opener the opener, of two characters, e.g. {@code ${}
+     * @param closer the closer, of at least one character, e.g. <code>}</code>
+     *
+     * @throws IllegalArgumentException when the opener is not of two
+     * characters, the closer is empty, or either contains a character which
+     * is not ASCII punctuation
+     *
+     * @return this builder
+     */
+    public Builder enclosed(final String opener, final String closer) {
+      if (opener.length() != 2) {
+        throw new IllegalArgumentException("opener must be two characters");
+      } else if (closer.isEmpty()) {
+        throw new IllegalArgumentException("closer must not be empty");
+      }
+
+      requirePunctuation(opener);
+      requirePunctuation(closer);
+      this.sentinel = opener.charAt(0);
+      this.opener = opener.charAt(1);
+      this.closer = closer;
+      return this;
+    }
+
+    /**
+     * Sets the border character of the bordered form of expression.
+     *
+     * @param border the border character, e.g. {@code %}
+     *
+     * @throws IllegalArgumentException when the border character is not ASCII
+     * punctuation
+     *
+     * @return this builder
+     */
+    public Builder bordered(final char border) {
+      requirePunctuation(String.valueOf(border));
+      this.border = border;
+      return this;
+    }
+
+    /**
+     * Sets the characters other than letters and digits which may belong to
+     * the name of a bordered expression, e.g. {@code _.}.
+     *
+     * @param nameCharacters the additional name characters
+     *
+     * @throws IllegalArgumentException when an additional name character is
+     * not ASCII punctuation
+     *
+     * @return this builder
+     */
+    public Builder nameCharacters(final String nameCharacters) {
+      requirePunctuation(nameCharacters);
+      this.nameCharacters = nameCharacters;
+      return this;
+    }
+
+    /**
+     * Sets the escape character, which causes the following sentinel
+     * character to be taken literally.
+     *
+     * @param escape the escape character
+     *
+     * @throws IllegalArgumentException when the escape character is not ASCII
+     * punctuation
+     *
+     * @return this builder
+     */
+    public Builder escape(final char escape) {
+      requirePunctuation(String.valueOf(escape));
+      this.escape = escape;
+      return this;
+    }
+
+    /**
+     * Sets the character separating the name and default value of enclosed
+     * expressions.
+     *
+     * @param separator the default value separator
+     *
+     * @throws IllegalArgumentException when the separator is not ASCII
+     * punctuation
+     *
+     * @return this builder
+     */
+    public Builder defaultValueSeparator(final char separator) {
+      requirePunctuation(String.valueOf(separator));
+      this.defaultValueSeparator = separator;
+      return this;
+    }
+
+    /**
+     * Sets the character separating the name and filters of enclosed
+     * expressions.
+     *
+     * @param separator the filter separator
+     *
+     * @throws IllegalArgumentException when the separator is not ASCII
+     * punctuation
+     *
+     * @return this builder
+     */
+    public Builder filterSeparator(final char separator) {
+      requirePunctuation(String.valueOf(separator));
+      this.filterSeparator = separator;
+      return this;
+    }
+
+    /**
+     * Constructs a {@link Syntax} from the delimiters set so far. The builder
+     * may continue to be used afterwards without affecting the constructed
+     * syntax.
+     *
+     * @throws IllegalArgumentException when the syntax has neither form of
+     * expression, or its delimiters would be ambiguous: when the sentinel,
+     * escape and border characters are not distinct, the closer contains the
+     * opener, the sentinel, the escape character or a separator, the
+     * separators are the same as each other or as a character of the opener
+     * or the escape character, or an additional name character is the border
+     * character
+     *
+     * @return the syntax
+     */
+    public Syntax build() {
+      if (this.sentinel == 0 && this.border == 0) {
+        throw new IllegalArgumentException(
+          "syntax must have an enclosed or bordered form"
+        );
+      }
+
+      if (this.sentinel != 0) {
+        final String reserved =
+          "" + this.sentinel + this.opener + this.escape +
+          this.defaultValueSeparator + this.filterSeparator;
+
+        for (int i = 0; i < this.closer.length(); ++i) {
+          if (reserved.indexOf(this.closer.charAt(i)) >= 0) {
+            throw new IllegalArgumentException(
+              "closer must not contain the opener, the escape character or " +
+              "a separator"
+            );
+          }
+        }
+
+        if (!distinct(this.sentinel, this.escape,
+                      this.defaultValueSeparator, this.filterSeparator) ||
+            !distinct(this.opener, this.escape,
+                      this.defaultValueSeparator, this.filterSeparator)) {
+          throw new IllegalArgumentException(
+            "escape character and separators must be distinct from each " +
+            "other and from the opener"
+          );
+        } else if (this.border == this.sentinel ||
+                   this.border == this.escape) {
+          throw new IllegalArgumentException(
+            "border character must be distinct from the sentinel and " +
+            "escape characters"
+          );
+        }
+      }
+
+      if (this.nameCharacters.indexOf(this.border) >= 0) {
+        throw new IllegalArgumentException(
+          "name characters must not contain the border character"
+        );
+      }
+
+      return new Syntax(this);
+    }
+
+    /**
+     * Returns whether the specified characters are distinct from one another.
+     *
+     * @param chars the characters
+     *
+     * @return whether no two of the characters are the same
+     */
+    private static boolean distinct(final char... chars) {
+      for (int i = 0; i < chars.length; ++i) {
+        for (int j = i + 1; j < chars.length; ++j) {
+          if (chars[i] == chars[j]) {
+            return false;
+          }
+        }
+      }
+
+      return true;
+    }
+
+    /**
+     * Ensures that every character of the specified delimiter is ASCII
+     * punctuation, neither a letter, a digit, whitespace nor a control
+     * character.
+     *
+     * @param delimiter the delimiter
+     *
+     * @throws IllegalArgumentException when a character is not ASCII
+     * punctuation
+     */
+    private static void requirePunctuation(final String delimiter) {
+      for (int i = 0; i < delimiter.length(); ++i) {
+        final char ch = delimiter.charAt(i);
+
+        if (ch <= ' ' || ch >= 0x7F || Character.isLetterOrDigit(ch)) {
+          throw new IllegalArgumentException(
+            "Not an ASCII punctuation character: " + ch
+          );
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,615 @@
+package sh.cody.string.interpolate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A parsed string which may be rendered with values from a {@link Context}
+ * repeatedly without being parsed again.
+ * <p>
+ * Templates are constructed by {@link ShellStyleStringInterpolator#compile}
+ * and are immutable; a single template may be rendered by many threads
+ * concurrently. A template returned by {@link TemplateCompiler#optimize} is
+ * rendered by generated code once it has been rendered often enough.
+ * <p>
+ * A template may be partially evaluated with {@link #bind}, which folds the
+ * values of variables known in advance into its literal text and returns a
+ * residual template referring only to the remaining variables.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+public final class Template {
+  /**
+   * The string from which this template was parsed.
+   */
+  private final String source;
+
+  /**
+   * The literal text and variable expressions of this template, in order.
+   */
+  private final Segment[] segments;
+
+  /**
+   * The combined length of the literal text of this template.
+   */
+  private final int literalLength;
+
+  /**
+   * The names of the variables referred to by this template, in order of first
+   * reference.
+   */
+  private final Set<String> keys;
+
+  /**
+   * The interpolator used to recursively expand values when this template is
+   * rendered, or {@code null} if values are not recursively expanded.
+   */
+  private final ShellStyleStringInterpolator interpolator;
+
+  /**
+   * The number of renders after which this template is compiled into
+   * generated code, or {@code -1} if it is always interpreted.
+   */
+  private final int compileThreshold;
+
+  /**
+   * The renderer to which {@link #render(Context)} is delegated, or {@code
+   * null} if this template has not been compiled yet.
+   */
+  private volatile CompiledRenderer compiled;
+
+  /**
+   * The number of times this template has been rendered before being
+   * compiled. Updated without synchronization, so it may undercount renders
+   * made concurrently.
+   */
+  private int renders;
+
+  /**
+   * The template from which this template was bound, or {@code null} if this
+   * template was not returned by {@link #bind}.
+   */
+  private final Template origin;
+
+  /**
+   * The predicate which selected the variables bound into this template, or
+   * {@code null} if this template was not returned by {@link #bind}.
+   */
+  private final Predicate<String> isStatic;
+
+  Template(final String source,
+           final Segment[] segments,
+           final ShellStyleStringInterpolator interpolator) {
+    this(source, segments, interpolator, -1, null, null);
+  }
+
+  Template(final Template template, final int compileThreshold) {
+    this(
+      template.source, template.segments, template.interpolator,
+      compileThreshold, template.origin, template.isStatic
+    );
+  }
+
+  private Template(final String source,
+                   final Segment[] segments,
+                   final ShellStyleStringInterpolator interpolator,
+                   final int compileThreshold,
+                   final Template origin,
+                   final Predicate<String> isStatic) {
+    final Set<String> keys = new LinkedHashSet<>();
+    int literalLength = 0;
+
+    for (final Segment segment : segments) {
+      if (segment instanceof Literal) {
+        literalLength += ((Literal) segment).text.length();
+      } else {
+        keys.add(((Expression) segment).name);
+      }
+    }
+
+    this.source = source;
+    this.segments = segments;
+    this.literalLength = literalLength;
+    this.keys = Collections.unmodifiableSet(keys);
+    this.interpolator = interpolator;
+    this.compileThreshold = compileThreshold;
+    this.origin = origin;
+    this.isStatic = isStatic;
+  }
+
+  /**
+   * Renders this template with values from the specified context.
+   *
+   * @param context the context from which interpolated values will be retrieved
+   *
+   * @return the rendered string
+   */
+  public String render(final Context context) {
+    final CompiledRenderer compiled = this.compiled;
+
+    if (compiled != null) {
+      return compiled.render(context);
+    }
+
+    if (this.compileThreshold >= 0 &&
+        this.renders++ >= this.compileThreshold) {
+      final CompiledRenderer renderer = TemplateCompiler.compile(this);
+      this.compiled = renderer;
+      return renderer.render(context);
+    }
+
+    return interpret(context);
+  }
+
+  /**
+   * Renders this template with values from the specified context by walking
+   * its segments.
+   *
+   * @param context the context from which interpolated values will be retrieved
+   *
+   * @return the rendered string
+   */
+  private String interpret(final Context context) {
+    return renderTo(
+      context, new StringBuilder(this.literalLength + 16 * this.segments.length)
+    ).toString();
+  }
+
+  /**
+   * Renders this template with values from the specified context, appending
+   * the result to the specified destination.
+   *
+   * @param context     the context from which interpolated values will be
+   *                    retrieved
+   * @param destination the destination to which the rendered template is
+   *                    appended
+   * @param <A>         the type of the destination
+   *
+   * @throws UncheckedIOException when the destination throws an
+   * {@link IOException}
+   * @throws IllegalArgumentException when values are recursively expanded and
+   * a value refers to itself, directly or indirectly, or its expansion is
+   * nested too deeply
+   *
+   * @return the destination
+   */
+  public <A extends Appendable> A renderTo(final Context context,
+                                           final A destination) {
+    final ShellStyleStringInterpolator.Expansion expansion =
+      this.interpolator == null ? null :
+                                  this.interpolator.new Expansion(context);
+
+    try {
+      for (final Segment segment : this.segments) {
+        segment.render(destination, context, expansion);
+      }
+    } catch (final IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+
+    return destination;
+  }
+
+  /**
+   * Renders this template with values from the specified context, fetching
+   * the values of every variable referred to by this template up front with a
+   * single invocation of {@link Context#getAll(Set)}.
+   * <p>
+   * The result is the same as that of {@link #render(Context)}, but a context
+   * backed by a costly store is consulted once rather than once per
+   * expression. Keys encountered only while recursively expanding values are
+   * looked up individually.
+   *
+   * @param context the context from which interpolated values will be retrieved
+   *
+   * @return the rendered string
+   */
+  public String renderPrefetched(final Context context) {
+    if (this.keys.isEmpty()) {
+      return render(context);
+    }
+
+    return render(
+      new PrefetchedContext(context, this.keys, context.getAll(this.keys))
+    );
+  }
+
+  /**
+   * Partially evaluates this template, returning a residual template in which
+   * the variables selected by the specified predicate are replaced with their
+   * values in the specified static context.
+   * <p>
+   * The static context is treated as authoritative for the selected
+   * variables: a selected variable which it does not contain is replaced with
+   * the expression's default value, or with the expression itself. The
+   * residual template looks up only the remaining variables, and renders the
+   * same text as this template would with a context combining both. When
+   * values are recursively expanded, a selected variable is only replaced if
+   * its expanded value refers to no other variable.
+   * <p>
+   * The static context is consulted once per selected variable during this
+   * call and never again; when its values change, {@link #rebind} derives a
+   * fresh residual template from this one. The residual template's source is
+   * that of this template, and it is compiled at the same threshold as this
+   * template, if any.
+   *
+   * @param staticContext the context from which the selected variables'
+   *                      values are retrieved
+   * @param isStatic      the predicate selecting the names of the variables
+   *                      to be replaced
+   *
+   * @return the residual template
+   */
+  public Template bind(final Context staticContext,
+                       final Predicate<String> isStatic) {
+    Objects.requireNonNull(staticContext);
+    Objects.requireNonNull(isStatic);
+
+    final List<Segment> residual = new ArrayList<>();
+    final StringBuilder literal = new StringBuilder();
+
+    for (final Segment segment : this.segments) {
+      final String text = segment instanceof Literal ?
+        ((Literal) segment).text :
+        fold((Expression) segment, staticContext, isStatic);
+
+      if (text != null) {
+        literal.append(text);
+        continue;
+      }
+
+      if (literal.length() != 0) {
+        residual.add(new Literal(literal.toString()));
+        literal.setLength(0);
+      }
+
+      residual.add(segment);
+    }
+
+    if (literal.length() != 0) {
+      residual.add(new Literal(literal.toString()));
+    }
+
+    final Template template = new Template(
+      this.source, residual.toArray(new Segment[0]), this.interpolator, -1,
+      this, isStatic
+    );
+
+    if (this.compileThreshold >= 0 && TemplateCompiler.isCompilable(template)) {
+      return new Template(template, this.compileThreshold);
+    }
+
+    return template;
+  }
+
+  /**
+   * Binds the template from which this template was bound again, with the
+   * same predicate and the values of the specified static context. Used to
+   * refresh a residual template once the values of its static context have
+   * changed.
+   *
+   * @param staticContext the context from which the selected variables'
+   *                      values are retrieved
+   *
+   * @throws IllegalStateException when this template was not returned by
+   * {@link #bind}
+   *
+   * @return the new residual template
+   */
+  public Template rebind(final Context staticContext) {
+    if (this.origin == null) {
+      throw new IllegalStateException("Template is not bound: " + this);
+    }
+
+    return this.origin.bind(staticContext, this.isStatic);
+  }
+
+  /**
+   * Returns the text with which the specified expression is replaced when
+   * this template is bound, if any.
+   *
+   * @param expression    the expression
+   * @param staticContext the context from which static values are retrieved
+   * @param isStatic      the predicate selecting the static variables
+   *
+   * @return the replacement text, or {@code null} if the expression remains
+   * in the residual template
+   */
+  private String fold(final Expression expression,
+                      final Context staticContext,
+                      final Predicate<String> isStatic) {
+    if (!isStatic.test(expression.name)) {
+      return null;
+    }
+
+    final String value = staticContext.get(expression.name);
+
+    if (value == null && !expression.fallbackDefault) {
+      return expression.fallback;
+    }
+
+    String text = value == null ? expression.fallback : value;
+
+    if (this.interpolator != null) {
+      text = expandedLiteral(text);
+    }
+
+    if (text == null || expression.filter == null) {
+      return text;
+    }
+
+    final StringBuilder filtered = new StringBuilder(text.length() * 2);
+
+    try {
+      expression.filter.filter(text, filtered);
+    } catch (final IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+
+    return filtered.toString();
+  }
+
+  /**
+   * Returns the recursive expansion of the specified text if it refers to no
+   * variable.
+   *
+   * @param text the text
+   *
+   * @return the expanded text, or {@code null} if it refers to a variable
+   */
+  private String expandedLiteral(final String text) {
+    final Template template = this.interpolator.compile(text);
+
+    if (!template.keys.isEmpty()) {
+      return null;
+    }
+
+    final StringBuilder literal = new StringBuilder(template.literalLength);
+
+    for (final Segment segment : template.segments) {
+      literal.append(((Literal) segment).text);
+    }
+
+    return literal.toString();
+  }
+
+  /**
+   * Returns the names of the variables referred to by this template, in order
+   * of first reference.
+   *
+   * @return an unmodifiable set of the names of the variables referred to by
+   * this template
+   */
+  public Set<String> getKeys() {
+    return this.keys;
+  }
+
+  /**
+   * Returns whether this template is rendered by code generated by a {@link
+   * TemplateCompiler}.
+   *
+   * @return whether this template has been compiled
+   */
+  public boolean isCompiled() {
+    return this.compiled != null;
+  }
+
+  /**
+   * Returns whether this template recursively expands values.
+   *
+   * @return whether this template recursively expands values
+   */
+  boolean isRecursive() {
+    return this.interpolator != null;
+  }
+
+  /**
+   * Returns the number of renders after which this template is compiled.
+   *
+   * @return the number of renders after which this template is compiled, or
+   * {@code -1} if it is always interpreted
+   */
+  int getCompileThreshold() {
+    return this.compileThreshold;
+  }
+
+  /**
+   * Returns the literal text and variable expressions of this template, in
+   * order. The returned array must not be modified.
+   *
+   * @return the segments of this template
+   */
+  Segment[] getSegments() {
+    return this.segments;
+  }
+
+  /**
+   * Returns the string from which this template was parsed.
+   *
+   * @return the string from which this template was parsed
+   */
+  public String getSource() {
+    return this.source;
+  }
+
+  @Override
+  public String toString() {
+    return this.source;
+  }
+
+  /**
+   * Looks up the value of a variable without recursive expansion, notifying
+   * the context's {@link ExpressionObserver} if it cannot be matched. Called
+   * by the code generated by {@link TemplateCompiler}.
+   *
+   * @param context         the context in which the variable is looked up
+   * @param name            the name of the variable
+   * @param fallback        the text rendered when the variable cannot be
+   *                        matched
+   * @param fallbackDefault whether the fallback is a default value
+   *
+   * @return the value of the variable, or the fallback if it cannot be matched
+   */
+  static String resolve(final Context context,
+                        final String name,
+                        final String fallback,
+                        final boolean fallbackDefault) {
+    final String value = context.get(name);
+
+    if (value != null) {
+      return value;
+    }
+
+    missed(context, fallbackDefault);
+    return fallback;
+  }
+
+  /**
+   * Notifies the context's {@link ExpressionObserver}, if any, that an
+   * expression could not be matched.
+   *
+   * @param context         the context in which the variable was looked up
+   * @param fallbackDefault whether the expression fell back to its default
+   *                        value, rather than being left unresolved
+   */
+  private static void missed(final Context context,
+                             final boolean fallbackDefault) {
+    final ExpressionObserver observer = ExpressionObserver.of(context);
+
+    if (observer != null) {
+      if (fallbackDefault) {
+        observer.defaulted();
+      } else {
+        observer.unresolved();
+      }
+    }
+  }
+
+  /**
+   * Renders a template to a string; implemented by the hidden classes
+   * generated by {@link TemplateCompiler}.
+   */
+  @FunctionalInterface
+  interface CompiledRenderer {
+    /**
+     * Renders the template with values from the specified context.
+     *
+     * @param context the context from which interpolated values will be
+     *                retrieved
+     *
+     * @return the rendered string
+     */
+    String render(Context context);
+  }
+
+  /**
+   * A contiguous part of a template, either literal text or a variable
+   * expression.
+   */
+  abstract static class Segment {
+    /**
+     * Renders this segment into the specified destination.
+     *
+     * @param destination the destination for the rendered segment
+     * @param context     the context used to look up the value to interpolate
+     * @param expansion   the state of the recursive expansion of values, or
+     *                    {@code null} if values are not recursively expanded
+     *
+     * @throws IOException when the destination throws an {@link IOException}
+     */
+    abstract void render(Appendable destination,
+                         Context context,
+                         ShellStyleStringInterpolator.Expansion expansion)
+      throws IOException;
+  }
+
+  /**
+   * A segment of literal text.
+   */
+  static final class Literal extends Segment {
+    /**
+     * The literal text of this segment.
+     */
+    final String text;
+
+    Literal(final String text) {
+      this.text = text;
+    }
+
+    @Override
+    void render(final Appendable destination,
+                final Context context,
+                final ShellStyleStringInterpolator.Expansion expansion)
+      throws IOException {
+      destination.append(this.text);
+    }
+  }
+
+  /**
+   * A segment containing a variable expression.
+   */
+  static final class Expression extends Segment {
+    /**
+     * The name of the variable.
+     */
+    final String name;
+
+    /**
+     * The text to be rendered when the variable cannot be matched; either the
+     * expression's default value or the expression itself.
+     */
+    final String fallback;
+
+    /**
+     * Whether the fallback is the expression's default value, rather than the
+     * expression itself.
+     */
+    final boolean fallbackDefault;
+
+    /**
+     * The filter applied to the value or default value, or {@code null} if the
+     * expression names no filter.
+     */
+    final ValueFilter filter;
+
+    Expression(final String name,
+               final String fallback,
+               final boolean fallbackDefault,
+               final ValueFilter filter) {
+      this.name = name;
+      this.fallback = fallback;
+      this.fallbackDefault = fallbackDefault;
+      this.filter = filter;
+    }
+
+    @Override
+    void render(final Appendable destination,
+                final Context context,
+                final ShellStyleStringInterpolator.Expansion expansion)
+      throws IOException {
+      final String value = expansion == null ? context.get(this.name) :
+        expansion.resolve(this.name, 0, this.name.length());
+
+      if (value == null) {
+        missed(context, this.fallbackDefault);
+      }
+
+      if (value == null && !this.fallbackDefault) {
+        destination.append(this.fallback);
+      } else if (value == null && expansion != null) {
+        expansion.expand(this.fallback, destination, this.filter);
+      } else if (this.filter != null) {
+        this.filter.filter(value == null ? this.fallback : value, destination);
+      } else {
+        destination.append(value == null ? this.fallback : value);
+      }
+    }
+  }
+}
@@ -0,0 +1,592 @@
+package sh.cody.string.interpolate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compiles frequently rendered {@link Template}s into generated code.
+ * <p>
+ * A template returned by {@link #optimize(Template)} is interpreted, segment
+ * by segment, until it has been rendered as many times as the compiler's
+ * threshold. It is then compiled into a hidden class whose single method
+ * looks up every variable in turn, sums the lengths of the literal text and
+ * the values to size its output exactly, and appends the literals, held as
+ * constants, and the values in straight-line code. Templates which are
+ * rendered rarely are never compiled, so they cost no more than before.
+ * <p>
+ * Only {@link Template#render(Context)} is delegated to the generated code;
+ * templates which recursively expand values, which apply {@link ValueFilter}s,
+ * or whose text is too large to be held in a class file's constants, are
+ * always interpreted. Compilers are
+ * immutable and may be used by many threads concurrently.
+ *
+ * @implNote The hidden classes are defined without
+ * {@link MethodHandles.Lookup.ClassOption#STRONG}, so one is unloaded once the
+ * template which compiled it is no longer reachable. The class files are
+ * written by hand rather than with a bytecode library; since the generated
+ * code has no branches, it needs no stack map frames.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+public final class TemplateCompiler {
+  /**
+   * The default number of renders after which a template is compiled.
+   */
+  private static final int DEFAULT_COMPILE_THRESHOLD = 10_000;
+
+  /**
+   * The greatest number of expressions in a compiled template, bounded by the
+   * local variables addressable by a single-byte index.
+   */
+  private static final int MAX_EXPRESSIONS = 250;
+
+  /**
+   * The greatest length of a string held as a class file constant, in bytes
+   * of modified UTF-8.
+   */
+  private static final int MAX_CONSTANT_LENGTH = 65535;
+
+  /**
+   * The internal name of the generated classes.
+   */
+  private static final String CLASS_NAME =
+    "sh/cody/string/interpolate/CompiledTemplate";
+
+  /**
+   * The internal name of {@link StringBuilder}.
+   */
+  private static final String BUILDER = "java/lang/StringBuilder";
+
+  /**
+   * The descriptor of {@link Template.CompiledRenderer#render(Context)}.
+   */
+  private static final String RENDER_DESCRIPTOR =
+    "(Lsh/cody/string/interpolate/Context;)Ljava/lang/String;";
+
+  /**
+   * The descriptor of {@link Template#resolve}.
+   */
+  private static final String RESOLVE_DESCRIPTOR =
+    "(Lsh/cody/string/interpolate/Context;Ljava/lang/String;" +
+    "Ljava/lang/String;Z)Ljava/lang/String;";
+
+  /**
+   * The number of renders after which a template is compiled.
+   */
+  private final int compileThreshold;
+
+  /**
+   * Constructs a new {@link TemplateCompiler} which compiles templates after
+   * they have been rendered ten thousand times.
+   */
+  public TemplateCompiler() {
+    this(DEFAULT_COMPILE_THRESHOLD);
+  }
+
+  /**
+   * Constructs a new {@link TemplateCompiler}.
+   *
+   * @param compileThreshold the number of renders after which a template is
+   *                         compiled; {@code 0} compiles templates when they
+   *                         are first rendered
+   *
+   * @throws IllegalArgumentException when compileThreshold is negative
+   */
+  public TemplateCompiler(final int compileThreshold) {
+    if (compileThreshold < 0) {
+      throw new IllegalArgumentException(
+        "compileThreshold must not be negative"
+      );
+    }
+
+    this.compileThreshold = compileThreshold;
+  }
+
+  /**
+   * Returns the number of renders after which a template is compiled.
+   *
+   * @return the number of renders after which a template is compiled
+   */
+  public int getCompileThreshold() {
+    return this.compileThreshold;
+  }
+
+  /**
+   * Returns a template equivalent to the specified template which is compiled
+   * once it has been rendered as many times as this compiler's threshold.
+   *
+   * @param template the template to be optimized
+   *
+   * @return the optimized template, or the specified template itself if it
+   * cannot be compiled or is already optimized by an equivalent compiler
+   */
+  public Template optimize(final Template template) {
+    if (template.getCompileThreshold() == this.compileThreshold ||
+        !isCompilable(template)) {
+      return template;
+    }
+
+    return new Template(template, this.compileThreshold);
+  }
+
+  /**
+   * Returns whether the specified template may be compiled.
+   *
+   * @param template the template
+   *
+   * @return whether the template may be compiled
+   */
+  static boolean isCompilable(final Template template) {
+    if (template.isRecursive()) {
+      return false;
+    }
+
+    int expressions = 0;
+
+    for (final Template.Segment segment : template.getSegments()) {
+      if (segment instanceof Template.Literal) {
+        if (!isConstant(((Template.Literal) segment).text)) {
+          return false;
+        }
+      } else {
+        final Template.Expression expression = (Template.Expression) segment;
+
+        if (++expressions > MAX_EXPRESSIONS || expression.filter != null ||
+            !isConstant(expression.name) ||
+            !isConstant(expression.fallback)) {
+          return false;
+        }
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns whether the specified string may be held as a class file
+   * constant.
+   *
+   * @param string the string
+   *
+   * @return whether the string's modified UTF-8 encoding is short enough
+   */
+  private static boolean isConstant(final String string) {
+    if (string.length() * 3 <= MAX_CONSTANT_LENGTH) {
+      return true;
+    }
+
+    long length = 0;
+
+    for (int i = 0; i < string.length(); ++i) {
+      final char ch = string.charAt(i);
+      length += ch != 0 && ch < 0x80 ? 1 : ch < 0x800 ? 2 : 3;
+    }
+
+    return length <= MAX_CONSTANT_LENGTH;
+  }
+
+  /**
+   * Compiles the specified template into a hidden class.
+   *
+   * @param template the template, which must be compilable
+   *
+   * @return an instance of the hidden class
+   */
+  static Template.CompiledRenderer compile(final Template template) {
+    try {
+      final MethodHandles.Lookup lookup = MethodHandles.lookup()
+        .defineHiddenClass(generate(template), true);
+
+      return (Template.CompiledRenderer) lookup.findConstructor(
+        lookup.lookupClass(), MethodType.methodType(void.class)
+      ).invoke();
+    } catch (final IOException exception) {
+      throw new UncheckedIOException(exception);
+    } catch (final RuntimeException | Error exception) {
+      throw exception;
+    } catch (final Throwable throwable) {
+      throw new IllegalStateException(
+        "Failed to compile template: " + template, throwable
+      );
+    }
+  }
+
+  /**
+   * Generates the class file of a renderer for the specified template.
+   *
+   * @param template the template
+   *
+   * @throws IOException when the class file cannot be written
+   *
+   * @return the class file
+   */
+  private static byte[] generate(final Template template) throws IOException {
+    final ConstantPool pool = new ConstantPool();
+    final int thisClass = pool.classInfo(CLASS_NAME);
+    final int superClass = pool.classInfo("java/lang/Object");
+    final int rendererClass = pool.classInfo(
+      "sh/cody/string/interpolate/Template$CompiledRenderer"
+    );
+    final int builderClass = pool.classInfo(BUILDER);
+    final int objectInit = pool.methodRef("java/lang/Object", "<init>", "()V");
+    final int builderInit = pool.methodRef(BUILDER, "<init>", "(I)V");
+    final int append = pool.methodRef(
+      BUILDER, "append", "(Ljava/lang/String;)Ljava/lang/StringBuilder;"
+    );
+    final int toString = pool.methodRef(
+      BUILDER, "toString", "()Ljava/lang/String;"
+    );
+    final int length = pool.methodRef("java/lang/String", "length", "()I");
+    final int resolve = pool.methodRef(
+      "sh/cody/string/interpolate/Template", "resolve", RESOLVE_DESCRIPTOR
+    );
+
+    final Template.Segment[] segments = template.getSegments();
+    final ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+    final DataOutputStream code = new DataOutputStream(codeBytes);
+    final int[] locals = new int[segments.length];
+    int nextLocal = 2;
+    int literalLength = 0;
+
+    // look up each value into a local variable
+    for (int i = 0; i < segments.length; ++i) {
+      if (segments[i] instanceof Template.Literal) {
+        literalLength += ((Template.Literal) segments[i]).text.length();
+        continue;
+      }
+
+      final Template.Expression expression =
+        (Template.Expression) segments[i];
+
+      code.writeByte(Opcodes.ALOAD_1);
+      code.writeByte(Opcodes.LDC_W);
+      code.writeShort(pool.string(expression.name));
+      code.writeByte(Opcodes.LDC_W);
+      code.writeShort(pool.string(expression.fallback));
+      code.writeByte(
+        expression.fallbackDefault ? Opcodes.ICONST_1 : Opcodes.ICONST_0
+      );
+      code.writeByte(Opcodes.INVOKESTATIC);
+      code.writeShort(resolve);
+      code.writeByte(Opcodes.ASTORE);
+      code.writeByte(nextLocal);
+      locals[i] = nextLocal++;
+    }
+
+    // new StringBuilder(literalLength + value0.length() + ...)
+    code.writeByte(Opcodes.NEW);
+    code.writeShort(builderClass);
+    code.writeByte(Opcodes.DUP);
+    code.writeByte(Opcodes.LDC_W);
+    code.writeShort(pool.integer(literalLength));
+
+    for (int i = 0; i < segments.length; ++i) {
+      if (locals[i] != 0) {
+        code.writeByte(Opcodes.ALOAD);
+        code.writeByte(locals[i]);
+        code.writeByte(Opcodes.INVOKEVIRTUAL);
+        code.writeShort(length);
+        code.writeByte(Opcodes.IADD);
+      }
+    }
+
+    code.writeByte(Opcodes.INVOKESPECIAL);
+    code.writeShort(builderInit);
+
+    // append each literal and value in order
+    for (int i = 0; i < segments.length; ++i) {
+      if (locals[i] != 0) {
+        code.writeByte(Opcodes.ALOAD);
+        code.writeByte(locals[i]);
+      } else {
+        code.writeByte(Opcodes.LDC_W);
+        code.writeShort(pool.string(((Template.Literal) segments[i]).text));
+      }
+
+      code.writeByte(Opcodes.INVOKEVIRTUAL);
+      code.writeShort(append);
+    }
+
+    code.writeByte(Opcodes.INVOKEVIRTUAL);
+    code.writeShort(toString);
+    code.writeByte(Opcodes.ARETURN);
+
+    final int codeName = pool.utf8("Code");
+    final int initName = pool.utf8("<init>");
+    final int initDescriptor = pool.utf8("()V");
+    final int renderName = pool.utf8("render");
+    final int renderDescriptor = pool.utf8(RENDER_DESCRIPTOR);
+
+    final ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(classBytes);
+
+    out.writeInt(0xCAFEBABE);
+    out.writeShort(0);
+    out.writeShort(61);
+    pool.writeTo(out);
+    out.writeShort(Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER);
+    out.writeShort(thisClass);
+    out.writeShort(superClass);
+    out.writeShort(1);
+    out.writeShort(rendererClass);
+    out.writeShort(0);
+    out.writeShort(2);
+
+    // public CompiledTemplate() { super(); }
+    writeMethod(
+      out, initName, initDescriptor, codeName, 1, 1,
+      new byte[] {
+        Opcodes.ALOAD_0,
+        Opcodes.INVOKESPECIAL, (byte) (objectInit >>> 8), (byte) objectInit,
+        Opcodes.RETURN
+      }
+    );
+
+    // public String render(Context context) { ... }
+    writeMethod(
+      out, renderName, renderDescriptor, codeName, 5, nextLocal,
+      codeBytes.toByteArray()
+    );
+
+    out.writeShort(0);
+    return classBytes.toByteArray();
+  }
+
+  /**
+   * Writes a public method with the specified code to a class file.
+   *
+   * @param out        the class file
+   * @param name       the constant index of the method's name
+   * @param descriptor the constant index of the method's descriptor
+   * @param codeName   the constant index of the string {@code Code}
+   * @param maxStack   the greatest depth of the method's operand stack
+   * @param maxLocals  the number of the method's local variables
+   * @param code       the method's bytecode
+   *
+   * @throws IOException when the class file cannot be written
+   */
+  private static void writeMethod(final DataOutputStream out,
+                                  final int name,
+                                  final int descriptor,
+                                  final int codeName,
+                                  final int maxStack,
+                                  final int maxLocals,
+                                  final byte[] code) throws IOException {
+    out.writeShort(Opcodes.ACC_PUBLIC);
+    out.writeShort(name);
+    out.writeShort(descriptor);
+    out.writeShort(1);
+    out.writeShort(codeName);
+    out.writeInt(12 + code.length);
+    out.writeShort(maxStack);
+    out.writeShort(maxLocals);
+    out.writeInt(code.length);
+    out.write(code);
+    out.writeShort(0);
+    out.writeShort(0);
+  }
+
+  /**
+   * The access flags and opcodes used by the generated classes.
+   */
+  private static final class Opcodes {
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+    static final byte ICONST_0 = 0x03;
+    static final byte ICONST_1 = 0x04;
+    static final byte LDC_W = 0x13;
+    static final byte ALOAD = 0x19;
+    static final byte ALOAD_0 = 0x2A;
+    static final byte ALOAD_1 = 0x2B;
+    static final byte ASTORE = 0x3A;
+    static final byte DUP = 0x59;
+    static final byte IADD = 0x60;
+    static final byte ARETURN = (byte) 0xB0;
+    static final byte RETURN = (byte) 0xB1;
+    static final byte INVOKEVIRTUAL = (byte) 0xB6;
+    static final byte INVOKESPECIAL = (byte) 0xB7;
+    static final byte INVOKESTATIC = (byte) 0xB8;
+    static final byte NEW = (byte) 0xBB;
+
+    private Opcodes() {
+    }
+  }
+
+  /**
+   * The constant pool of a class file under construction. Equal constants
+   * share a single entry.
+   */
+  private static final class ConstantPool {
+    /**
+     * The serialized entries, in order.
+     */
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    /**
+     * The serialized entries, written to {@link #bytes}.
+     */
+    private final DataOutputStream out = new DataOutputStream(this.bytes);
+
+    /**
+     * The indexes of the entries added so far, keyed by their tag and value.
+     */
+    private final Map<String, Integer> indexes = new HashMap<>();
+
+    /**
+     * The number of entries added so far.
+     */
+    private int count;
+
+    /**
+     * Adds a string entry, encoded as modified UTF-8.
+     *
+     * @param value the string
+     *
+     * @throws IOException when the entry cannot be written
+     *
+     * @return the index of the entry
+     */
+    int utf8(final String value) throws IOException {
+      final Integer index = this.indexes.get("1:" + value);
+
+      if (index != null) {
+        return index;
+      }
+
+      this.out.writeByte(1);
+      this.out.writeUTF(value);
+      return add("1:" + value);
+    }
+
+    /**
+     * Adds an integer entry.
+     *
+     * @param value the integer
+     *
+     * @throws IOException when the entry cannot be written
+     *
+     * @return the index of the entry
+     */
+    int integer(final int value) throws IOException {
+      final Integer index = this.indexes.get("3:" + value);
+
+      if (index != null) {
+        return index;
+      }
+
+      this.out.writeByte(3);
+      this.out.writeInt(value);
+      return add("3:" + value);
+    }
+
+    /**
+     * Adds an entry referring to a class.
+     *
+     * @param name the internal name of the class
+     *
+     * @throws IOException when the entry cannot be written
+     *
+     * @return the index of the entry
+     */
+    int classInfo(final String name) throws IOException {
+      return reference(7, utf8(name));
+    }
+
+    /**
+     * Adds an entry for a string constant loadable by {@code ldc}.
+     *
+     * @param value the string
+     *
+     * @throws IOException when the entry cannot be written
+     *
+     * @return the index of the entry
+     */
+    int string(final String value) throws IOException {
+      return reference(8, utf8(value));
+    }
+
+    /**
+     * Adds an entry referring to a method of a class.
+     *
+     * @param owner      the internal name of the class declaring the method
+     * @param name       the name of the method
+     * @param descriptor the descriptor of the method
+     *
+     * @throws IOException when the entry cannot be written
+     *
+     * @return the index of the entry
+     */
+    int methodRef(final String owner,
+                  final String name,
+                  final String descriptor) throws IOException {
+      final int ownerIndex = classInfo(owner);
+      final int nameAndType = reference(12, utf8(name), utf8(descriptor));
+      return reference(10, ownerIndex, nameAndType);
+    }
+
+    /**
+     * Adds an entry composed of references to other entries.
+     *
+     * @param tag        the tag of the entry
+     * @param references the indexes of the entries it refers to
+     *
+     * @throws IOException when the entry cannot be written
+     *
+     * @return the index of the entry
+     */
+    private int reference(final int tag, final int... references)
+      throws IOException {
+      final StringBuilder key = new StringBuilder().append(tag);
+
+      for (final int reference : references) {
+        key.append(':').append(reference);
+      }
+
+      final Integer index = this.indexes.get(key.toString());
+
+      if (index != null) {
+        return index;
+      }
+
+      this.out.writeByte(tag);
+
+      for (final int reference : references) {
+        this.out.writeShort(reference);
+      }
+
+      return add(key.toString());
+    }
+
+    /**
+     * Records the index of an entry which has just been written.
+     *
+     * @param key the tag and value of the entry
+     *
+     * @return the index of the entry
+     */
+    private int add(final String key) {
+      final int index = ++this.count;
+      this.indexes.put(key, index);
+      return index;
+    }
+
+    /**
+     * Writes the constant pool count and entries to a class file.
+     *
+     * @param out the class file
+     *
+     * @throws IOException when the class file cannot be written
+     */
+    void writeTo(final DataOutputStream out) throws IOException {
+      out.writeShort(this.count + 1);
+      this.bytes.writeTo(out);
+    }
+  }
+}
@@ -0,0 +1,352 @@
+package sh.cody.string.interpolate;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * A registry of named templates which are kept rendered with the values of a
+ * {@link MutableContext}.
+ * <p>
+ * The keys read while rendering each template are recorded, and an inverted
+ * index from each key to the templates which read it is maintained. When
+ * values in the context change, only the templates which read a changed key
+ * are rendered again; listeners then receive every rendering which changed
+ * as a single delta.
+ * <p>
+ * The keys read by a template are recorded each time it is rendered, so keys
+ * reached only through recursive expansion or behind a default value are
+ * tracked as well.
+ * <p>
+ * A template which fails to render again keeps its previous rendering, and
+ * is rendered again once any key read by it changes; the failure is
+ * available from {@link #getFailure(String)} until it renders successfully.
+ * Deltas are delivered to the listeners in the order in which the renderings
+ * they contain were made.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+public final class TemplateRegistry implements AutoCloseable {
+  /**
+   * The interpolator used to render the templates.
+   */
+  private final StringInterpolator interpolator;
+
+  /**
+   * The context from which values are interpolated.
+   */
+  private final MutableContext context;
+
+  /**
+   * The registered templates, by name.
+   */
+  private final Map<String, Entry> entries = new HashMap<>();
+
+  /**
+   * The names of the templates which read each key.
+   */
+  private final Map<String, Set<String>> dependents = new HashMap<>();
+
+  /**
+   * The listeners notified of changed renderings.
+   */
+  private final List<Consumer<Map<String, String>>> listeners =
+    new CopyOnWriteArrayList<>();
+
+  /**
+   * The listener registered with the context.
+   */
+  private final Consumer<Set<String>> contextListener = this::changed;
+
+  /**
+   * The lock held while rendering and delivering each delta, so that deltas
+   * are delivered in the order in which they were rendered. It is always
+   * acquired before the monitor of this registry, never after.
+   */
+  private final Object deliveryLock = new Object();
+
+  /**
+   * Constructs a new {@link TemplateRegistry}, listening for changes to the
+   * specified context.
+   *
+   * @param interpolator the interpolator used to render the templates
+   * @param context      the context from which values are interpolated
+   */
+  public TemplateRegistry(final StringInterpolator interpolator,
+                          final MutableContext context) {
+    this.interpolator = Objects.requireNonNull(interpolator);
+    this.context = Objects.requireNonNull(context);
+    context.addListener(this.contextListener);
+  }
+
+  /**
+   * Registers the specified template under the specified name, replacing any
+   * template previously registered under that name, and renders it.
+   *
+   * @param name     the name of the template
+   * @param template the template to be rendered
+   *
+   * @return the rendered template
+   *
+   * @throws RuntimeException when the template cannot be rendered, in which
+   * case the registry is left unchanged
+   */
+  public synchronized String register(final String name,
+                                      final String template) {
+    final Entry entry = new Entry(template);
+    final Set<String> keys = new HashSet<>();
+    entry.rendered = render(template, keys);
+
+    unregister(name);
+    this.entries.put(name, entry);
+    index(name, entry, keys);
+    return entry.rendered;
+  }
+
+  /**
+   * Unregisters the template registered under the specified name, if any.
+   *
+   * @param name the name of the template
+   */
+  public synchronized void unregister(final String name) {
+    final Entry entry = this.entries.remove(name);
+
+    if (entry != null) {
+      unindex(name, entry);
+    }
+  }
+
+  /**
+   * Returns the current rendering of the template registered under the
+   * specified name.
+   *
+   * @param name the name of the template
+   *
+   * @return the rendered template, or {@code null} if no template is
+   * registered under the name
+   */
+  public synchronized String get(final String name) {
+    final Entry entry = this.entries.get(name);
+    return entry == null ? null : entry.rendered;
+  }
+
+  /**
+   * Returns the exception thrown when the template registered under the
+   * specified name last failed to render again, if it has not rendered
+   * successfully since.
+   *
+   * @param name the name of the template
+   *
+   * @return the exception, or {@code null} if the template's current
+   * rendering is up to date or no template is registered under the name
+   */
+  public synchronized RuntimeException getFailure(final String name) {
+    final Entry entry = this.entries.get(name);
+    return entry == null ? null : entry.failure;
+  }
+
+  /**
+   * Returns the names of the templates which read the specified key when they
+   * were last rendered.
+   *
+   * @param key the key
+   *
+   * @return an unmodifiable copy of the names of the templates which read the
+   * key
+   */
+  public synchronized Set<String> getDependents(final String key) {
+    final Set<String> names = this.dependents.get(key);
+    return names == null ? Set.of() : Set.copyOf(names);
+  }
+
+  /**
+   * Registers a listener to be notified of changed renderings. The listener
+   * receives a map from the name of each template whose rendering changed to
+   * its new rendering.
+   *
+   * @param listener the listener to be notified
+   */
+  public void addListener(final Consumer<Map<String, String>> listener) {
+    this.listeners.add(Objects.requireNonNull(listener));
+  }
+
+  /**
+   * Unregisters a listener previously registered with
+   * {@link #addListener(Consumer)}.
+   *
+   * @param listener the listener to be unregistered
+   */
+  public void removeListener(final Consumer<Map<String, String>> listener) {
+    this.listeners.remove(listener);
+  }
+
+  /**
+   * Stops listening for changes to the context.
+   */
+  @Override
+  public void close() {
+    this.context.removeListener(this.contextListener);
+  }
+
+  /**
+   * Renders the templates which read any of the specified keys again, and
+   * notifies the listeners of the renderings which changed.
+   *
+   * @param keys the keys whose values changed
+   */
+  private void changed(final Set<String> keys) {
+    synchronized (this.deliveryLock) {
+      final Map<String, String> delta = renderAffected(keys);
+
+      if (!delta.isEmpty()) {
+        final Map<String, String> changes = Collections.unmodifiableMap(delta);
+
+        for (final Consumer<Map<String, String>> listener : this.listeners) {
+          listener.accept(changes);
+        }
+      }
+    }
+  }
+
+  /**
+   * Renders the templates which read any of the specified keys again.
+   *
+   * @param keys the keys whose values changed
+   *
+   * @return the new renderings of the templates whose renderings changed, by
+   * name
+   */
+  private synchronized Map<String, String> renderAffected(
+    final Set<String> keys
+  ) {
+    final Set<String> affected = new HashSet<>();
+
+    for (final String key : keys) {
+      final Set<String> names = this.dependents.get(key);
+
+      if (names != null) {
+        affected.addAll(names);
+      }
+    }
+
+    final Map<String, String> delta = new LinkedHashMap<>();
+
+    for (final String name : affected) {
+      final Entry entry = this.entries.get(name);
+      final Set<String> read = new HashSet<>();
+      final String rendered;
+
+      try {
+        rendered = render(entry.template, read);
+      } catch (final RuntimeException exception) {
+        // keep the previous rendering, rendering again once any key read by
+        // either rendering changes
+        read.addAll(entry.keys);
+        unindex(name, entry);
+        index(name, entry, read);
+        entry.failure = exception;
+        continue;
+      }
+
+      unindex(name, entry);
+      index(name, entry, read);
+      entry.failure = null;
+
+      if (!rendered.equals(entry.rendered)) {
+        entry.rendered = rendered;
+        delta.put(name, rendered);
+      }
+    }
+
+    return delta;
+  }
+
+  /**
+   * Renders the specified template, recording the keys it reads.
+   *
+   * @param template the template
+   * @param keys     the set to which the keys read are added, including those
+   *                 read before rendering fails
+   *
+   * @return the rendered template
+   */
+  private String render(final String template, final Set<String> keys) {
+    return this.interpolator.interpolate(
+      template,
+      key -> {
+        keys.add(key);
+        return this.context.get(key);
+      }
+    );
+  }
+
+  /**
+   * Records the keys read by the specified template in the inverted index.
+   *
+   * @param name  the name of the template
+   * @param entry the template
+   * @param keys  the keys read by the template
+   */
+  private void index(final String name,
+                     final Entry entry,
+                     final Set<String> keys) {
+    entry.keys = keys;
+
+    for (final String key : keys) {
+      this.dependents.computeIfAbsent(key, k -> new HashSet<>()).add(name);
+    }
+  }
+
+  /**
+   * Removes the specified template from the inverted index.
+   *
+   * @param name  the name of the template
+   * @param entry the template
+   */
+  private void unindex(final String name, final Entry entry) {
+    for (final String key : entry.keys) {
+      final Set<String> names = this.dependents.get(key);
+
+      if (names != null && names.remove(name) && names.isEmpty()) {
+        this.dependents.remove(key);
+      }
+    }
+  }
+
+  /**
+   * A registered template along with its current rendering.
+   */
+  private static final class Entry {
+    /**
+     * The template to be rendered.
+     */
+    private final String template;
+
+    /**
+     * The current rendering of the template.
+     */
+    private String rendered;
+
+    /**
+     * The keys read when the template was last rendered.
+     */
+    private Set<String> keys = Set.of();
+
+    /**
+     * The exception thrown when the template last failed to render again, or
+     * {@code null} if its rendering is up to date.
+     */
+    private RuntimeException failure;
+
+    private Entry(final String template) {
+      this.template = template;
+    }
+  }
+}
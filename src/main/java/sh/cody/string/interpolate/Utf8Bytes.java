@@ -0,0 +1,241 @@
+package sh.cody.string.interpolate;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * A {@link CharSequence} view of a range of UTF-8 encoded bytes in which each
+ * byte is presented as the character with the same unsigned value.
+ * <p>
+ * Every character significant to interpolation is ASCII, and no byte of a
+ * multi-byte UTF-8 sequence is ASCII, so the view may be parsed as if it were
+ * text; a range of the view denotes the same range of bytes.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+final class Utf8Bytes implements CharSequence {
+  /**
+   * A word with the low seven bits of every byte set.
+   */
+  private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+  /**
+   * A word every byte of which is one.
+   */
+  private static final long ONES = 0x0101010101010101L;
+
+  /**
+   * The buffer containing the bytes, read with absolute indexes.
+   */
+  private final ByteBuffer buffer;
+
+  /**
+   * The index in the buffer of the first byte of this view.
+   */
+  private final int offset;
+
+  /**
+   * The number of bytes in this view.
+   */
+  private final int length;
+
+  /**
+   * Constructs a new {@link Utf8Bytes} viewing the specified range of the
+   * specified buffer.
+   *
+   * @param buffer the buffer containing the bytes
+   * @param offset the index in the buffer of the first byte of the view
+   * @param length the number of bytes in the view
+   */
+  Utf8Bytes(final ByteBuffer buffer, final int offset, final int length) {
+    Objects.checkFromIndexSize(offset, length, buffer.limit());
+    this.buffer = buffer;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  @Override
+  public int length() {
+    return this.length;
+  }
+
+  @Override
+  public char charAt(final int index) {
+    Objects.checkIndex(index, this.length);
+    return (char) (this.buffer.get(this.offset + index) & 0xFF);
+  }
+
+  @Override
+  public Utf8Bytes subSequence(final int start, final int end) {
+    Objects.checkFromToIndex(start, end, this.length);
+    return new Utf8Bytes(this.buffer, this.offset + start, end - start);
+  }
+
+  /**
+   * Copies the specified range of this view's bytes into the specified
+   * destination.
+   *
+   * @param start       the index of the first byte to be copied
+   * @param end         the index after the last byte to be copied
+   * @param destination the destination for the bytes
+   */
+  void copyTo(final int start, final int end, final Utf8Output destination) {
+    Objects.checkFromToIndex(start, end, this.length);
+    destination.appendRaw(this.buffer, this.offset + start, end - start);
+  }
+
+  /**
+   * Returns the number of bytes in the UTF-8 sequence at the specified index
+   * if it encodes a letter or digit in the Basic Multilingual Plane, the
+   * characters permitted in the name of a DOS-style variable.
+   *
+   * @param index the index of the first byte of the sequence
+   *
+   * @return the length of the sequence, or zero if the sequence is malformed
+   * or does not encode a letter or digit in the Basic Multilingual Plane
+   */
+  int letterOrDigitLength(final int index) {
+    final int b0 = charAt(index);
+
+    if (b0 < 0x80) {
+      return Character.isLetterOrDigit(b0) ? 1 : 0;
+    } else if (b0 >= 0xC2 && b0 < 0xE0) {
+      final int b1 = continuation(index + 1);
+
+      if (b1 >= 0 &&
+          Character.isLetterOrDigit((b0 & 0x1F) << 6 | b1)) {
+        return 2;
+      }
+    } else if (b0 >= 0xE0 && b0 < 0xF0) {
+      final int b1 = continuation(index + 1);
+      final int b2 = continuation(index + 2);
+
+      if (b1 >= 0 && b2 >= 0) {
+        final int ch = (b0 & 0x0F) << 12 | b1 << 6 | b2;
+
+        // overlong encodings and surrogates are malformed
+        if (ch >= 0x800 && !Character.isSurrogate((char) ch) &&
+            Character.isLetterOrDigit(ch)) {
+          return 3;
+        }
+      }
+    }
+
+    return 0;
+  }
+
+  /**
+   * Returns the payload of the UTF-8 continuation byte at the specified index.
+   *
+   * @param index the index of the byte
+   *
+   * @return the low six bits of the byte, or {@code -1} if the index is out of
+   * bounds or the byte is not a continuation byte
+   */
+  private int continuation(final int index) {
+    if (index >= this.length) {
+      return -1;
+    }
+
+    final int b = charAt(index);
+    return (b & 0xC0) == 0x80 ? b & 0x3F : -1;
+  }
+
+  /**
+   * Returns the index of the first of the specified ASCII characters in this
+   * view at or after the specified index.
+   * <p>
+   * The bytes are compared eight at a time, as the bytes of a {@code long};
+   * a byte of each word is equal to a character exactly when the byte of the
+   * word exclusive-or the character repeated in every byte is zero.
+   *
+   * @param startIndex the index at which the search begins
+   * @param first      the first character searched for
+   * @param second     the second character searched for
+   * @param third      the third character searched for
+   *
+   * @return the index of the first occurrence of any of the characters, or the
+   * length of this view if there is no such occurrence
+   */
+  int indexOfAny(final int startIndex,
+                 final char first,
+                 final char second,
+                 final char third) {
+    final long firsts = first * ONES;
+    final long seconds = second * ONES;
+    final long thirds = third * ONES;
+    final boolean bigEndian = this.buffer.order() == ByteOrder.BIG_ENDIAN;
+    int index = startIndex;
+
+    for (; index <= this.length - Long.BYTES; index += Long.BYTES) {
+      final long word = this.buffer.getLong(this.offset + index);
+      final long matches = zeroBytes(word ^ firsts) |
+                           zeroBytes(word ^ seconds) |
+                           zeroBytes(word ^ thirds);
+
+      if (matches != 0) {
+        return index + (bigEndian ? Long.numberOfLeadingZeros(matches) :
+                                    Long.numberOfTrailingZeros(matches)) / 8;
+      }
+    }
+
+    for (; index < this.length; ++index) {
+      final char ch = charAt(index);
+
+      if (ch == first || ch == second || ch == third) {
+        return index;
+      }
+    }
+
+    return this.length;
+  }
+
+  /**
+   * Returns a word with the high bit of each byte set exactly when that byte
+   * of the specified word is zero. Unlike the usual subtraction-based test,
+   * no carry crosses a byte boundary, so the result holds no false positives
+   * in either byte order.
+   *
+   * @param word the word
+   *
+   * @return the high bits of the zero bytes of the word
+   */
+  private static long zeroBytes(final long word) {
+    return ~((word & LOW_BITS) + LOW_BITS | word | LOW_BITS);
+  }
+
+  /**
+   * Decodes the specified range of characters, each holding a single byte, as
+   * UTF-8.
+   *
+   * @param chars the characters holding the bytes
+   * @param start the index of the first character
+   * @param end   the index after the last character
+   *
+   * @return the decoded string
+   */
+  static String decode(final CharSequence chars,
+                       final int start,
+                       final int end) {
+    final byte[] bytes = new byte[end - start];
+
+    for (int i = start; i < end; ++i) {
+      bytes[i - start] = (byte) chars.charAt(i);
+    }
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public String toString() {
+    final char[] chars = new char[this.length];
+
+    for (int i = 0; i < this.length; ++i) {
+      chars[i] = charAt(i);
+    }
+
+    return new String(chars);
+  }
+}
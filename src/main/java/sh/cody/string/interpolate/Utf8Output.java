@@ -0,0 +1,229 @@
+package sh.cody.string.interpolate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * A growable buffer of UTF-8 encoded bytes.
+ * <p>
+ * Text appended through the {@link Appendable} methods is encoded as UTF-8;
+ * unpaired surrogates are encoded as {@code ?}, as with
+ * {@link String#getBytes(java.nio.charset.Charset)}. Bytes which are already
+ * encoded are appended verbatim through the {@code appendRaw} methods.
+ * <p>
+ * Subclasses may direct long runs of verbatim bytes elsewhere by overriding
+ * {@link #appendRaw(ByteBuffer, int, int)}.
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+class Utf8Output implements Appendable {
+  /**
+   * The bytes of this buffer.
+   */
+  private byte[] bytes;
+
+  /**
+   * The number of bytes in this buffer.
+   */
+  private int size;
+
+  /**
+   * A high surrogate appended without its low surrogate yet, or zero.
+   */
+  private char highSurrogate;
+
+  /**
+   * Constructs a new, empty {@link Utf8Output}.
+   *
+   * @param capacity the initial capacity of the buffer
+   */
+  Utf8Output(final int capacity) {
+    this.bytes = new byte[Math.max(capacity, 16)];
+  }
+
+  @Override
+  public Utf8Output append(final CharSequence chars) {
+    return append(chars, 0, chars.length());
+  }
+
+  @Override
+  public Utf8Output append(final CharSequence chars,
+                           final int start,
+                           final int end) {
+    ensureCapacity(end - start);
+
+    for (int i = start; i < end; ++i) {
+      append(chars.charAt(i));
+    }
+
+    return this;
+  }
+
+  @Override
+  public Utf8Output append(final char ch) {
+    if (this.highSurrogate != 0) {
+      final char high = this.highSurrogate;
+      this.highSurrogate = 0;
+
+      if (Character.isLowSurrogate(ch)) {
+        final int codePoint = Character.toCodePoint(high, ch);
+        ensureCapacity(4);
+        this.bytes[this.size++] = (byte) (0xF0 | codePoint >> 18);
+        this.bytes[this.size++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+        this.bytes[this.size++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+        this.bytes[this.size++] = (byte) (0x80 | codePoint & 0x3F);
+        return this;
+      }
+
+      appendByte('?');
+    }
+
+    if (ch < 0x80) {
+      appendByte(ch);
+    } else if (ch < 0x800) {
+      ensureCapacity(2);
+      this.bytes[this.size++] = (byte) (0xC0 | ch >> 6);
+      this.bytes[this.size++] = (byte) (0x80 | ch & 0x3F);
+    } else if (Character.isHighSurrogate(ch)) {
+      this.highSurrogate = ch;
+    } else if (Character.isLowSurrogate(ch)) {
+      appendByte('?');
+    } else {
+      ensureCapacity(3);
+      this.bytes[this.size++] = (byte) (0xE0 | ch >> 12);
+      this.bytes[this.size++] = (byte) (0x80 | ch >> 6 & 0x3F);
+      this.bytes[this.size++] = (byte) (0x80 | ch & 0x3F);
+    }
+
+    return this;
+  }
+
+  /**
+   * Appends a single byte held by the specified character verbatim.
+   *
+   * @param ch the character holding the byte
+   */
+  void appendRaw(final char ch) {
+    flushSurrogate();
+    appendByte(ch);
+  }
+
+  /**
+   * Appends the bytes held by the specified range of characters verbatim, one
+   * byte per character.
+   *
+   * @param chars the characters holding the bytes
+   * @param start the index of the first character
+   * @param end   the index after the last character
+   */
+  void appendRaw(final CharSequence chars, final int start, final int end) {
+    flushSurrogate();
+    ensureCapacity(end - start);
+
+    for (int i = start; i < end; ++i) {
+      this.bytes[this.size++] = (byte) chars.charAt(i);
+    }
+  }
+
+  /**
+   * Appends the specified range of the specified buffer verbatim.
+   *
+   * @param buffer the buffer containing the bytes, read with absolute indexes
+   * @param offset the index of the first byte to be appended
+   * @param length the number of bytes to be appended
+   */
+  void appendRaw(final ByteBuffer buffer, final int offset, final int length) {
+    flushSurrogate();
+    ensureCapacity(length);
+    buffer.get(offset, this.bytes, this.size, length);
+    this.size += length;
+  }
+
+  /**
+   * Returns a copy of the bytes in this buffer.
+   *
+   * @return a copy of the bytes in this buffer
+   */
+  byte[] toByteArray() {
+    flushSurrogate();
+    return Arrays.copyOf(this.bytes, this.size);
+  }
+
+  /**
+   * Returns a buffer wrapping the bytes in this buffer, positioned at the
+   * first byte. This buffer must not be used afterwards.
+   *
+   * @return a buffer wrapping the bytes in this buffer
+   */
+  ByteBuffer toByteBuffer() {
+    flushSurrogate();
+    return ByteBuffer.wrap(this.bytes, 0, this.size).slice();
+  }
+
+  /**
+   * Writes the bytes in this buffer to the specified channel and empties this
+   * buffer.
+   *
+   * @param channel the channel to which the bytes are written
+   *
+   * @throws IOException when the channel throws an {@link IOException}
+   */
+  void drainTo(final WritableByteChannel channel) throws IOException {
+    flushSurrogate();
+    final ByteBuffer buffer = ByteBuffer.wrap(this.bytes, 0, this.size);
+
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+
+    this.size = 0;
+  }
+
+  /**
+   * Returns the number of bytes in this buffer.
+   *
+   * @return the number of bytes in this buffer
+   */
+  int size() {
+    return this.size;
+  }
+
+  /**
+   * Appends a single byte.
+   *
+   * @param b the byte
+   */
+  private void appendByte(final int b) {
+    ensureCapacity(1);
+    this.bytes[this.size++] = (byte) b;
+  }
+
+  /**
+   * Encodes a pending high surrogate which was not followed by its low
+   * surrogate.
+   */
+  private void flushSurrogate() {
+    if (this.highSurrogate != 0) {
+      this.highSurrogate = 0;
+      appendByte('?');
+    }
+  }
+
+  /**
+   * Grows this buffer, if necessary, so that it can hold at least the
+   * specified number of additional bytes.
+   *
+   * @param additional the number of additional bytes
+   */
+  private void ensureCapacity(final int additional) {
+    final int required = this.size + additional;
+
+    if (required > this.bytes.length) {
+      this.bytes = Arrays.copyOf(
+        this.bytes, Math.max(required, this.bytes.length * 2)
+      );
+    }
+  }
+}
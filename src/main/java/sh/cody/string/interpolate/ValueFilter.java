@@ -0,0 +1,86 @@
+package sh.cody.string.interpolate;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A transformation applied to interpolated values, such as an encoding or an
+ * escape, named in a filter pipeline following a variable's name, e.g.
+ * {@code ${TOKEN|hex}}.
+ * <p>
+ * A filter writes the transformed value directly to the interpolation's
+ * destination, so that a filtered value is never materialized as an
+ * intermediate string. Filters must be safe for use by many threads
+ * concurrently.
+ *
+ * @see ShellStyleStringInterpolator#ShellStyleStringInterpolator(boolean,
+ * boolean, boolean, int, Map)
+ *
+ * @author Liz Cody <a href="mailto:liz@cody.sh">&lt;liz@cody.sh&gt;</a>
+ */
+@FunctionalInterface
+public interface ValueFilter {
+  /**
+   * Transforms the specified value, appending the result to the specified
+   * destination.
+   *
+   * @param value       the value to be transformed
+   * @param destination the destination to which the transformed value is
+   *                    appended
+   *
+   * @throws IOException when the destination throws an {@link IOException}
+   */
+  void filter(CharSequence value, Appendable destination) throws IOException;
+
+  /**
+   * Returns a filter which applies this filter and then the specified filter
+   * to its result. Only the result of this filter is buffered; the specified
+   * filter writes directly to the destination.
+   *
+   * @param next the filter applied to the result of this filter
+   *
+   * @return the composed filter
+   */
+  default ValueFilter andThen(final ValueFilter next) {
+    Objects.requireNonNull(next);
+
+    return (value, destination) -> {
+      final StringBuilder intermediate = new StringBuilder(value.length() * 2);
+      filter(value, intermediate);
+      next.filter(intermediate, destination);
+    };
+  }
+
+  /**
+   * Returns a filter which encodes the UTF-8 encoding of a value as lowercase
+   * hexadecimal digits, two per byte.
+   *
+   * @return the hexadecimal filter
+   */
+  static ValueFilter hex() {
+    return EncodingFilter.HEX;
+  }
+
+  /**
+   * Returns a filter which percent-encodes the UTF-8 encoding of a value, as
+   * for a URI component. Only the unreserved characters {@code A-Z},
+   * {@code a-z}, {@code 0-9}, {@code -}, {@code .}, {@code _} and {@code ~}
+   * are left as they are.
+   *
+   * @return the URL filter
+   */
+  static ValueFilter url() {
+    return EncodingFilter.URL;
+  }
+
+  /**
+   * Returns the built-in filters, keyed by name: {@code hex}, as returned by
+   * {@link #hex()}, and {@code url}, as returned by {@link #url()}.
+   *
+   * @return an unmodifiable map of the built-in filters
+   */
+  static Map<String, ValueFilter> builtins() {
+    return Map.of("hex", hex(), "url", url());
+  }
+}
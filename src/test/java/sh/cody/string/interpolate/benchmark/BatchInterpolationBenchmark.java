@@ -0,0 +1,70 @@
+package sh.cody.string.interpolate.benchmark;
+
+import sh.cody.string.interpolate.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public final class BatchInterpolationBenchmark {
+  private static final Context CONTEXT = Context.of(Map.of(
+    "USER", "liz",
+    "HOME", "/home/liz",
+    "SHELL", "/bin/zsh",
+    "LANG", "en_US.UTF-8"
+  ));
+
+  public static void main(final String... args) {
+    final Logger logger = Logger.getLogger(StringInterpolator.class.getName());
+    final StringInterpolator impl = new ShellStyleStringInterpolator();
+    final List<String> challenge = buildChallenge(500_000);
+    final int processors = Runtime.getRuntime().availableProcessors();
+
+    // warm up
+    challenge(logger, impl, challenge, 1);
+
+    for (int parallelism = 1; parallelism <= processors; parallelism *= 2) {
+      challenge(logger, impl, challenge, parallelism);
+    }
+
+    if (Integer.bitCount(processors) != 1) {
+      challenge(logger, impl, challenge, processors);
+    }
+  }
+
+  private static List<String> buildChallenge(final int count) {
+    return IntStream.range(0, count)
+      .mapToObj(i ->
+        "config." + i + " = ${HOME}/.config/%USER%/" + i +
+        " ${SHELL:/bin/sh} ${MISSING:default} %LANG%"
+      )
+      .collect(Collectors.toUnmodifiableList());
+  }
+
+  private static void challenge(final Logger logger, final StringInterpolator implementation, final List<String> challenge, final int parallelism) {
+    final ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+    try {
+      final long start = System.nanoTime();
+      final List<String> results =
+        implementation.interpolateAll(challenge, CONTEXT, pool);
+      final long stop = System.nanoTime();
+
+      final double durSecs = (stop - start) / 1e9;
+
+      logger.info(
+        String.format(
+          "Test of %s (%d strings, parallelism %d) completed in %.3f seconds, " +
+          "%.0f strings/second. (results: %d)",
+          implementation.getClass().getSimpleName(), challenge.size(),
+          parallelism, durSecs, challenge.size() / durSecs, results.size()
+        )
+      );
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
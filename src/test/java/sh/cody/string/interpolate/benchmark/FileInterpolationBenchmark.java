@@ -0,0 +1,89 @@
+package sh.cody.string.interpolate.benchmark;
+
+import sh.cody.string.interpolate.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.logging.Logger;
+
+public final class FileInterpolationBenchmark {
+  private static final Context CONTEXT = Context.of(Map.of(
+    "USER", "liz",
+    "HOME", "/home/liz",
+    "SHELL", "/bin/zsh"
+  ));
+
+  private static final String LINE =
+    "The quick brown fox jumps over the lazy dog, again and again and again.\n";
+
+  public static void main(final String... args) throws IOException {
+    final Logger logger = Logger.getLogger(StringInterpolator.class.getName());
+    final long size = args.length > 0 ? Long.parseLong(args[0]) : 1L << 30;
+    final ShellStyleStringInterpolator impl = new ShellStyleStringInterpolator();
+
+    final Path source = Files.createTempFile("template", ".txt");
+    final Path target = Files.createTempFile("interpolated", ".txt");
+
+    try {
+      buildChallenge(source, size);
+
+      // warm up
+      challengeMapped(logger, impl, source, target);
+
+      challengeString(logger, impl, source, target);
+      challengeMapped(logger, impl, source, target);
+    } finally {
+      Files.deleteIfExists(source);
+      Files.deleteIfExists(target);
+    }
+  }
+
+  // one expression roughly every 64 KiB
+  private static void buildChallenge(final Path source, final long size) throws IOException {
+    try (final BufferedWriter writer = Files.newBufferedWriter(source, StandardCharsets.UTF_8)) {
+      long written = 0;
+      long line = 0;
+
+      while (written < size) {
+        final String text = line % 900 == 0 ? "home=${HOME} user=%USER%\n" : LINE;
+        writer.write(text);
+        written += text.length();
+        ++line;
+      }
+    }
+  }
+
+  private static void challengeString(final Logger logger, final ShellStyleStringInterpolator implementation, final Path source, final Path target) throws IOException {
+    final long start = System.nanoTime();
+
+    final String template = Files.readString(source, StandardCharsets.UTF_8);
+    Files.writeString(target, implementation.interpolate(template, CONTEXT), StandardCharsets.UTF_8);
+
+    report(logger, "readString/interpolate/writeString", source, target, start);
+  }
+
+  private static void challengeMapped(final Logger logger, final ShellStyleStringInterpolator implementation, final Path source, final Path target) throws IOException {
+    final long start = System.nanoTime();
+
+    implementation.interpolate(source, target, CONTEXT);
+
+    report(logger, "mapped/transferTo", source, target, start);
+  }
+
+  private static void report(final Logger logger, final String name, final Path source, final Path target, final long start) throws IOException {
+    final long stop = System.nanoTime();
+    final double durSecs = (stop - start) / 1e9;
+    final long size = Files.size(source);
+
+    logger.info(
+      String.format(
+        "Test of %s (%d bytes) completed in %.3f seconds, %.1f MiB/second. (output: %d bytes)",
+        name, size, durSecs, size / durSecs / (1 << 20), Files.size(target)
+      )
+    );
+  }
+}
@@ -0,0 +1,91 @@
+package sh.cody.string.interpolate.benchmark;
+
+import sh.cody.string.interpolate.*;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+
+public final class ParallelInterpolationBenchmark {
+  private static final Context CONTEXT = Context.of(Map.of(
+    "USER", "liz",
+    "HOME", "/home/liz",
+    "SHELL", "/bin/zsh",
+    "LANG", "en_US.UTF-8"
+  ));
+
+  public static void main(final String... args) {
+    final Logger logger = Logger.getLogger(StringInterpolator.class.getName());
+    final ShellStyleStringInterpolator impl =
+      new ShellStyleStringInterpolator();
+    final String challenge = buildChallenge(500_000);
+    final int processors = Runtime.getRuntime().availableProcessors();
+
+    // warm up
+    sequential(logger, impl, challenge);
+    challenge(logger, impl, challenge, 1);
+
+    sequential(logger, impl, challenge);
+
+    for (int parallelism = 1; parallelism <= processors; parallelism *= 2) {
+      challenge(logger, impl, challenge, parallelism);
+    }
+
+    if (Integer.bitCount(processors) != 1) {
+      challenge(logger, impl, challenge, processors);
+    }
+  }
+
+  private static String buildChallenge(final int lines) {
+    final StringBuilder challenge = new StringBuilder(lines * 72);
+
+    for (int i = 0; i < lines; ++i) {
+      challenge.append("config.").append(i)
+        .append(" = ${HOME}/.config/%USER%/").append(i)
+        .append(" ${SHELL:/bin/sh} ${MISSING:default} %LANG%\n");
+    }
+
+    return challenge.toString();
+  }
+
+  private static void sequential(final Logger logger, final ShellStyleStringInterpolator implementation, final String challenge) {
+    final long start = System.nanoTime();
+    final String result = implementation.interpolate(challenge, CONTEXT);
+    final long stop = System.nanoTime();
+
+    final double durSecs = (stop - start) / 1e9;
+
+    logger.info(
+      String.format(
+        "Sequential test of %s (%d chars) completed in %.3f seconds, " +
+        "%.0f chars/second. (result: %d chars)",
+        implementation.getClass().getSimpleName(), challenge.length(),
+        durSecs, challenge.length() / durSecs, result.length()
+      )
+    );
+  }
+
+  private static void challenge(final Logger logger, final ShellStyleStringInterpolator implementation, final String challenge, final int parallelism) {
+    final ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+    try {
+      final long start = System.nanoTime();
+      final String result =
+        implementation.interpolateParallel(challenge, CONTEXT, pool);
+      final long stop = System.nanoTime();
+
+      final double durSecs = (stop - start) / 1e9;
+
+      logger.info(
+        String.format(
+          "Test of %s (%d chars, parallelism %d) completed in %.3f seconds, " +
+          "%.0f chars/second. (result: %d chars)",
+          implementation.getClass().getSimpleName(), challenge.length(),
+          parallelism, durSecs, challenge.length() / durSecs, result.length()
+        )
+      );
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
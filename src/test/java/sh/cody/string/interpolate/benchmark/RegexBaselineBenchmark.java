@@ -0,0 +1,162 @@
+package sh.cody.string.interpolate.benchmark;
+
+import sh.cody.string.interpolate.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Measures {@link ShellStyleStringInterpolator} against a regular expression
+ * baseline over a grid of template shapes, reporting throughput and the bytes
+ * allocated per interpolation.
+ * <p>
+ * Usage: {@code RegexBaselineBenchmark [milliseconds per measurement]}
+ */
+public final class RegexBaselineBenchmark {
+  private static final int[] LENGTHS = { 64, 1024, 16384 };
+
+  // one expression per this many characters of template; zero for none
+  private static final int[] DENSITIES = { 0, 256, 16 };
+
+  private static final double[] HIT_RATIOS = { 1.0, 0.5, 0.0 };
+
+  private static final String FILLER =
+    "The quick brown fox jumps over the lazy dog. ";
+
+  private static final Map<String, String> VALUES = new HashMap<>();
+
+  static {
+    for (int i = 0; i < 16; ++i) {
+      VALUES.put("VAR" + i, "value-" + i);
+    }
+  }
+
+  private static final Context CONTEXT = Context.of(VALUES);
+
+  private static final com.sun.management.ThreadMXBean THREADS =
+    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private static volatile long sink;
+
+  public static void main(final String... args) {
+    final Logger logger = Logger.getLogger(StringInterpolator.class.getName());
+    final long millis = args.length > 0 ? Long.parseLong(args[0]) : 250;
+
+    final StringInterpolator parser = new ShellStyleStringInterpolator();
+    final StringInterpolator regex = new RegexStringInterpolator();
+
+    for (final int length : LENGTHS) {
+      for (final int density : DENSITIES) {
+        for (final boolean dos : new boolean[] { false, true }) {
+          for (final boolean defaults : new boolean[] { false, true }) {
+            if (dos && defaults) {
+              continue; // DOS-style expressions have no default values
+            }
+
+            for (final double hitRatio : HIT_RATIOS) {
+              if (density == 0 && hitRatio != 1.0) {
+                continue; // nothing to hit or miss
+              }
+
+              final String template =
+                buildTemplate(length, density, dos, defaults, hitRatio);
+              final String expected = parser.interpolate(template, CONTEXT);
+
+              if (!expected.equals(regex.interpolate(template, CONTEXT))) {
+                logger.warning("Regex baseline disagrees on: " + template);
+              }
+
+              final Result parsed = measure(parser, template, millis);
+              final Result matched = measure(regex, template, millis);
+
+              logger.info(
+                String.format(
+                  "length %5d, density %3s, %s%s, hits %3.0f%%: " +
+                  "parser %,12.0f ops/s %,8d B/op | regex %,12.0f ops/s %,8d B/op | %.1fx",
+                  length, density == 0 ? "-" : "1/" + density,
+                  dos ? "dos" : "sh ", defaults ? "+defaults" : "         ",
+                  hitRatio * 100, parsed.opsPerSecond, parsed.bytesPerOp,
+                  matched.opsPerSecond, matched.bytesPerOp,
+                  parsed.opsPerSecond / matched.opsPerSecond
+                )
+              );
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static String buildTemplate(final int length, final int density, final boolean dos, final boolean defaults, final double hitRatio) {
+    final Random random = new Random(length * 31L + density);
+    final StringBuilder builder = new StringBuilder(length + 64);
+    int sinceExpression = 0;
+
+    while (builder.length() < length) {
+      if (density > 0 && sinceExpression >= density) {
+        final boolean hit = random.nextDouble() < hitRatio;
+        final String name = (hit ? "VAR" : "NOPE") + random.nextInt(16);
+
+        if (dos) {
+          builder.append('%').append(name).append('%');
+        } else if (defaults) {
+          builder.append("${").append(name).append(":fallback}");
+        } else {
+          builder.append("${").append(name).append('}');
+        }
+
+        sinceExpression = 0;
+      } else {
+        final char ch = FILLER.charAt(builder.length() % FILLER.length());
+        builder.append(ch);
+        ++sinceExpression;
+      }
+    }
+
+    return builder.toString();
+  }
+
+  private static Result measure(final StringInterpolator implementation, final String template, final long millis) {
+    // warm up for as long as is measured
+    run(implementation, template, millis);
+
+    final long thread = Thread.currentThread().getId();
+    final long allocatedBefore = THREADS.getThreadAllocatedBytes(thread);
+    final long start = System.nanoTime();
+    final long ops = run(implementation, template, millis);
+    final long stop = System.nanoTime();
+    final long allocated = THREADS.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+    return new Result(ops / ((stop - start) / 1e9), allocated / ops);
+  }
+
+  private static long run(final StringInterpolator implementation, final String template, final long millis) {
+    final long deadline = System.nanoTime() + millis * 1_000_000;
+    long ops = 0;
+    long checksum = 0;
+
+    do {
+      for (int i = 0; i < 64; ++i) {
+        checksum += implementation.interpolate(template, CONTEXT).length();
+      }
+
+      ops += 64;
+    } while (System.nanoTime() < deadline);
+
+    sink = checksum;
+    return ops;
+  }
+
+  private static final class Result {
+    private final double opsPerSecond;
+    private final long bytesPerOp;
+
+    private Result(final double opsPerSecond, final long bytesPerOp) {
+      this.opsPerSecond = opsPerSecond;
+      this.bytesPerOp = bytesPerOp;
+    }
+  }
+}
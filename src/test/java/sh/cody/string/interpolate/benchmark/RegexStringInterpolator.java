@@ -0,0 +1,57 @@
+package sh.cody.string.interpolate.benchmark;
+
+import sh.cody.string.interpolate.Context;
+import sh.cody.string.interpolate.StringInterpolator;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A reference {@link StringInterpolator} backed by a regular expression, used
+ * as the baseline against which the hand-written parser is measured.
+ * <p>
+ * It agrees with {@link sh.cody.string.interpolate.ShellStyleStringInterpolator}
+ * on well-formed templates: sh-style expressions with optional defaults,
+ * DOS-style expressions, and escaped sentinels.
+ */
+final class RegexStringInterpolator implements StringInterpolator {
+  private static final Pattern PATTERN = Pattern.compile(
+    "\\\\(.)" +
+    "|\\$\\{((?:\\\\.|[^}:\\\\])*)(?::((?:\\\\.|[^}\\\\])*))?}" +
+    "|%([\\p{L}\\p{Nd}]+)%"
+  );
+
+  @Override
+  public String interpolate(final String string, final Context context) {
+    final Matcher matcher = PATTERN.matcher(string);
+    final StringBuilder result = new StringBuilder(string.length() * 2);
+
+    while (matcher.find()) {
+      final String escaped = matcher.group(1);
+      final String replacement;
+
+      if (escaped != null) {
+        replacement = escaped.equals("$") ? "$" : "\\" + escaped;
+      } else if (matcher.group(4) != null) {
+        final String value = context.get(matcher.group(4));
+        replacement = value == null ? matcher.group() : value;
+      } else {
+        final String name = matcher.group(2).replace("\\:", ":").trim();
+        final String defaultValue = matcher.group(3);
+        final String value = context.get(name);
+
+        if (value != null) {
+          replacement = value;
+        } else if (defaultValue != null) {
+          replacement = defaultValue.replace("\\}", "}").replace("\\{", "{");
+        } else {
+          replacement = "${" + name + "}";
+        }
+      }
+
+      matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
+    }
+
+    return matcher.appendTail(result).toString();
+  }
+}
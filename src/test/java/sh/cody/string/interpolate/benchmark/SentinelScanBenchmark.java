@@ -0,0 +1,87 @@
+package sh.cody.string.interpolate.benchmark;
+
+import sh.cody.string.interpolate.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.logging.Logger;
+
+public final class SentinelScanBenchmark {
+  private static final Context CONTEXT = Context.of(Map.of(
+    "USER", "liz",
+    "HOME", "/home/liz"
+  ));
+
+  public static void main(final String... args) {
+    final Logger logger = Logger.getLogger(StringInterpolator.class.getName());
+    final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+    final ShellStyleStringInterpolator impl = new ShellStyleStringInterpolator();
+
+    for (final int spacing : new int[] {64, 1024, 16384}) {
+      final String template = buildTemplate(1 << 20, spacing);
+      final StringBuilder builder = new StringBuilder(template);
+      final byte[] utf8 = template.getBytes(StandardCharsets.UTF_8);
+
+      for (int round = 0; round < 2; ++round) {
+        final Logger roundLogger = round == 0 ? null : logger;
+
+        // a StringBuilder is scanned one character at a time
+        challenge(roundLogger, "scalar", spacing, template.length(), iterations, () ->
+          impl.interpolateTo(builder, CONTEXT, new StringBuilder(template.length())).length()
+        );
+        challenge(roundLogger, "indexOf", spacing, template.length(), iterations, () ->
+          impl.interpolate(template, CONTEXT).length()
+        );
+        challenge(roundLogger, "swar-utf8", spacing, template.length(), iterations, () ->
+          impl.interpolateUtf8(utf8, CONTEXT).length
+        );
+      }
+    }
+  }
+
+  private static String buildTemplate(final int length, final int spacing) {
+    final StringBuilder template = new StringBuilder(length + 16);
+    final String filler = "The quick brown fox jumps over the lazy dog. ";
+
+    while (template.length() < length) {
+      final int run = Math.min(spacing, length - template.length());
+
+      for (int i = 0; i < run; ++i) {
+        template.append(filler.charAt(i % filler.length()));
+      }
+
+      template.append(template.length() % 2 == 0 ? "${USER}" : "%HOME%");
+    }
+
+    return template.toString();
+  }
+
+  private static void challenge(final Logger logger, final String name, final int spacing, final int length, final int iterations, final Run run) {
+    long checksum = 0;
+    final long start = System.nanoTime();
+
+    for (int i = 0; i < iterations; ++i) {
+      checksum += run.run();
+    }
+
+    final long stop = System.nanoTime();
+
+    if (logger != null) {
+      final double durSecs = (stop - start) / 1e9;
+
+      logger.info(
+        String.format(
+          "Test of %s scanning (%d chars, expression every %d chars) " +
+          "completed in %.3f seconds, %.2f GB/second. (checksum: %d)",
+          name, length, spacing, durSecs,
+          (double) length * iterations / durSecs / 1e9, checksum
+        )
+      );
+    }
+  }
+
+  @FunctionalInterface
+  private interface Run {
+    int run();
+  }
+}
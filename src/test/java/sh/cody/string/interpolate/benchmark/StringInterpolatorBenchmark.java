@@ -0,0 +1,97 @@
+package sh.cody.string.interpolate.benchmark;
+
+import sh.cody.string.interpolate.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public final class StringInterpolatorBenchmark {
+  private static final Context CONTEXT = Map.of(
+    "USER", "liz",
+    "HOME", "/home/liz",
+    "SHELL", "/bin/zsh",
+    "LANG", "en_US.UTF-8"
+  )::get;
+
+  private static final String LITERAL =
+    "The quick brown fox jumps over the lazy dog. ";
+
+  public static void main(final String... args) {
+    final Logger logger = Logger.getLogger(StringInterpolator.class.getName());
+
+    final ShellStyleStringInterpolator shellStyle =
+      new ShellStyleStringInterpolator();
+
+    final StringInterpolator[] impls = {
+      shellStyle,
+      new CachingStringInterpolator(shellStyle, 1024),
+      new InstrumentedStringInterpolator(shellStyle),
+    };
+
+    runChallenge(logger, impls, 1_000_000, 0);
+    runChallenge(logger, impls, 1_000_000, 1);
+    runChallenge(logger, impls, 100_000, 4);
+    runChallenge(logger, impls, 100_000, 16);
+    runChallenge(logger, impls, 100_000, 64);
+  }
+
+  private static void runChallenge(final Logger logger, final StringInterpolator[] impls, final int count, final int expressions) {
+    final List<String> challenge = buildChallenge(count, expressions);
+
+    for (final StringInterpolator impl : impls) {
+      challenge(logger, impl, challenge, expressions);
+    }
+  }
+
+  private static List<String> buildChallenge(final int count, final int expressions) {
+    final String template = buildTemplate(expressions);
+
+    // distinct instances of an identical template, as if read from a source
+    return IntStream.range(0, count)
+      .mapToObj(i -> new String(template.toCharArray()))
+      .collect(Collectors.toUnmodifiableList());
+  }
+
+  private static String buildTemplate(final int expressions) {
+    final String[] samples = {
+      "${USER}", "%HOME%", "${SHELL:/bin/sh}", "${MISSING}", "%LANG%"
+    };
+
+    final StringBuilder builder = new StringBuilder(LITERAL);
+    for (int i = 0; i < expressions; ++i) {
+      builder.append(samples[i % samples.length]).append(LITERAL);
+    }
+    return builder.toString();
+  }
+
+  private static void challenge(final Logger logger, final StringInterpolator implementation, final List<String> challenge, final int expressions) {
+    final int strings = challenge.size();
+
+    logger.info(
+      "Performing challenge on " + implementation.getClass().getSimpleName() +
+      ", string count: " + strings + ", expressions per string: " + expressions
+    );
+
+    final long start = System.currentTimeMillis();
+
+    long checksum = 0;
+    for (final String string : challenge) {
+      checksum += implementation.interpolate(string, CONTEXT).length();
+    }
+
+    final long stop = System.currentTimeMillis();
+
+    final double durSecs = (stop - start) / 1000.0;
+
+    logger.info(
+      String.format(
+        "Test of %s (%d, %d) completed in %.2f seconds. (checksum: %d)",
+        implementation.getClass().getSimpleName(), strings, expressions,
+        durSecs, checksum
+      )
+    );
+  }
+}
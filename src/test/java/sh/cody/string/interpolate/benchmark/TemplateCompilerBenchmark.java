@@ -0,0 +1,72 @@
+package sh.cody.string.interpolate.benchmark;
+
+import sh.cody.string.interpolate.*;
+
+import java.util.Map;
+import java.util.logging.Logger;
+
+public final class TemplateCompilerBenchmark {
+  private static final Context CONTEXT = Context.of(Map.of(
+    "USER", "liz",
+    "HOME", "/home/liz",
+    "SHELL", "/bin/zsh",
+    "LANG", "en_US.UTF-8"
+  ));
+
+  private static final String[] EXPRESSIONS = {
+    "${HOME}", "%USER%", "${SHELL:/bin/sh}", "${MISSING:default}", "%LANG%"
+  };
+
+  public static void main(final String... args) {
+    final Logger logger = Logger.getLogger(StringInterpolator.class.getName());
+    final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+    final ShellStyleStringInterpolator interpolator = new ShellStyleStringInterpolator();
+    final TemplateCompiler compiler = new TemplateCompiler(0);
+
+    for (final int expressions : new int[] {1, 4, 16, 64}) {
+      final String source = buildTemplate(expressions);
+      final Template interpreted = interpolator.compile(source);
+      final Template compiled = compiler.optimize(interpolator.compile(source));
+
+      // warm up
+      challenge(null, "interpreted", interpreted, expressions, iterations);
+      challenge(null, "compiled", compiled, expressions, iterations);
+
+      challenge(logger, "interpreted", interpreted, expressions, iterations);
+      challenge(logger, "compiled", compiled, expressions, iterations);
+    }
+  }
+
+  private static String buildTemplate(final int expressions) {
+    final StringBuilder template = new StringBuilder();
+
+    for (int i = 0; i < expressions; ++i) {
+      template.append("key").append(i).append(" = ")
+        .append(EXPRESSIONS[i % EXPRESSIONS.length]).append("; ");
+    }
+
+    return template.toString();
+  }
+
+  private static void challenge(final Logger logger, final String name, final Template template, final int expressions, final int iterations) {
+    long checksum = 0;
+    final long start = System.nanoTime();
+
+    for (int i = 0; i < iterations; ++i) {
+      checksum += template.render(CONTEXT).length();
+    }
+
+    final long stop = System.nanoTime();
+
+    if (logger != null) {
+      logger.info(
+        String.format(
+          "Test of %s template (%d expressions, %d renders) completed in " +
+          "%.1f ns/render. (checksum: %d)",
+          name, expressions, iterations, (double) (stop - start) / iterations,
+          checksum
+        )
+      );
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package sh.cody.string.interpolate.test;
+
+import org.junit.jupiter.api.Test;
+import sh.cody.string.interpolate.Context;
+import sh.cody.string.interpolate.ShellStyleStringInterpolator;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AllocationTest {
+  final static Context mockContext = Context.of(Map.of(
+    "USER", "liz",
+    "HOME", "/home/liz"
+  ));
+
+  final static ShellStyleStringInterpolator interpolator =
+    new ShellStyleStringInterpolator();
+
+  static String repeat(final String expression, final int count) {
+    final StringBuilder builder = new StringBuilder();
+
+    for (int i = 0; i < count; ++i) {
+      builder.append("some literal text ").append(expression);
+    }
+
+    return builder.toString();
+  }
+
+  /**
+   * Returns the fewest bytes allocated by the current thread over several
+   * interpolations of the specified template.
+   */
+  static long allocatedBytes(final String template) {
+    final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    final com.sun.management.ThreadMXBean allocations =
+      (com.sun.management.ThreadMXBean) threads;
+    final long thread = Thread.currentThread().getId();
+    long fewest = Long.MAX_VALUE;
+
+    for (int i = 0; i < 5; ++i) {
+      final long before = allocations.getThreadAllocatedBytes(thread);
+      interpolator.interpolate(template, mockContext);
+      final long allocated =
+        allocations.getThreadAllocatedBytes(thread) - before;
+      fewest = Math.min(fewest, allocated);
+    }
+
+    return fewest;
+  }
+
+  static void assertLinear(final IntFunction<String> templates) {
+    final String small = templates.apply(1_000);
+    final String large = templates.apply(16_000);
+
+    // warm up, so that neither measurement includes compilation
+    for (int i = 0; i < 20; ++i) {
+      interpolator.interpolate(small, mockContext);
+    }
+
+    final double growth =
+      (double) allocatedBytes(large) / allocatedBytes(small);
+
+    // 16 times the input; quadratic allocation would grow ~256 times
+    assertTrue(growth < 32, "allocation grew " + growth + " times");
+  }
+
+  @Test
+  void testLinearAllocation() {
+    if (!(ManagementFactory.getThreadMXBean()
+          instanceof com.sun.management.ThreadMXBean)) {
+      return; // allocation cannot be measured on this virtual machine
+    }
+
+    assertLinear(count -> repeat("${USER}", count));
+    assertLinear(count -> repeat("%HOME%", count));
+    assertLinear(count -> repeat("${MISSING:default}", count));
+    assertLinear(count -> repeat("${MISSING:esc\\}aped}", count));
+    assertLinear(count -> repeat("${na\\:me:x} \\$ \\x $y", count));
+  }
+}
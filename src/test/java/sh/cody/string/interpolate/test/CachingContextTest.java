@@ -0,0 +1,185 @@
+package sh.cody.string.interpolate.test;
+
+import org.junit.jupiter.api.Test;
+import sh.cody.string.interpolate.CachingContext;
+import sh.cody.string.interpolate.Context;
+import sh.cody.string.interpolate.ShellStyleStringInterpolator;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachingContextTest {
+  final static Context mockContext = Context.of(Map.of(
+    "USER", "liz",
+    "HOME", "/home/liz"
+  ));
+
+  final static Duration HOUR = Duration.ofHours(1);
+
+  static Context counted(final AtomicInteger lookups) {
+    return key -> {
+      lookups.incrementAndGet();
+      return mockContext.get(key);
+    };
+  }
+
+  @Test
+  void testCachesValuesAndMisses() {
+    final AtomicInteger lookups = new AtomicInteger();
+    final CachingContext context =
+      new CachingContext(counted(lookups), 16, HOUR);
+    final ShellStyleStringInterpolator interpolator =
+      new ShellStyleStringInterpolator();
+
+    for (int i = 0; i < 3; ++i) {
+      assertEquals(
+        "liz /home/liz ${MISSING} liz",
+        interpolator.interpolate("${USER} ${HOME} ${MISSING} %USER%", context)
+      );
+    }
+
+    assertEquals(3, lookups.get());
+    assertEquals(3, context.missCount());
+    assertEquals(9, context.hitCount());
+    assertEquals(3, context.size());
+
+    context.invalidate("USER");
+    assertEquals("liz", context.get("USER"));
+    assertEquals(4, lookups.get());
+
+    context.invalidateAll();
+    assertEquals(0, context.size());
+    assertNull(context.get("MISSING"));
+    assertEquals(5, lookups.get());
+  }
+
+  @Test
+  void testNegativeTtl() {
+    final AtomicInteger lookups = new AtomicInteger();
+    final CachingContext context =
+      new CachingContext(counted(lookups), 16, HOUR, Duration.ZERO);
+
+    assertNull(context.get("MISSING"));
+    assertNull(context.get("MISSING"));
+    assertEquals("liz", context.get("USER"));
+    assertEquals("liz", context.get("USER"));
+    assertEquals(3, lookups.get());
+    assertEquals(1, context.size());
+  }
+
+  @Test
+  void testExpiry() throws InterruptedException {
+    final AtomicInteger lookups = new AtomicInteger();
+    final CachingContext context =
+      new CachingContext(counted(lookups), 16, Duration.ofMillis(1), HOUR);
+
+    assertEquals("liz", context.get("USER"));
+    assertNull(context.get("MISSING"));
+    Thread.sleep(10);
+    assertEquals("liz", context.get("USER"));
+    assertNull(context.get("MISSING"));
+    assertEquals(3, lookups.get());
+    assertEquals(2, context.size());
+  }
+
+  @Test
+  void testBoundedSize() {
+    final AtomicInteger lookups = new AtomicInteger();
+    final CachingContext context =
+      new CachingContext(counted(lookups), 4, HOUR);
+
+    for (int i = 0; i < 100; ++i) {
+      context.get("KEY" + i);
+    }
+
+    assertTrue(context.size() <= 4);
+    assertEquals(100 - context.size(), context.evictionCount());
+    assertEquals(100, lookups.get());
+  }
+
+  @Test
+  void testFailuresNotCached() {
+    final AtomicInteger lookups = new AtomicInteger();
+    final CachingContext context = new CachingContext(key -> {
+      if (lookups.incrementAndGet() == 1) {
+        throw new IllegalStateException("unavailable");
+      }
+
+      return "value";
+    }, 16, HOUR);
+
+    assertThrows(IllegalStateException.class, () -> context.get("KEY"));
+    assertEquals("value", context.get("KEY"));
+    assertEquals("value", context.get("KEY"));
+    assertEquals(2, lookups.get());
+  }
+
+  @Test
+  void testSingleFlight() throws Exception {
+    final AtomicInteger lookups = new AtomicInteger();
+    final CountDownLatch entered = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CachingContext context = new CachingContext(key -> {
+      lookups.incrementAndGet();
+      entered.countDown();
+
+      try {
+        release.await();
+      } catch (final InterruptedException exception) {
+        throw new IllegalStateException(exception);
+      }
+
+      return "secret";
+    }, 16, HOUR);
+
+    final int threads = 8;
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+    try {
+      final List<Future<String>> results = new ArrayList<>();
+
+      for (int i = 0; i < threads; ++i) {
+        results.add(executor.submit(() -> context.get("TOKEN")));
+      }
+
+      entered.await();
+      Thread.sleep(20);
+      release.countDown();
+
+      for (final Future<String> result : results) {
+        assertEquals("secret", result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals(1, lookups.get());
+    assertEquals(1, context.missCount());
+    assertEquals(threads - 1, context.hitCount());
+  }
+
+  @Test
+  void testInvalidArguments() {
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> new CachingContext(mockContext, 0, HOUR)
+    );
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> new CachingContext(mockContext, 16, Duration.ZERO)
+    );
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> new CachingContext(mockContext, 16, HOUR, Duration.ofSeconds(-1))
+    );
+  }
+}
@@ -0,0 +1,116 @@
+package sh.cody.string.interpolate.test;
+
+import org.junit.jupiter.api.Test;
+import sh.cody.string.interpolate.CachingStringInterpolator;
+import sh.cody.string.interpolate.Context;
+import sh.cody.string.interpolate.ShellStyleStringInterpolator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachingStringInterpolatorTest {
+  final static Context mockContext = Map.of(
+    "A", "value a",
+    "ONE", "1",
+    "TWO", "2",
+    "ZERO", "0"
+  )::get;
+
+  @Test
+  void testMatchesUncached() {
+    final ShellStyleStringInterpolator uncached =
+      new ShellStyleStringInterpolator();
+    final CachingStringInterpolator cached =
+      new CachingStringInterpolator(uncached, 16);
+
+    for (final String string : List.of(
+      "${ZERO} -> %ONE% -> %TWO%",
+      "%ONE%%TWO%%ZERO%%% ${A}",
+      "${TWELVE} ${TWELVE:12} %TWELVE%",
+      "%% %ZERO% ${ONE} ${TWO} %THREE% %FOUR${}{}{}",
+      "a ${TWELVE:12",
+      "\\${A} \\%ONE% \\"
+    )) {
+      assertEquals(
+        uncached.interpolate(string, mockContext),
+        cached.interpolate(string, mockContext)
+      );
+      assertEquals(
+        uncached.interpolate(string, mockContext),
+        cached.interpolate(string, mockContext)
+      );
+    }
+  }
+
+  @Test
+  void testCounters() {
+    final CachingStringInterpolator cached = new CachingStringInterpolator(
+      new ShellStyleStringInterpolator(), 16
+    );
+
+    assertEquals("0", cached.interpolate("${ZERO}", mockContext));
+    assertEquals("0", cached.interpolate("${ZERO}", mockContext));
+    assertEquals("1", cached.interpolate("${ONE}", mockContext));
+
+    assertEquals(1, cached.hitCount());
+    assertEquals(2, cached.missCount());
+    assertEquals(0, cached.evictionCount());
+    assertEquals(2, cached.size());
+
+    cached.clear();
+    assertEquals(0, cached.size());
+  }
+
+  @Test
+  void testEviction() {
+    final CachingStringInterpolator cached = new CachingStringInterpolator(
+      new ShellStyleStringInterpolator(), 4
+    );
+
+    for (int i = 0; i < 100; ++i) {
+      assertEquals(i + " 0", cached.interpolate(i + " ${ZERO}", mockContext));
+    }
+
+    assertTrue(cached.size() <= 4);
+    assertEquals(100, cached.missCount());
+    assertEquals(100 - cached.size(), cached.evictionCount());
+  }
+
+  @Test
+  void testConcurrentAccess() throws Exception {
+    final CachingStringInterpolator cached = new CachingStringInterpolator(
+      new ShellStyleStringInterpolator(), 32
+    );
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+
+      for (int t = 0; t < 8; ++t) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 10_000; ++i) {
+            final int n = i % 64;
+            assertEquals(
+              n + ": 1", cached.interpolate(n + ": %ONE%", mockContext)
+            );
+          }
+        }));
+      }
+
+      for (final Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals(80_000, cached.hitCount() + cached.missCount());
+    assertTrue(cached.size() <= 32);
+  }
+}
@@ -0,0 +1,121 @@
+package sh.cody.string.interpolate.test;
+
+import org.junit.jupiter.api.Test;
+import sh.cody.string.interpolate.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConfigurationResolverTest {
+  final static ConfigurationResolver resolver =
+    new ConfigurationResolver(new ShellStyleStringInterpolator());
+
+  @Test
+  void testResolvesChains() {
+    final Context resolved = resolver.resolve(
+      Map.of(
+        "app.home", "${base}/app",
+        "app.log", "${app.home}/log/${app.name}.log",
+        "app.name", "demo",
+        "base", "%ROOT%/srv",
+        "greeting", "${user:nobody} uses ${missing}"
+      ),
+      Context.of(Map.of("ROOT", "/opt", "user", "liz"))
+    );
+
+    assertEquals("/opt/srv", resolved.get("base"));
+    assertEquals("/opt/srv/app", resolved.get("app.home"));
+    assertEquals("/opt/srv/app/log/demo.log", resolved.get("app.log"));
+    assertEquals("liz uses ${missing}", resolved.get("greeting"));
+    assertNull(resolved.get("ROOT"));
+  }
+
+  @Test
+  void testConfigurationShadowsFallback() {
+    final Context resolved = resolver.resolve(
+      Map.of("a", "${b}", "b", "inner"), Context.of(Map.of("b", "outer"))
+    );
+
+    assertEquals("inner", resolved.get("a"));
+  }
+
+  @Test
+  void testProperties() {
+    final Properties defaults = new Properties();
+    defaults.setProperty("port", "8080");
+
+    final Properties properties = new Properties(defaults);
+    properties.setProperty("url", "http://localhost:${port}/");
+
+    assertEquals("http://localhost:8080/", resolver.resolve(properties).get("url"));
+  }
+
+  @Test
+  void testReportsCycle() {
+    final IllegalArgumentException exception = assertThrows(
+      IllegalArgumentException.class,
+      () -> resolver.resolve(Map.of(
+        "ok", "fine",
+        "entry", "${a}",
+        "a", "${b} ${ok}",
+        "b", "${c}",
+        "c", "x${a}"
+      ))
+    );
+    final String message = exception.getMessage();
+    final String cycle = message.substring(message.indexOf(": ") + 2);
+
+    assertTrue(
+      cycle.equals("a -> b -> c -> a") || cycle.equals("b -> c -> a -> b") ||
+      cycle.equals("c -> a -> b -> c"),
+      message
+    );
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> resolver.resolve(Map.of("self", "${self}"))
+    );
+  }
+
+  @Test
+  void testLargeConfigurationInParallel() {
+    final Map<String, String> configuration = new HashMap<>();
+    configuration.put("k0", "v");
+
+    for (int i = 1; i < 5000; ++i) {
+      configuration.put("k" + i, "${k" + i / 2 + "}." + "%k" + i / 3 + "%");
+    }
+
+    final ForkJoinPool pool = new ForkJoinPool(4);
+
+    try {
+      final Context resolved =
+        new ConfigurationResolver(new ShellStyleStringInterpolator(), pool)
+          .resolve(configuration);
+      final Map<String, String> expected = new HashMap<>();
+      expected.put("k0", "v");
+
+      for (int i = 1; i < 50; ++i) {
+        expected.put("k" + i, expected.get("k" + i / 2) + "." + expected.get("k" + i / 3));
+        assertEquals(expected.get("k" + i), resolved.get("k" + i));
+      }
+
+      assertNotNull(resolved.get("k4999"));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void testRejectsRecursiveInterpolator() {
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> new ConfigurationResolver(
+        new ShellStyleStringInterpolator(true, true, true, 4)
+      )
+    );
+  }
+}
@@ -0,0 +1,74 @@
+package sh.cody.string.interpolate.test;
+
+import org.junit.jupiter.api.Test;
+import sh.cody.string.interpolate.Context;
+import sh.cody.string.interpolate.ShellStyleStringInterpolator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContextTest {
+  @Test
+  void testOf() {
+    final Map<String, String> map = new HashMap<>(Map.of(
+      "A", "value a",
+      "helloWorld", "Hello, World!",
+      "", "empty"
+    ));
+    final Context context = Context.of(map);
+
+    assertEquals("value a", context.get("A"));
+    assertEquals("Hello, World!", context.get("helloWorld"));
+    assertEquals("empty", context.get(""));
+    assertNull(context.get("a"));
+    assertNull(context.get("B"));
+
+    map.put("B", "value b");
+    assertNull(context.get("B"));
+  }
+
+  @Test
+  void testRangeLookup() {
+    final Context context = Context.of(Map.of("A", "value a", "AB", "value ab"));
+    final StringBuilder source = new StringBuilder("${AB} ${A}");
+
+    assertEquals("value ab", context.get(source, 2, 4));
+    assertEquals("value a", context.get(source, 2, 3));
+    assertEquals("value a", context.get(source, 8, 9));
+    assertNull(context.get(source, 1, 4));
+    assertThrows(IndexOutOfBoundsException.class, () -> {
+      context.get(source, 8, 11);
+    });
+
+    final Context lambda = Map.of("A", "value a")::get;
+    assertEquals("value a", lambda.get(source, 8, 9));
+  }
+
+  @Test
+  void testInterpolatorUsesRangeLookup() {
+    final Context context = new Context() {
+      final Context delegate = Context.of(Map.of("A", "value a", "B", "b"));
+
+      @Override
+      public String get(final String key) {
+        throw new AssertionError("key materialized: " + key);
+      }
+
+      @Override
+      public String get(final CharSequence source,
+                        final int start,
+                        final int end) {
+        return this.delegate.get(source, start, end);
+      }
+    };
+
+    assertEquals(
+      "value a b ${C} d %E%",
+      new ShellStyleStringInterpolator().interpolate(
+        "${ A } %B% ${ C } ${D:d} %E%", context
+      )
+    );
+  }
+}
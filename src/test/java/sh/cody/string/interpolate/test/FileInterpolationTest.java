@@ -0,0 +1,91 @@
+package sh.cody.string.interpolate.test;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sh.cody.string.interpolate.Context;
+import sh.cody.string.interpolate.ShellStyleStringInterpolator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileInterpolationTest {
+  final static Context mockContext = Map.of(
+    "USER", "liz",
+    "HOME", "/home/liz",
+    "名前", "値"
+  )::get;
+
+  final static ShellStyleStringInterpolator interpolator =
+    new ShellStyleStringInterpolator();
+
+  Path source;
+  Path target;
+
+  @BeforeEach
+  void createFiles() throws IOException {
+    this.source = Files.createTempFile("template", ".txt");
+    this.target = Files.createTempFile("interpolated", ".txt");
+  }
+
+  @AfterEach
+  void deleteFiles() throws IOException {
+    Files.deleteIfExists(this.source);
+    Files.deleteIfExists(this.target);
+  }
+
+  void assertInterpolatesLikeString(final String template) throws IOException {
+    Files.writeString(this.source, template, StandardCharsets.UTF_8);
+    interpolator.interpolate(this.source, this.target, mockContext);
+
+    assertEquals(
+      interpolator.interpolate(template, mockContext),
+      Files.readString(this.target, StandardCharsets.UTF_8)
+    );
+  }
+
+  @Test
+  void testSmallFiles() throws IOException {
+    assertInterpolatesLikeString("");
+    assertInterpolatesLikeString("no expressions");
+    assertInterpolatesLikeString("${USER} %名前% ${MISSING:x} \\${HOME} ${HOME");
+  }
+
+  @Test
+  void testSparseExpressions() throws IOException {
+    final String filler = "The quick brown fox jumps over the lazy dög.\n";
+    final StringBuilder template = new StringBuilder();
+
+    for (int i = 0; i < 64; ++i) {
+      // alternate long runs, which are transferred, with short runs
+      template
+        .append(filler.repeat(i % 2 == 0 ? 500 : 3))
+        .append("${HOME}/%USER%/")
+        .append(i);
+    }
+
+    assertInterpolatesLikeString(template.toString());
+  }
+
+  @Test
+  void testReplacesExistingTarget() throws IOException {
+    Files.writeString(this.target, "x".repeat(100_000));
+    assertInterpolatesLikeString("${USER}");
+  }
+
+  @Test
+  void testSameFile() throws IOException {
+    Files.writeString(this.source, "${USER}");
+
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> interpolator.interpolate(this.source, this.source, mockContext)
+    );
+    assertEquals("${USER}", Files.readString(this.source));
+  }
+}
@@ -0,0 +1,141 @@
+package sh.cody.string.interpolate.test;
+
+import org.junit.jupiter.api.Test;
+import sh.cody.string.interpolate.CachingStringInterpolator;
+import sh.cody.string.interpolate.Context;
+import sh.cody.string.interpolate.InstrumentedStringInterpolator;
+import sh.cody.string.interpolate.ShellStyleStringInterpolator;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InstrumentedStringInterpolatorTest {
+  final static Context mockContext = Map.of(
+    "USER", "liz",
+    "HOME", "/home/liz"
+  )::get;
+
+  final static String template =
+    "${USER} %HOME% ${MISSING} %MISSING% ${MISSING:default}";
+
+  void assertCounts(final InstrumentedStringInterpolator interpolator) {
+    assertEquals(
+      "liz /home/liz ${MISSING} %MISSING% default",
+      interpolator.interpolate(template, mockContext)
+    );
+    assertEquals(
+      "liz", interpolator.interpolateTo("${USER}", mockContext, new StringBuilder()).toString()
+    );
+    assertEquals("plain", interpolator.interpolate("plain", mockContext));
+
+    assertEquals(3, interpolator.getCalls());
+    assertEquals(template.length() + 7 + 5, interpolator.getTemplateCharacters());
+    assertEquals(6, interpolator.getLookups());
+    assertEquals(2.0, interpolator.getMeanLookupsPerCall());
+    assertEquals(3, interpolator.getMisses());
+    assertEquals(2, interpolator.getUnresolved());
+    assertEquals(1, interpolator.getDefaults());
+    assertEquals(3, interpolator.getLatencySamples());
+    assertEquals(63, interpolator.getTemplateLength99thPercentile());
+    assertTrue(interpolator.getLatency50thPercentileNanos() > 0);
+    assertTrue(
+      interpolator.getLatency99thPercentileNanos() >=
+      interpolator.getLatency50thPercentileNanos()
+    );
+
+    interpolator.reset();
+    assertEquals(0, interpolator.getCalls());
+    assertEquals(0, interpolator.getLatencySamples());
+    assertEquals(0, interpolator.getLatency99thPercentileNanos());
+    assertEquals(0.0, interpolator.getMeanTemplateLength());
+  }
+
+  @Test
+  void testShellStyle() {
+    assertCounts(
+      new InstrumentedStringInterpolator(new ShellStyleStringInterpolator(), 1)
+    );
+  }
+
+  @Test
+  void testCachedTemplates() {
+    assertCounts(
+      new InstrumentedStringInterpolator(
+        new CachingStringInterpolator(new ShellStyleStringInterpolator(), 16), 1
+      )
+    );
+  }
+
+  @Test
+  void testOtherInterpolators() {
+    final InstrumentedStringInterpolator interpolator =
+      new InstrumentedStringInterpolator(
+        (string, context) -> context.get(string) == null ? string : "hit"
+      );
+
+    assertEquals(
+      List.of("hit", "NOPE"),
+      interpolator.interpolateAll(List.of("USER", "NOPE"), mockContext)
+    );
+    assertEquals(2, interpolator.getCalls());
+    assertEquals(2, interpolator.getLookups());
+    assertEquals(1, interpolator.getMisses());
+    assertEquals(0, interpolator.getUnresolved());
+    assertEquals(0, interpolator.getDefaults());
+  }
+
+  @Test
+  void testSamplingInterval() {
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> new InstrumentedStringInterpolator(new ShellStyleStringInterpolator(), 3)
+    );
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> new InstrumentedStringInterpolator(new ShellStyleStringInterpolator(), 0)
+    );
+
+    final InstrumentedStringInterpolator interpolator =
+      new InstrumentedStringInterpolator(new ShellStyleStringInterpolator(), 64);
+
+    for (int i = 0; i < 6400; ++i) {
+      interpolator.interpolate("${USER}", mockContext);
+    }
+
+    assertEquals(6400, interpolator.getCalls());
+    assertTrue(interpolator.getLatencySamples() > 0);
+    assertTrue(interpolator.getLatencySamples() < 640);
+  }
+
+  @Test
+  void testMBean() throws Exception {
+    final InstrumentedStringInterpolator interpolator =
+      new InstrumentedStringInterpolator(new ShellStyleStringInterpolator());
+    final ObjectName name = new ObjectName(
+      "sh.cody.string.interpolate:type=InstrumentedStringInterpolator,name=test"
+    );
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    interpolator.register(name);
+
+    try {
+      interpolator.interpolate(template, mockContext);
+
+      assertEquals(1L, server.getAttribute(name, "Calls"));
+      assertEquals(1L, server.getAttribute(name, "Defaults"));
+      assertEquals(
+        64, ((long[]) server.getAttribute(name, "LatencyHistogram")).length
+      );
+
+      server.invoke(name, "reset", null, null);
+      assertEquals(0L, server.getAttribute(name, "Calls"));
+    } finally {
+      server.unregisterMBean(name);
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package sh.cody.string.interpolate.test;
+
+import org.junit.jupiter.api.Test;
+import sh.cody.string.interpolate.Context;
+import sh.cody.string.interpolate.LayeredContext;
+import sh.cody.string.interpolate.ShellStyleStringInterpolator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LayeredContextTest {
+  final static Context overrides = Context.of(Map.of("COLOR", "red"));
+
+  final static Context tenant = Context.of(Map.of(
+    "COLOR", "blue",
+    "NAME", "acme"
+  ));
+
+  final static Context defaults = Context.of(Map.of(
+    "COLOR", "black",
+    "NAME", "default",
+    "SIZE", "m"
+  ));
+
+  final static Context secrets = Context.of(Map.of("TOKEN", "s3cr3t"));
+
+  final static Context secretsAdmin = Context.of(Map.of("TOKEN", "r00t"));
+
+  final static LayeredContext context = Context.layered()
+    .namespace("secret.", secrets)
+    .namespace("secret.admin.", secretsAdmin)
+    .layer(overrides)
+    .layer(tenant)
+    .layer(defaults)
+    .build();
+
+  @Test
+  void testFallsThroughLayers() {
+    assertEquals("red", context.get("COLOR"));
+    assertEquals("acme", context.get("NAME"));
+    assertEquals("m", context.get("SIZE"));
+    assertNull(context.get("MISSING"));
+  }
+
+  @Test
+  void testRoutesNamespaces() {
+    assertEquals("s3cr3t", context.get("secret.TOKEN"));
+    assertEquals("s3cr3t", context.get("SECRET.TOKEN"));
+    assertEquals("r00t", context.get("Secret.Admin.TOKEN"));
+    assertNull(context.get("secret.COLOR"));
+    assertNull(context.get("secret.admin.COLOR"));
+    assertNull(context.get("secret."));
+
+    // a partial prefix is an ordinary key
+    assertNull(context.get("secretTOKEN"));
+    assertNull(context.get("secret"));
+  }
+
+  @Test
+  void testRangeLookup() {
+    final String source = "[secret.admin.TOKEN][NAME][secret.TOKEN]";
+
+    assertEquals("r00t", context.get(source, 1, 19));
+    assertEquals("acme", context.get(source, 21, 25));
+    assertEquals("s3cr3t", context.get(source, 27, 39));
+    assertThrows(
+      IndexOutOfBoundsException.class, () -> context.get(source, 30, 50)
+    );
+    assertEquals(
+      "red acme s3cr3t ${secret.NAME}",
+      new ShellStyleStringInterpolator().interpolate(
+        "${COLOR} %NAME% ${secret.TOKEN} ${secret.NAME}", context
+      )
+    );
+  }
+
+  @Test
+  void testOnlyOwningLayerConsulted() {
+    final List<String> consulted = new ArrayList<>();
+    final LayeredContext counted = Context.layered()
+      .namespace("a.", key -> {
+        consulted.add("a:" + key);
+        return null;
+      })
+      .layer(key -> {
+        consulted.add("1:" + key);
+        return null;
+      })
+      .layer(key -> {
+        consulted.add("2:" + key);
+        return "two";
+      })
+      .layer(key -> {
+        consulted.add("3:" + key);
+        return "three";
+      })
+      .build();
+
+    assertNull(counted.get("a.KEY"));
+    assertEquals("two", counted.get("KEY"));
+    assertEquals(List.of("a:KEY", "1:KEY", "2:KEY"), consulted);
+  }
+
+  @Test
+  void testBuilder() {
+    final LayeredContext.Builder builder = Context.layered().layer(tenant);
+    final LayeredContext before = builder.build();
+    builder.namespace("x.", defaults);
+
+    assertNull(before.get("x.SIZE"));
+    assertEquals("m", builder.build().get("X.SIZE"));
+
+    assertThrows(
+      IllegalArgumentException.class, () -> builder.namespace("X.", tenant)
+    );
+    assertThrows(
+      IllegalArgumentException.class, () -> builder.namespace("", tenant)
+    );
+    assertNull(Context.layered().build().get("ANYTHING"));
+  }
+
+  @Test
+  void testCombined() {
+    final Context combined = Context.combined();
+    final String property = System.getProperties().stringPropertyNames()
+      .iterator().next();
+
+    assertEquals(System.getProperty(property), combined.get(property));
+    assertEquals(System.getProperty(property), combined.get("prop." + property));
+    assertEquals(System.getProperty(property), combined.get("PROP." + property));
+
+    for (final Map.Entry<String, String> entry : System.getenv().entrySet()) {
+      assertEquals(entry.getValue(), combined.get("env." + entry.getKey()));
+      assertEquals(entry.getValue(), combined.get("Env." + entry.getKey()));
+    }
+  }
+}
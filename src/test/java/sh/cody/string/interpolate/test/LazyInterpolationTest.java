@@ -0,0 +1,108 @@
+package sh.cody.string.interpolate.test;
+
+import org.junit.jupiter.api.Test;
+import sh.cody.string.interpolate.*;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LazyInterpolationTest {
+  final static Map<String, String> values = Map.of(
+    "USER", "liz",
+    "HOME", "/home/liz"
+  );
+
+  final AtomicInteger lookups = new AtomicInteger();
+
+  final Context countingContext = key -> {
+    this.lookups.incrementAndGet();
+    return values.get(key);
+  };
+
+  final StringInterpolator interpolator = new ShellStyleStringInterpolator();
+
+  @Test
+  void testDeferredAndMemoized() {
+    final LazyInterpolation lazy =
+      this.interpolator.lazy("${USER}@%HOME%", this.countingContext);
+
+    assertEquals(0, this.lookups.get());
+    assertFalse(lazy.isInterpolated());
+
+    assertEquals(13, lazy.length());
+    assertTrue(lazy.isInterpolated());
+    assertEquals(2, this.lookups.get());
+
+    assertEquals('@', lazy.charAt(3));
+    assertEquals("liz", lazy.subSequence(0, 3));
+    assertEquals("liz@/home/liz", lazy.toString());
+    assertEquals("liz@/home/liz", lazy.get());
+    assertSame(lazy.toString(), lazy.get());
+    assertEquals(2, this.lookups.get());
+  }
+
+  @Test
+  void testAppendToStreamsWithoutRetaining() {
+    final LazyInterpolation lazy =
+      this.interpolator.lazy("${USER}@%HOME%", this.countingContext);
+
+    assertEquals(
+      ">liz@/home/liz", lazy.appendTo(new StringBuilder(">")).toString()
+    );
+    assertFalse(lazy.isInterpolated());
+    assertEquals(2, this.lookups.get());
+
+    lazy.toString();
+    assertEquals("liz@/home/liz", lazy.appendTo(new StringBuilder()).toString());
+    assertEquals(4, this.lookups.get());
+  }
+
+  @Test
+  void testDiscardedByLogger() {
+    final Logger logger = Logger.getLogger(LazyInterpolationTest.class.getName());
+    final Level level = logger.getLevel();
+
+    try {
+      logger.setLevel(Level.INFO);
+      logger.fine(this.interpolator.lazy("${USER}", this.countingContext));
+      assertEquals(0, this.lookups.get());
+    } finally {
+      logger.setLevel(level);
+    }
+  }
+
+  @Test
+  void testInterpolatedOnceConcurrently() throws InterruptedException {
+    final LazyInterpolation lazy = new CachingStringInterpolator(
+      new ShellStyleStringInterpolator(), 4
+    ).lazy("${USER}", this.countingContext);
+    final CountDownLatch start = new CountDownLatch(1);
+    final Thread[] threads = new Thread[8];
+
+    for (int i = 0; i < threads.length; ++i) {
+      threads[i] = new Thread(() -> {
+        try {
+          start.await();
+        } catch (final InterruptedException exception) {
+          Thread.currentThread().interrupt();
+        }
+
+        assertEquals("liz", lazy.toString());
+      });
+      threads[i].start();
+    }
+
+    start.countDown();
+
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(1, this.lookups.get());
+  }
+}
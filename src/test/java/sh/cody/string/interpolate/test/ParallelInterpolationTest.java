@@ -0,0 +1,116 @@
+package sh.cody.string.interpolate.test;
+
+import org.junit.jupiter.api.Test;
+import sh.cody.string.interpolate.Context;
+import sh.cody.string.interpolate.ShellStyleStringInterpolator;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelInterpolationTest {
+  final static Context mockContext = Context.of(Map.of(
+    "USER", "liz",
+    "HOME", "/home/liz",
+    "CYCLE", "${CYCLE}",
+    "DEEP", "${USER}"
+  ));
+
+  final static ShellStyleStringInterpolator interpolator =
+    new ShellStyleStringInterpolator();
+
+  static String buildTemplate(final int length, final String... pieces) {
+    final StringBuilder template = new StringBuilder(length + 64);
+
+    for (int i = 0; template.length() < length; ++i) {
+      template.append(pieces[i % pieces.length]);
+    }
+
+    return template.toString();
+  }
+
+  void assertParallel(final ShellStyleStringInterpolator interpolator,
+                      final String template) {
+    final String expected = interpolator.interpolate(template, mockContext);
+    assertEquals(
+      expected, interpolator.interpolateParallel(template, mockContext)
+    );
+
+    for (final int parallelism : new int[] {1, 3, 16}) {
+      final ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+      try {
+        assertEquals(
+          expected,
+          interpolator.interpolateParallel(template, mockContext, pool)
+        );
+      } finally {
+        pool.shutdown();
+      }
+    }
+  }
+
+  @Test
+  void testMatchesSequential() {
+    assertParallel(interpolator, buildTemplate(
+      1 << 21,
+      "${USER} lives in %HOME% ", "${MISSING:a\nmultiline\ndefault} ",
+      "\\${USER} \\\\", "%MISSING% ${ HOME } 100% ", "$$ %% ${} "
+    ));
+  }
+
+  @Test
+  void testLongExpressions() {
+    // expressions spanning many chunks must not be divided
+    final String longDefault =
+      "${MISSING:" + "x".repeat(300_000) + "} %USER% ";
+    assertParallel(interpolator, buildTemplate(1 << 20, longDefault));
+
+    // an unterminated expression extends to the end of the string
+    assertParallel(
+      interpolator,
+      buildTemplate(1 << 20, "${USER} ", "%HOME% ") + "${USER" +
+      buildTemplate(1 << 20, "${USER} ")
+    );
+  }
+
+  @Test
+  void testRecursive() {
+    final ShellStyleStringInterpolator recursive =
+      new ShellStyleStringInterpolator(true, true, true, 4);
+    final String template =
+      buildTemplate(1 << 20, "${DEEP} ${MISSING:${HOME}} %USER% ");
+
+    assertParallel(recursive, template);
+
+    // the failure of the earliest failing chunk is reported
+    final String failing = template + "${CYCLE:x}" + template + "${NOPE|x}";
+    final IllegalArgumentException expected = assertThrows(
+      IllegalArgumentException.class,
+      () -> recursive.interpolate(failing, mockContext)
+    );
+    final IllegalArgumentException actual = assertThrows(
+      IllegalArgumentException.class,
+      () -> recursive.interpolateParallel(failing, mockContext)
+    );
+    assertEquals(expected.getMessage(), actual.getMessage());
+  }
+
+  @Test
+  void testShortStringsInterpolatedSequentially() {
+    final AtomicInteger lookups = new AtomicInteger();
+    final String template = "${USER} %HOME%";
+
+    assertEquals(
+      "liz /home/liz",
+      interpolator.interpolateParallel(template, key -> {
+        lookups.incrementAndGet();
+        return mockContext.get(key);
+      })
+    );
+    assertEquals(2, lookups.get());
+    assertEquals("", interpolator.interpolateParallel("", mockContext));
+  }
+}
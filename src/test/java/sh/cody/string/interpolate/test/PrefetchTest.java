@@ -0,0 +1,124 @@
+package sh.cody.string.interpolate.test;
+
+import org.junit.jupiter.api.Test;
+import sh.cody.string.interpolate.CachingStringInterpolator;
+import sh.cody.string.interpolate.Context;
+import sh.cody.string.interpolate.ShellStyleStringInterpolator;
+import sh.cody.string.interpolate.Template;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrefetchTest {
+  final static Map<String, String> values = Map.of(
+    "USER", "liz",
+    "HOME", "/home/liz",
+    "SHELL", "/bin/zsh",
+    "LOGS", "${HOME}/logs"
+  );
+
+  /**
+   * A stand-in for a slow store, counting the round-trips made to it.
+   */
+  static final class CountingStore implements Context {
+    int roundTrips;
+
+    @Override
+    public String get(final String key) {
+      ++this.roundTrips;
+      return values.get(key);
+    }
+
+    @Override
+    public Map<String, String> getAll(final Set<String> keys) {
+      ++this.roundTrips;
+      final Map<String, String> found = new HashMap<>();
+
+      for (final String key : keys) {
+        if (values.containsKey(key)) {
+          found.put(key, values.get(key));
+        }
+      }
+
+      return found;
+    }
+  }
+
+  @Test
+  void testDefaultGetAll() {
+    final Context context = values::get;
+
+    assertEquals(
+      Map.of("USER", "liz", "HOME", "/home/liz"),
+      context.getAll(Set.of("USER", "HOME", "MISSING"))
+    );
+    assertEquals(Map.of(), context.getAll(Set.of()));
+  }
+
+  @Test
+  void testTemplateKeys() {
+    final Template template = new ShellStyleStringInterpolator()
+      .compile("${USER} %HOME% ${ SHELL :sh} ${USER} $x \\${ESCAPED}");
+
+    assertIterableEquals(List.of("USER", "HOME", "SHELL"), template.getKeys());
+    assertThrows(
+      UnsupportedOperationException.class,
+      () -> template.getKeys().add("OTHER")
+    );
+  }
+
+  @Test
+  void testSingleRoundTrip() {
+    final ShellStyleStringInterpolator interpolator =
+      new ShellStyleStringInterpolator();
+    final String template =
+      "${USER}:%HOME%:${SHELL}:${MISSING:none}:${USER}:%NOPE%";
+
+    final CountingStore store = new CountingStore();
+    final String expected = interpolator.interpolate(template, store);
+    assertEquals(6, store.roundTrips);
+
+    store.roundTrips = 0;
+    assertEquals(expected, interpolator.interpolatePrefetched(template, store));
+    assertEquals(1, store.roundTrips);
+
+    store.roundTrips = 0;
+    assertEquals(
+      "no variables", interpolator.interpolatePrefetched("no variables", store)
+    );
+    assertEquals(0, store.roundTrips);
+  }
+
+  @Test
+  void testCachedTemplates() {
+    final CachingStringInterpolator interpolator =
+      new CachingStringInterpolator(new ShellStyleStringInterpolator(), 16);
+    final CountingStore store = new CountingStore();
+
+    for (int i = 0; i < 3; ++i) {
+      assertEquals(
+        "liz@/home/liz", interpolator.interpolatePrefetched("${USER}@%HOME%", store)
+      );
+    }
+
+    assertEquals(3, store.roundTrips);
+  }
+
+  @Test
+  void testRecursiveExpansion() {
+    final ShellStyleStringInterpolator interpolator =
+      new ShellStyleStringInterpolator(true, true, true, 4);
+    final CountingStore store = new CountingStore();
+
+    assertEquals(
+      "/home/liz/logs liz",
+      interpolator.interpolatePrefetched("${LOGS} ${USER}", store)
+    );
+    // one batch for the template, then the key found within LOGS
+    assertEquals(2, store.roundTrips);
+  }
+}
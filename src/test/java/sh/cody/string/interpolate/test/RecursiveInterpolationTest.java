@@ -0,0 +1,138 @@
+package sh.cody.string.interpolate.test;
+
+import org.junit.jupiter.api.Test;
+import sh.cody.string.interpolate.Context;
+import sh.cody.string.interpolate.ShellStyleStringInterpolator;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecursiveInterpolationTest {
+  final static Map<String, String> values = Map.of(
+    "BASE", "/opt/app",
+    "LOGS", "${BASE}/logs",
+    "ARCHIVE", "%LOGS%/archive",
+    "USER", "liz",
+    "ESCAPED", "\\${BASE}",
+    "CYCLE_A", "${CYCLE_B}",
+    "CYCLE_B", "x${CYCLE_C}",
+    "CYCLE_C", "${CYCLE_A}",
+    "SELF", "${SELF}"
+  );
+
+  final static ShellStyleStringInterpolator interpolator =
+    new ShellStyleStringInterpolator(true, true, true, 8);
+
+  @Test
+  void testExpandsValues() {
+    final Context context = values::get;
+
+    assertEquals("/opt/app/logs", interpolator.interpolate("${LOGS}", context));
+    assertEquals(
+      "/opt/app/logs/archive", interpolator.interpolate("%ARCHIVE%", context)
+    );
+    assertEquals("${BASE}", interpolator.interpolate("${ESCAPED}", context));
+    assertEquals(
+      "${BASE}/logs",
+      new ShellStyleStringInterpolator().interpolate("${LOGS}", context)
+    );
+  }
+
+  @Test
+  void testExpandsDefaults() {
+    final Context context = values::get;
+
+    assertEquals("liz", interpolator.interpolate("${MISSING:${USER}}", context));
+    assertEquals(
+      "/opt/app/logs!",
+      interpolator.interpolate("${MISSING:${ALSO_MISSING:${LOGS}}!}", context)
+    );
+    assertEquals(
+      "a}b", interpolator.interpolate("${MISSING:${ALSO_MISSING:a\\}b}}", context)
+    );
+    assertEquals(
+      "${USER}",
+      new ShellStyleStringInterpolator().interpolate("${MISSING:${USER}}", context)
+    );
+  }
+
+  @Test
+  void testMemoizesLookups() {
+    final AtomicInteger lookups = new AtomicInteger();
+    final Context context = key -> {
+      lookups.incrementAndGet();
+      return values.get(key);
+    };
+
+    assertEquals(
+      "/opt/app/logs /opt/app/logs /opt/app",
+      interpolator.interpolate("${LOGS} ${LOGS} ${BASE}", context)
+    );
+    assertEquals(2, lookups.get());
+  }
+
+  @Test
+  void testDetectsCycles() {
+    final Context context = values::get;
+
+    final IllegalArgumentException exception = assertThrows(
+      IllegalArgumentException.class,
+      () -> interpolator.interpolate("${CYCLE_A}", context)
+    );
+    assertTrue(
+      exception.getMessage().contains("CYCLE_A -> CYCLE_B -> CYCLE_C -> CYCLE_A")
+    );
+
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> interpolator.compile("%SELF%").render(context)
+    );
+  }
+
+  @Test
+  void testMaximumDepth() {
+    final Map<String, String> chain = new HashMap<>();
+    for (int i = 0; i < 4; ++i) {
+      chain.put("V" + i, "${V" + (i + 1) + "}");
+    }
+    chain.put("V4", "end");
+
+    final Context context = chain::get;
+
+    assertEquals(
+      "end",
+      new ShellStyleStringInterpolator(true, true, true, 4)
+        .interpolate("${V0}", context)
+    );
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> new ShellStyleStringInterpolator(true, true, true, 3)
+              .interpolate("${V0}", context)
+    );
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> new ShellStyleStringInterpolator(true, true, true, -1)
+    );
+  }
+
+  @Test
+  void testCompiledAndStreamed() throws IOException {
+    final Context context = values::get;
+    final String template =
+      "${MISSING:${ARCHIVE}} %USER% ${LOGS:} ${MISSING:{${USER}\\}}";
+    final String expected = interpolator.interpolate(template, context);
+
+    assertEquals("/opt/app/logs/archive liz /opt/app/logs {liz}", expected);
+    assertEquals(expected, interpolator.compile(template).render(context));
+
+    final StringWriter writer = new StringWriter();
+    interpolator.interpolate(new StringReader(template), writer, context);
+    assertEquals(expected, writer.toString());
+  }
+}
@@ -0,0 +1,100 @@
+package sh.cody.string.interpolate.test;
+
+import org.junit.jupiter.api.Test;
+import sh.cody.string.interpolate.Context;
+import sh.cody.string.interpolate.ShellStyleStringInterpolator;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SentinelScanTest {
+  final static Context mockContext = Context.of(Map.of(
+    "A", "value a",
+    "ONE", "1",
+    "é", "e acute"
+  ));
+
+  final static List<ShellStyleStringInterpolator> interpolators = List.of(
+    new ShellStyleStringInterpolator(),
+    new ShellStyleStringInterpolator(true, true, false),
+    new ShellStyleStringInterpolator(false, false, true),
+    new ShellStyleStringInterpolator(false, false, false)
+  );
+
+  final static String[] fragments = {
+    "$", "%", "\\", "{", "}", ":", "${A}", "%ONE%", "%é%", "${MISSING:x}",
+    "\\${A}", "é", "€", "😀", "\u0080", "ÿ", "Ā"
+  };
+
+  /**
+   * Builds a random template of literal runs of every length, separated by
+   * sentinels, expressions and non-ASCII characters.
+   */
+  static String randomTemplate(final Random random) {
+    final StringBuilder template = new StringBuilder();
+    final int pieces = random.nextInt(12);
+
+    for (int i = 0; i < pieces; ++i) {
+      final int run = random.nextInt(4) == 0 ? random.nextInt(200) :
+                                               random.nextInt(17);
+
+      for (int j = 0; j < run; ++j) {
+        template.append((char) ('a' + random.nextInt(26)));
+      }
+
+      template.append(fragments[random.nextInt(fragments.length)]);
+    }
+
+    return template.toString();
+  }
+
+  @Test
+  void testScansMatchScalarPath() {
+    final Random random = new Random(47);
+
+    for (int i = 0; i < 2_000; ++i) {
+      final String template = randomTemplate(random);
+      final byte[] bytes = template.getBytes(StandardCharsets.UTF_8);
+
+      for (final ShellStyleStringInterpolator interpolator : interpolators) {
+        // a StringBuilder is neither a String nor UTF-8 bytes, so it is
+        // scanned one character at a time
+        final String expected = interpolator.interpolateTo(
+          new StringBuilder(template), mockContext, new StringBuilder()
+        ).toString();
+
+        assertEquals(
+          expected, interpolator.interpolate(template, mockContext), template
+        );
+
+        for (int offset = 0; offset < 16; ++offset) {
+          for (final ByteBuffer buffer : List.of(
+            ByteBuffer.allocate(bytes.length + 32),
+            ByteBuffer.allocateDirect(bytes.length + 32)
+              .order(ByteOrder.LITTLE_ENDIAN)
+          )) {
+            buffer.position(offset);
+            buffer.put(bytes);
+            buffer.position(offset);
+            buffer.limit(offset + bytes.length);
+
+            final ByteBuffer result =
+              interpolator.interpolateUtf8(buffer, mockContext);
+            final byte[] actual = new byte[result.remaining()];
+            result.get(actual);
+
+            assertEquals(
+              expected, new String(actual, StandardCharsets.UTF_8), template
+            );
+          }
+        }
+      }
+    }
+  }
+}
@@ -5,6 +5,13 @@ import sh.cody.string.interpolate.Context;
 import sh.cody.string.interpolate.ContextualizedStringInterpolator;
 import sh.cody.string.interpolate.ShellStyleStringInterpolator;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -57,6 +64,20 @@ public class ShellStyleStringInterpolatorTest {
     assertEquals("a $", interpolator.interpolate("a $"));
   }
 
+  @Test
+  void testLiteral() {
+    final String literal = "Hello, World! {no expressions: here}";
+    assertSame(literal, interpolator.interpolate(literal));
+    assertEquals("", interpolator.interpolate(""));
+  }
+
+  @Test
+  void testEscapes() {
+    assertEquals("${A} value a", interpolator.interpolate("\\${A} ${A}"));
+    assertEquals("\\%ONE% \\\\1", interpolator.interpolate("\\%ONE% \\\\%ONE%"));
+    assertEquals("a \\", interpolator.interpolate("a \\"));
+  }
+
   @Test
   void testShWhitespace() {
     assertEquals("Hello, World!", interpolator.interpolate("${ helloWorld }"));
@@ -79,4 +100,135 @@ public class ShellStyleStringInterpolatorTest {
     final ContextualizedStringInterpolator interpolator = new ShellStyleStringInterpolator(false).forContext(mockContext);
     assertEquals("identity function", interpolator.interpolate("${Function::identity}"));
   }
+
+  @Test
+  void testInterpolateTo() {
+    final StringBuilder builder = new StringBuilder("> ");
+
+    assertSame(builder, interpolator.interpolateTo("${ZERO} -> %ONE%", builder));
+    assertEquals("> 0 -> 1", builder.toString());
+
+    interpolator.interpolateTo(new StringBuilder(" ${TWELVE:12}"), builder);
+    interpolator.interpolateTo(" and more", builder);
+    assertEquals("> 0 -> 1 12 and more", builder.toString());
+
+    assertThrows(
+      UncheckedIOException.class,
+      () -> new ShellStyleStringInterpolator().interpolateTo(
+        "%ONE%", mockContext, new Appendable() {
+          @Override
+          public Appendable append(final CharSequence chars)
+            throws IOException {
+            throw new IOException("append");
+          }
+
+          @Override
+          public Appendable append(final CharSequence chars,
+                                   final int start,
+                                   final int end) throws IOException {
+            throw new IOException("append");
+          }
+
+          @Override
+          public Appendable append(final char ch) throws IOException {
+            throw new IOException("append");
+          }
+        }
+      )
+    );
+  }
+
+  @Test
+  void testStreaming() throws IOException {
+    final ShellStyleStringInterpolator interpolator =
+      new ShellStyleStringInterpolator();
+
+    for (final String string : List.of(
+      "",
+      "Hello, World!",
+      "${helloWorld} %helloWorld% ${ helloWorld }",
+      "${ZERO} -> %ONE% -> %TWO%",
+      "%ONE%%TWO%%ZERO%%% ${A}",
+      "${TWELVE} %TWELVE% ${TWELVE:12} ${EMPTY:}",
+      "%% %ZERO% ${ONE} ${TWO} %THREE% %FOUR${}{}{}",
+      "%helloWorld% %ZERO ${ZERO}",
+      "a %helloWorld",
+      "a ${TWELVE:12",
+      "a ${TWELVE:\\}\\{12\\}",
+      "a ${Function\\::identity:x}",
+      "\\${A} \\%ONE% \\\\%ONE% \\",
+      "a $",
+      "a ${"
+    )) {
+      final String expected = interpolator.interpolate(string, mockContext);
+
+      final StringWriter whole = new StringWriter();
+      interpolator.interpolate(new StringReader(string), whole, mockContext);
+      assertEquals(expected, whole.toString());
+
+      final StringWriter trickled = new StringWriter();
+      interpolator.interpolate(new TrickleReader(string), trickled, mockContext);
+      assertEquals(expected, trickled.toString());
+    }
+  }
+
+  @Test
+  void testLongLiteralRuns() {
+    final String padding = "lorem ipsum dolor sit amet ".repeat(3);
+
+    for (final String expression : List.of("${A}", "%ONE%", "\\${A}", "$x", "%%")) {
+      for (int offset = 0; offset < 17; ++offset) {
+        final String string = padding.substring(0, offset) + expression +
+          padding + expression + padding.substring(offset);
+        final String expected =
+          padding.substring(0, offset) + interpolator.interpolate(expression) +
+          padding + interpolator.interpolate(expression) +
+          padding.substring(offset);
+
+        assertEquals(expected, interpolator.interpolate(string));
+        assertEquals(
+          expected,
+          interpolator.interpolateTo(new StringBuilder(string), new StringBuilder()).toString()
+        );
+        assertEquals(
+          expected,
+          new String(
+            new ShellStyleStringInterpolator().interpolateUtf8(
+              string.getBytes(StandardCharsets.UTF_8), mockContext
+            ),
+            StandardCharsets.UTF_8
+          )
+        );
+      }
+    }
+  }
+
+  /**
+   * A reader which reads a single character at a time, so that every
+   * expression spans a block boundary.
+   */
+  private static final class TrickleReader extends Reader {
+    private final String string;
+    private int index;
+
+    TrickleReader(final String string) {
+      this.string = string;
+    }
+
+    @Override
+    public int read(final char[] buffer, final int offset, final int length) {
+      if (this.index >= this.string.length()) {
+        return -1;
+      } else if (length == 0) {
+        return 0;
+      }
+
+      buffer[offset] = this.string.charAt(this.index++);
+      return 1;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
 }
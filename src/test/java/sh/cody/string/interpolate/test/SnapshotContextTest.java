@@ -0,0 +1,54 @@
+package sh.cody.string.interpolate.test;
+
+import org.junit.jupiter.api.Test;
+import sh.cody.string.interpolate.Context;
+import sh.cody.string.interpolate.SnapshotContext;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotContextTest {
+  @Test
+  void testMatchesCombined() {
+    final Context combined = Context.combined();
+    final SnapshotContext snapshot = Context.snapshot();
+
+    for (final String key : System.getProperties().stringPropertyNames()) {
+      assertEquals(combined.get(key), snapshot.get(key));
+      assertEquals(combined.get("prop." + key), snapshot.get("prop." + key));
+      assertEquals(combined.get("PROP." + key), snapshot.get("PROP." + key));
+    }
+
+    for (final Map.Entry<String, String> entry : System.getenv().entrySet()) {
+      assertEquals(entry.getValue(), snapshot.get("env." + entry.getKey()));
+      assertEquals(entry.getValue(), snapshot.get("Env." + entry.getKey()));
+    }
+
+    assertNull(snapshot.get("env."));
+    assertNull(snapshot.get("prop."));
+    assertNull(snapshot.get("env.sh.cody.undefined"));
+    assertNull(snapshot.get("sh.cody.undefined"));
+  }
+
+  @Test
+  void testRefresh() {
+    final String key = SnapshotContextTest.class.getName() + ".refresh";
+    final SnapshotContext snapshot = Context.snapshot();
+
+    try {
+      System.setProperty(key, "refreshed");
+      assertNull(snapshot.get(key));
+
+      snapshot.refresh();
+      assertEquals("refreshed", snapshot.get(key));
+      assertEquals("refreshed", snapshot.get("prop." + key));
+    } finally {
+      System.clearProperty(key);
+    }
+
+    assertEquals("refreshed", snapshot.get(key));
+    snapshot.refresh();
+    assertNull(snapshot.get(key));
+  }
+}
@@ -0,0 +1,126 @@
+package sh.cody.string.interpolate.test;
+
+import org.junit.jupiter.api.Test;
+import sh.cody.string.interpolate.Context;
+import sh.cody.string.interpolate.ShellStyleStringInterpolator;
+import sh.cody.string.interpolate.StringInterpolator;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StringInterpolatorTest {
+  final static Context mockContext = Map.of(
+    "A", "value a",
+    "ONE", "1",
+    "TWO", "2"
+  )::get;
+
+  final static StringInterpolator interpolator =
+    new ShellStyleStringInterpolator();
+
+  static List<String> batch(final int size) {
+    return IntStream.range(0, size)
+      .mapToObj(i -> i + ": ${A} %ONE% ${TWO} ${MISSING:" + i + "}")
+      .collect(Collectors.toUnmodifiableList());
+  }
+
+  @Test
+  void testInterpolateAllPreservesOrder() {
+    final List<String> strings = batch(10_000);
+    final List<String> expected = strings.stream()
+      .map(string -> interpolator.interpolate(string, mockContext))
+      .collect(Collectors.toList());
+
+    assertEquals(expected, interpolator.interpolateAll(strings, mockContext));
+
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      assertEquals(
+        expected, interpolator.interpolateAll(strings, mockContext, pool)
+      );
+    } finally {
+      pool.shutdown();
+    }
+
+    final Stream<String> sequential =
+      interpolator.interpolateAll(strings.stream(), mockContext);
+    assertFalse(sequential.isParallel());
+    assertEquals(expected, sequential.collect(Collectors.toList()));
+
+    final Stream<String> parallel =
+      interpolator.interpolateAll(strings.parallelStream(), mockContext);
+    assertTrue(parallel.isParallel());
+    assertEquals(expected, parallel.collect(Collectors.toList()));
+  }
+
+  @Test
+  void testInterpolateAllEmpty() {
+    assertEquals(List.of(), interpolator.interpolateAll(List.of(), mockContext));
+  }
+
+  @Test
+  void testInterpolateAllSharesLookups() {
+    final Map<String, AtomicInteger> lookups = new ConcurrentHashMap<>();
+    final Context counting = key -> {
+      lookups.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+      return mockContext.get(key);
+    };
+
+    final ForkJoinPool pool = new ForkJoinPool(1);
+    try {
+      interpolator.interpolateAll(batch(1_000), counting, pool);
+    } finally {
+      pool.shutdown();
+    }
+
+    assertEquals(Map.of("A", 1, "ONE", 1, "TWO", 1, "MISSING", 1),
+      lookups.entrySet().stream().collect(Collectors.toMap(
+        Map.Entry::getKey, entry -> entry.getValue().get()
+      ))
+    );
+  }
+
+  @Test
+  void testInterpolateAllForwardsRangeLookups() {
+    final Map<String, AtomicInteger> lookups = new ConcurrentHashMap<>();
+    final Context ranged = new Context() {
+      @Override
+      public String get(final String key) {
+        throw new AssertionError("key materialized: " + key);
+      }
+
+      @Override
+      public String get(final CharSequence source,
+                        final int start,
+                        final int end) {
+        final String key = source.subSequence(start, end).toString();
+        lookups.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+        return mockContext.get(key);
+      }
+    };
+
+    final ForkJoinPool pool = new ForkJoinPool(1);
+    try {
+      assertEquals(
+        interpolator.interpolateAll(batch(100), mockContext, pool),
+        interpolator.interpolateAll(batch(100), ranged, pool)
+      );
+    } finally {
+      pool.shutdown();
+    }
+
+    assertEquals(Map.of("A", 1, "ONE", 1, "TWO", 1, "MISSING", 1),
+      lookups.entrySet().stream().collect(Collectors.toMap(
+        Map.Entry::getKey, entry -> entry.getValue().get()
+      ))
+    );
+  }
+}
@@ -0,0 +1,180 @@
+package sh.cody.string.interpolate.test;
+
+import org.junit.jupiter.api.Test;
+import sh.cody.string.interpolate.Context;
+import sh.cody.string.interpolate.ShellStyleStringInterpolator;
+import sh.cody.string.interpolate.Syntax;
+import sh.cody.string.interpolate.ValueFilter;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SyntaxTest {
+  final static Context mockContext = Context.of(Map.of(
+    "USER", "liz",
+    "HOME", "/home/liz",
+    "PROGRAM_FILES", "C:\\Program Files",
+    "app.name", "experiments",
+    "NESTED", "{{USER}}"
+  ));
+
+  void assertInterpolates(final ShellStyleStringInterpolator interpolator,
+                          final String expected,
+                          final String template) {
+    assertEquals(expected, interpolator.interpolate(template, mockContext));
+    assertEquals(expected, interpolator.compile(template).render(mockContext));
+    assertEquals(
+      expected,
+      new String(
+        interpolator.interpolateUtf8(
+          template.getBytes(StandardCharsets.UTF_8), mockContext
+        ),
+        StandardCharsets.UTF_8
+      )
+    );
+
+    final StringWriter writer = new StringWriter();
+
+    try {
+      interpolator.interpolate(new StringReader(template), writer, mockContext);
+    } catch (final Exception exception) {
+      throw new AssertionError(exception);
+    }
+
+    assertEquals(expected, writer.toString());
+  }
+
+  @Test
+  void testShell() {
+    final ShellStyleStringInterpolator interpolator =
+      new ShellStyleStringInterpolator(Syntax.shell(), true, 0, null);
+
+    assertSame(Syntax.shell(), new ShellStyleStringInterpolator().getSyntax());
+    assertTrue(interpolator.supportsShStyle());
+    assertTrue(interpolator.supportsDosStyle());
+    assertInterpolates(
+      interpolator, "liz /home/liz %PROGRAM_FILES% ${MISSING} $ default",
+      "${USER} %HOME% %PROGRAM_FILES% ${MISSING} \\$ ${MISSING:default}"
+    );
+  }
+
+  @Test
+  void testHashBraces() {
+    final ShellStyleStringInterpolator interpolator =
+      new ShellStyleStringInterpolator(
+        Syntax.builder().enclosed("#{", "}").build(), true, 0,
+        ValueFilter.builtins()
+      );
+
+    assertTrue(interpolator.supportsShStyle());
+    assertFalse(interpolator.supportsDosStyle());
+    assertInterpolates(
+      interpolator, "liz ${HOME} %HOME% #{MISSING} # #x 6c697a default",
+      "#{USER} ${HOME} %HOME% #{MISSING} \\# #x #{USER|hex} #{MISSING:default}"
+    );
+  }
+
+  @Test
+  void testDoubleBraces() {
+    final ShellStyleStringInterpolator interpolator =
+      new ShellStyleStringInterpolator(
+        Syntax.builder().enclosed("{{", "}}").build(), true, 0, null
+      );
+
+    assertInterpolates(
+      interpolator, "liz {{MISSING}} {x} {a}b} }} default {} {{USER}",
+      "{{ USER }} {{MISSING}} {x} {{MISSING:{a}b}}} }} {{MISSING:default}} " +
+      "{{MISSING:\\{\\}}} {{USER}"
+    );
+
+    final ShellStyleStringInterpolator recursive =
+      new ShellStyleStringInterpolator(
+        Syntax.builder().enclosed("{{", "}}").build(), true, 4, null
+      );
+
+    assertInterpolates(recursive, "liz", "{{NESTED}}");
+    assertInterpolates(recursive, "[liz]", "{{MISSING:[{{NESTED}}]}}");
+  }
+
+  @Test
+  void testAtBorders() {
+    final ShellStyleStringInterpolator interpolator =
+      new ShellStyleStringInterpolator(
+        Syntax.builder().bordered('@').nameCharacters("_.").build(),
+        true, 0, null
+      );
+
+    assertFalse(interpolator.supportsShStyle());
+    assertTrue(interpolator.supportsDosStyle());
+    assertInterpolates(
+      interpolator,
+      "experiments C:\\Program Files ${USER} %HOME% @MISSING@ @ liz@cody.sh",
+      "@app.name@ @PROGRAM_FILES@ ${USER} %HOME% @MISSING@ @@ liz@cody.sh"
+    );
+  }
+
+  @Test
+  void testDosNameCharacters() {
+    final ShellStyleStringInterpolator interpolator =
+      new ShellStyleStringInterpolator(
+        Syntax.builder()
+          .enclosed("${", "}")
+          .bordered('%')
+          .nameCharacters("_.")
+          .build(),
+        true, 0, null
+      );
+
+    assertInterpolates(
+      interpolator, "C:\\Program Files experiments liz %-%a-b%",
+      "%PROGRAM_FILES% %app.name% ${USER} %%-%a-b%"
+    );
+  }
+
+  @Test
+  void testInvalidSyntaxes() {
+    assertThrows(
+      IllegalArgumentException.class, () -> Syntax.builder().build()
+    );
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> Syntax.builder().enclosed("{", "}")
+    );
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> Syntax.builder().enclosed("${", "")
+    );
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> Syntax.builder().enclosed("$a", "}")
+    );
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> Syntax.builder().bordered('é')
+    );
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> Syntax.builder().nameCharacters("_ ")
+    );
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> Syntax.builder().enclosed("${", ":}").build()
+    );
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> Syntax.builder().enclosed("${", "}").escape('$').build()
+    );
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> Syntax.builder().enclosed("${", "}").bordered('$').build()
+    );
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> Syntax.builder().bordered('@').nameCharacters("@").build()
+    );
+  }
+}
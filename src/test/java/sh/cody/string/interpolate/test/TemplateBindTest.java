@@ -0,0 +1,106 @@
+package sh.cody.string.interpolate.test;
+
+import org.junit.jupiter.api.Test;
+import sh.cody.string.interpolate.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TemplateBindTest {
+  final static Set<String> staticKeys = Set.of("HOME", "SHELL", "MISSING");
+
+  final static String source =
+    "${USER}@${HOME}: ${SHELL:/bin/sh} %MISSING% ${MISSING:none} %REQUEST%";
+
+  @Test
+  void testResidualLooksUpDynamicKeysOnly() {
+    final Context staticContext = Context.of(Map.of(
+      "HOME", "/home/liz",
+      "SHELL", "/bin/zsh"
+    ));
+    final List<String> lookups = new ArrayList<>();
+    final Map<String, String> dynamic = Map.of("USER", "liz", "REQUEST", "42");
+    final Context requestContext = key -> {
+      lookups.add(key);
+      return dynamic.get(key);
+    };
+
+    final Template template = new ShellStyleStringInterpolator().compile(source);
+    final Template residual = template.bind(staticContext, staticKeys::contains);
+
+    assertEquals(Set.of("USER", "REQUEST"), residual.getKeys());
+    assertEquals(source, residual.getSource());
+    assertEquals(
+      "liz@/home/liz: /bin/zsh %MISSING% none 42",
+      residual.render(requestContext)
+    );
+    assertEquals(List.of("USER", "REQUEST"), lookups);
+  }
+
+  @Test
+  void testRebind() {
+    final Map<String, String> values = new HashMap<>(Map.of("HOME", "/old"));
+    final Template residual = new ShellStyleStringInterpolator()
+      .compile(source)
+      .bind(Context.of(values), staticKeys::contains);
+    final Context requestContext = Context.of(Map.of("USER", "liz"));
+
+    assertTrue(residual.render(requestContext).startsWith("liz@/old: /bin/sh"));
+
+    values.put("HOME", "/new");
+    values.put("SHELL", "/bin/zsh");
+    assertTrue(residual.render(requestContext).startsWith("liz@/old: /bin/sh"));
+
+    final Template rebound = residual.rebind(Context.of(values));
+    assertTrue(rebound.render(requestContext).startsWith("liz@/new: /bin/zsh"));
+    assertEquals(rebound.getKeys(), residual.getKeys());
+
+    assertThrows(
+      IllegalStateException.class,
+      () -> new ShellStyleStringInterpolator().compile(source).rebind(requestContext)
+    );
+  }
+
+  @Test
+  void testRecursive() {
+    final ShellStyleStringInterpolator interpolator =
+      new ShellStyleStringInterpolator(true, true, true, 4);
+    final Context staticContext = Context.of(Map.of(
+      "BASE", "/srv",
+      "DATA", "${BASE}/data",
+      "LOG", "${REQUEST}.log",
+      "RATIO", "100%"
+    ));
+    final Template residual = interpolator
+      .compile("${DATA} ${LOG} ${MISSING:${BASE}} ${RATIO}")
+      .bind(staticContext, key -> !"REQUEST".equals(key));
+    final Context requestContext = key -> "REQUEST".equals(key) ? "42" :
+      staticContext.get(key);
+
+    // values referring to other variables are left in the residual template
+    assertEquals(Set.of("DATA", "LOG", "MISSING"), residual.getKeys());
+    assertEquals(
+      "/srv/data 42.log /srv 100%", residual.render(requestContext)
+    );
+  }
+
+  @Test
+  void testCompiledResidual() {
+    final Template template = new TemplateCompiler(0).optimize(
+      new ShellStyleStringInterpolator().compile(source)
+    );
+    final Template residual =
+      template.bind(Context.of(Map.of("HOME", "/home/liz")), staticKeys::contains);
+
+    assertEquals(
+      "liz@/home/liz: /bin/sh %MISSING% none 42",
+      residual.render(Context.of(Map.of("USER", "liz", "REQUEST", "42")))
+    );
+    assertTrue(residual.isCompiled());
+  }
+}
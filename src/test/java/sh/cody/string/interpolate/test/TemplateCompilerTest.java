@@ -0,0 +1,102 @@
+package sh.cody.string.interpolate.test;
+
+import org.junit.jupiter.api.Test;
+import sh.cody.string.interpolate.*;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TemplateCompilerTest {
+  final static Context mockContext = Map.of(
+    "USER", "liz",
+    "HOME", "/home/liz",
+    "EMPTY", ""
+  )::get;
+
+  final static String[] templates = {
+    "",
+    "plain text",
+    "${USER}",
+    "%HOME%",
+    "${USER}@${HOME}:%EMPTY%",
+    "${MISSING} %MISSING% ${MISSING:default} ${USER:default} $${USER}",
+    "héllo €${USER}\u0000 ${MISSING:ж} 😀",
+  };
+
+  @Test
+  void testCompiledMatchesInterpreted() {
+    final ShellStyleStringInterpolator interpolator =
+      new ShellStyleStringInterpolator();
+    final TemplateCompiler compiler = new TemplateCompiler(0);
+
+    for (final String string : templates) {
+      final Template template = compiler.optimize(interpolator.compile(string));
+      assertFalse(template.isCompiled());
+      assertEquals(
+        interpolator.interpolate(string, mockContext),
+        template.render(mockContext),
+        string
+      );
+      assertTrue(template.isCompiled(), string);
+      assertEquals(
+        interpolator.interpolate(string, mockContext),
+        template.render(mockContext),
+        string
+      );
+    }
+  }
+
+  @Test
+  void testPromotedAfterThreshold() {
+    final Template template = new TemplateCompiler(3).optimize(
+      new ShellStyleStringInterpolator().compile("${USER} %HOME%")
+    );
+
+    for (int i = 0; i < 3; ++i) {
+      assertEquals("liz /home/liz", template.render(mockContext));
+      assertFalse(template.isCompiled());
+    }
+
+    assertEquals("liz /home/liz", template.render(mockContext));
+    assertTrue(template.isCompiled());
+    assertEquals("${USER} %HOME%", template.render(key -> null));
+  }
+
+  @Test
+  void testNotCompilable() {
+    final TemplateCompiler compiler = new TemplateCompiler(0);
+    final Template recursive =
+      new ShellStyleStringInterpolator(true, true, true, 4).compile("${USER}");
+    final Template huge = new ShellStyleStringInterpolator().compile(
+      "%USER%".repeat(300)
+    );
+
+    assertSame(recursive, compiler.optimize(recursive));
+    assertSame(huge, compiler.optimize(huge));
+    assertEquals("liz".repeat(300), huge.render(mockContext));
+    assertFalse(huge.isCompiled());
+    assertThrows(IllegalArgumentException.class, () -> new TemplateCompiler(-1));
+  }
+
+  @Test
+  void testCachingAndMetrics() {
+    final InstrumentedStringInterpolator interpolator =
+      new InstrumentedStringInterpolator(
+        new CachingStringInterpolator(
+          new ShellStyleStringInterpolator(), 16, new TemplateCompiler(1)
+        ), 1
+      );
+    final String string = "${USER} ${MISSING} ${MISSING:default}";
+
+    for (int i = 0; i < 4; ++i) {
+      assertEquals(
+        "liz ${MISSING} default", interpolator.interpolate(string, mockContext)
+      );
+    }
+
+    assertEquals(12, interpolator.getLookups());
+    assertEquals(4, interpolator.getUnresolved());
+    assertEquals(4, interpolator.getDefaults());
+  }
+}
@@ -0,0 +1,188 @@
+package sh.cody.string.interpolate.test;
+
+import org.junit.jupiter.api.Test;
+import sh.cody.string.interpolate.MutableContext;
+import sh.cody.string.interpolate.ShellStyleStringInterpolator;
+import sh.cody.string.interpolate.StringInterpolator;
+import sh.cody.string.interpolate.TemplateRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TemplateRegistryTest {
+  @Test
+  void testMutableContext() {
+    final MutableContext context = new MutableContext(Map.of("A", "1"));
+    final List<Set<String>> notifications = new ArrayList<>();
+    context.addListener(notifications::add);
+
+    context.put("A", "1");
+    assertEquals(List.of(), notifications);
+
+    context.put("A", "2");
+    context.remove("MISSING");
+    context.putAll(Map.of("A", "3", "B", "4"));
+    context.remove("B");
+
+    assertEquals("3", context.get("A"));
+    assertNull(context.get("B"));
+    assertEquals(
+      List.of(Set.of("A"), Set.of("A", "B"), Set.of("B")), notifications
+    );
+  }
+
+  @Test
+  void testRendersOnlyAffectedTemplates() {
+    final MutableContext context = new MutableContext(
+      Map.of("HOST", "localhost", "PORT", "8080", "USER", "liz")
+    );
+    final AtomicInteger renders = new AtomicInteger();
+    final ShellStyleStringInterpolator shellStyle =
+      new ShellStyleStringInterpolator();
+    final StringInterpolator counting = (string, values) -> {
+      renders.incrementAndGet();
+      return shellStyle.interpolate(string, values);
+    };
+
+    try (final TemplateRegistry registry =
+           new TemplateRegistry(counting, context)) {
+      final List<Map<String, String>> deltas = new ArrayList<>();
+      registry.addListener(deltas::add);
+
+      assertEquals("localhost:8080", registry.register("url", "${HOST}:%PORT%"));
+      assertEquals("liz", registry.register("user", "${USER}"));
+      assertEquals(
+        "liz@localhost", registry.register("login", "${USER}@${HOST}")
+      );
+      assertEquals(Set.of("url", "login"), registry.getDependents("HOST"));
+      renders.set(0);
+
+      context.put("PORT", "9090");
+      assertEquals(1, renders.get());
+      assertEquals(List.of(Map.of("url", "localhost:9090")), deltas);
+
+      context.putAll(Map.of("HOST", "example.com", "UNUSED", "x"));
+      assertEquals(3, renders.get());
+      assertEquals(
+        Map.of("url", "example.com:9090", "login", "liz@example.com"),
+        deltas.get(1)
+      );
+      assertEquals("liz", registry.get("user"));
+
+      registry.unregister("login");
+      assertEquals(Set.of("url"), registry.getDependents("HOST"));
+      assertNull(registry.get("login"));
+    }
+
+    renders.set(0);
+    context.put("HOST", "closed");
+    assertEquals(0, renders.get());
+  }
+
+  @Test
+  void testTracksKeysBehindDefaults() {
+    final MutableContext context = new MutableContext();
+
+    try (final TemplateRegistry registry = new TemplateRegistry(
+      new ShellStyleStringInterpolator(true, true, true, 4), context
+    )) {
+      assertEquals("none", registry.register("t", "${A:${B:none}}"));
+
+      context.put("B", "${C}");
+      assertEquals("${C}", registry.get("t"));
+
+      context.put("C", "c");
+      assertEquals("c", registry.get("t"));
+
+      context.put("A", "a");
+      assertEquals("a", registry.get("t"));
+      assertEquals(Set.of(), registry.getDependents("B"));
+    }
+  }
+
+  @Test
+  void testFailedRenders() {
+    final MutableContext context = new MutableContext();
+    final List<Set<String>> notifications = new ArrayList<>();
+
+    try (final TemplateRegistry registry = new TemplateRegistry(
+      new ShellStyleStringInterpolator(true, true, true, 4), context
+    )) {
+      context.addListener(notifications::add);
+      assertEquals("${A}", registry.register("t", "${A}"));
+
+      // a failed first render leaves the registry unchanged
+      context.put("LOOP", "${LOOP}");
+      assertThrows(
+        IllegalArgumentException.class, () -> registry.register("t", "${LOOP}")
+      );
+      assertEquals("${A}", registry.get("t"));
+      assertThrows(
+        IllegalArgumentException.class, () -> registry.register("u", "${LOOP}")
+      );
+      assertNull(registry.get("u"));
+      assertEquals(Set.of(), registry.getDependents("LOOP"));
+
+      // a failed render again keeps the previous rendering and its keys
+      context.put("A", "${B}${A}");
+      assertEquals("${A}", registry.get("t"));
+      assertTrue(registry.getFailure("t") instanceof IllegalArgumentException);
+      assertEquals(Set.of("t"), registry.getDependents("A"));
+      assertEquals(Set.of("t"), registry.getDependents("B"));
+
+      // later listeners are still notified
+      assertEquals(Set.of("A"), notifications.get(notifications.size() - 1));
+
+      context.put("A", "fine");
+      assertEquals("fine", registry.get("t"));
+      assertNull(registry.getFailure("t"));
+      assertEquals(Set.of(), registry.getDependents("B"));
+
+      registry.unregister("t");
+      assertEquals(Set.of(), registry.getDependents("A"));
+      assertEquals("x", registry.register("t", "x"));
+    }
+  }
+
+  @Test
+  void testDeltasDeliveredInOrder() throws Exception {
+    final MutableContext context = new MutableContext();
+    final AtomicReference<String> mirror = new AtomicReference<>();
+    final int threads = 8;
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+    try (final TemplateRegistry registry =
+           new TemplateRegistry(new ShellStyleStringInterpolator(), context)) {
+      registry.register("t", "${A}");
+      registry.addListener(delta -> mirror.set(delta.get("t")));
+
+      final List<Future<?>> results = new ArrayList<>();
+
+      for (int i = 0; i < threads; ++i) {
+        final int thread = i;
+        results.add(executor.submit(() -> {
+          for (int j = 0; j < 1_000; ++j) {
+            context.put("A", thread + "." + j);
+          }
+        }));
+      }
+
+      for (final Future<?> result : results) {
+        result.get();
+      }
+
+      assertEquals(registry.get("t"), mirror.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
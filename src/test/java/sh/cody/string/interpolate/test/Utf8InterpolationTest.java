@@ -0,0 +1,101 @@
+package sh.cody.string.interpolate.test;
+
+import org.junit.jupiter.api.Test;
+import sh.cody.string.interpolate.Context;
+import sh.cody.string.interpolate.ShellStyleStringInterpolator;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Utf8InterpolationTest {
+  final static Context mockContext = Map.of(
+    "USER", "liz",
+    "café", "crème brûlée",
+    "名前", "値",
+    "EMOJI", "😀",
+    "ONE", "1"
+  )::get;
+
+  final static ShellStyleStringInterpolator interpolator =
+    new ShellStyleStringInterpolator();
+
+  static byte[] utf8(final String string) {
+    return string.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void testMatchesStringPath() {
+    final List<String> templates = List.of(
+      "",
+      "no expressions here, only ünïcödé",
+      "${USER} mange une %café% et un ${café}",
+      "%名前% = ${名前:none} ${EMOJI}${EMOJI}",
+      "${MISSING:défaut} ${MISSING} %MISSING% %ONE%é%",
+      "%caféx% %ONE€% %😀% \\${USER} \\é $é ${ café }",
+      "${unterminated é",
+      "${a\\:b:c\\}d} trailing \\"
+    );
+
+    for (final String template : templates) {
+      final String expected = interpolator.interpolate(template, mockContext);
+
+      assertEquals(
+        expected,
+        new String(
+          interpolator.interpolateUtf8(utf8(template), mockContext),
+          StandardCharsets.UTF_8
+        ),
+        template
+      );
+    }
+  }
+
+  @Test
+  void testByteBuffer() {
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+    buffer.put(utf8("skip ${USER}@%名前% ${EMOJI}"));
+    buffer.flip().position(5);
+
+    final ByteBuffer interpolated =
+      interpolator.interpolateUtf8(buffer, mockContext);
+
+    assertEquals(5, buffer.position());
+    assertEquals(
+      "liz@値 😀",
+      StandardCharsets.UTF_8.decode(interpolated).toString()
+    );
+  }
+
+  @Test
+  void testLiteralBytesCopiedVerbatim() {
+    // a lone continuation byte and a truncated sequence are not valid UTF-8
+    final byte[] template = {
+      '<', (byte) 0x80, '>', '$', '{', 'O', 'N', 'E', '}', (byte) 0xE2, (byte) 0x82
+    };
+    final byte[] expected = {
+      '<', (byte) 0x80, '>', '1', (byte) 0xE2, (byte) 0x82
+    };
+
+    assertArrayEquals(
+      expected, interpolator.interpolateUtf8(template, mockContext)
+    );
+  }
+
+  @Test
+  void testRecursive() {
+    final Context context = Map.of(
+      "BASE", "/ópt",
+      "LOGS", "${BASE}/lögs"
+    )::get;
+
+    assertArrayEquals(
+      utf8("/ópt/lögs|/ópt"),
+      new ShellStyleStringInterpolator(true, true, true, 4)
+        .interpolateUtf8(utf8("${LOGS}|${MISSING:${BASE}}"), context)
+    );
+  }
+}
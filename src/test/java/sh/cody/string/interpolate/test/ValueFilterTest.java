@@ -0,0 +1,127 @@
+package sh.cody.string.interpolate.test;
+
+import org.junit.jupiter.api.Test;
+import sh.cody.string.hex.FastererHexStringConverter;
+import sh.cody.string.interpolate.*;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValueFilterTest {
+  final static Context mockContext = Context.of(Map.of(
+    "TOKEN", "s3cr3t",
+    "NAME", "Liz Cody/é€😀",
+    "A|hex", "literal key"
+  ));
+
+  final static ShellStyleStringInterpolator interpolator =
+    new ShellStyleStringInterpolator(true, true, true, 0, filters());
+
+  static Map<String, ValueFilter> filters() {
+    final Map<String, ValueFilter> filters = new HashMap<>(ValueFilter.builtins());
+    filters.put("upper", (value, destination) ->
+      destination.append(value.toString().toUpperCase())
+    );
+    return filters;
+  }
+
+  void assertInterpolates(final String expected, final String template) {
+    assertEquals(expected, interpolator.interpolate(template, mockContext));
+    assertEquals(expected, interpolator.compile(template).render(mockContext));
+    assertEquals(
+      expected,
+      new String(
+        interpolator.interpolateUtf8(
+          template.getBytes(StandardCharsets.UTF_8), mockContext
+        ),
+        StandardCharsets.UTF_8
+      )
+    );
+
+    final StringWriter writer = new StringWriter();
+
+    try {
+      interpolator.interpolate(new StringReader(template), writer, mockContext);
+    } catch (final Exception exception) {
+      throw new AssertionError(exception);
+    }
+
+    assertEquals(expected, writer.toString());
+  }
+
+  @Test
+  void testHex() {
+    final String expected = new FastererHexStringConverter().fromBytes(
+      "Liz Cody/é€😀".getBytes(StandardCharsets.UTF_8)
+    );
+
+    assertInterpolates("733363723374", "${TOKEN|hex}");
+    assertInterpolates("[" + expected + "]", "[${ NAME | hex }]");
+  }
+
+  @Test
+  void testUrl() {
+    assertInterpolates(
+      "?name=Liz%20Cody%2F%C3%A9%E2%82%AC%F0%9F%98%80", "?name=${NAME|url}"
+    );
+  }
+
+  @Test
+  void testPipeline() {
+    assertInterpolates("533343523354", "${TOKEN|upper|hex}");
+    assertInterpolates("733363723374", "${TOKEN|hex|url}");
+    assertInterpolates(
+      "LIZ%20CODY%2F%C3%89%E2%82%AC%F0%9F%98%80", "${NAME|upper|url}"
+    );
+  }
+
+  @Test
+  void testDefaultsAndUnresolved() {
+    assertInterpolates("6e6f6e65", "${MISSING|hex:none}");
+    assertInterpolates("${MISSING|hex}", "${MISSING|hex}");
+    assertInterpolates("NONE|HEX", "${MISSING|upper:none|hex}");
+    assertInterpolates("s3cr3t %TOKEN|hex%", "%TOKEN% %TOKEN|hex%");
+  }
+
+  @Test
+  void testRecursive() {
+    final ShellStyleStringInterpolator recursive =
+      new ShellStyleStringInterpolator(true, true, true, 4, ValueFilter.builtins());
+    final Context context = Context.of(Map.of("A", "${B}", "B", "é"));
+
+    assertEquals("c3a9", recursive.interpolate("${A|hex}", context));
+    assertEquals("c3a9", recursive.interpolate("${MISSING|hex:${B}}", context));
+    assertEquals("c3a9", recursive.compile("${MISSING|hex:${A}}").render(context));
+  }
+
+  @Test
+  void testBind() {
+    final Template residual = interpolator
+      .compile("${TOKEN|hex}/${NAME|upper}")
+      .bind(mockContext, "TOKEN"::equals);
+
+    assertEquals(java.util.Set.of("NAME"), residual.getKeys());
+    assertEquals("733363723374/LIZ CODY/É€😀", residual.render(mockContext));
+  }
+
+  @Test
+  void testFiltersDisabledOrUnknown() {
+    assertEquals(
+      "literal key",
+      new ShellStyleStringInterpolator().interpolate("${A|hex}", mockContext)
+    );
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> interpolator.interpolate("${TOKEN|rot13}", mockContext)
+    );
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> interpolator.interpolate("${TOKEN|}", mockContext)
+    );
+  }
+}